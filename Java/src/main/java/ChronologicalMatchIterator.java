@@ -0,0 +1,105 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Lazily merges several match files into one chronological sequence.
+ *
+ * The earliest date of every file is scanned up front without building any objects.
+ * A file is only parsed and sorted once the merge reaches that date, and its matches
+ * are released as they are handed out. The order is the same as a stable sort of the
+ * concatenated files: by date, then file, then row.
+ */
+class ChronologicalMatchIterator implements Iterator<Match> {
+    private final TennisDataLoader loader;
+    private final MatchFilter filter;
+    private final PriorityQueue<PendingFile> pending;
+    private final PriorityQueue<OpenFile> open;
+
+    ChronologicalMatchIterator(TennisDataLoader loader, List<String> files, MatchFilter filter) throws IOException {
+        this.loader = loader;
+        this.filter = filter;
+        this.pending = new PriorityQueue<>(Math.max(1, files.size()),
+                Comparator.comparingInt((PendingFile f) -> f.earliestDate).thenComparingInt(f -> f.order));
+        this.open = new PriorityQueue<>(Comparator.comparingInt(OpenFile::headDate).thenComparingInt(f -> f.order));
+
+        for (int i = 0; i < files.size(); i++) {
+            pending.add(new PendingFile(files.get(i), i, loader.scanEarliestDate(files.get(i))));
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        openDueFiles();
+        return !open.isEmpty();
+    }
+
+    @Override
+    public Match next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        OpenFile head = open.poll();
+        Match match = head.take();
+        if (head.hasRemaining()) {
+            open.add(head);
+        }
+        return match;
+    }
+
+    /**
+     * Open every pending file whose earliest date is not after the next match to emit
+     */
+    private void openDueFiles() {
+        while (!pending.isEmpty() && (open.isEmpty() || pending.peek().earliestDate <= open.peek().headDate())) {
+            PendingFile file = pending.poll();
+            try {
+                OpenFile opened = new OpenFile(ParallelMatchLoader.SortedRun.sort(loader.loadMatchesMapped(file.path, filter)), file.order);
+                if (opened.hasRemaining()) {
+                    open.add(opened);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private static class PendingFile {
+        final String path;
+        final int order;
+        final int earliestDate;
+
+        PendingFile(String path, int order, int earliestDate) {
+            this.path = path;
+            this.order = order;
+            this.earliestDate = earliestDate;
+        }
+    }
+
+    private static class OpenFile {
+        final ParallelMatchLoader.SortedRun run;
+        final int order;
+        int cursor;
+
+        OpenFile(ParallelMatchLoader.SortedRun run, int order) {
+            this.run = run;
+            this.order = order;
+        }
+
+        int headDate() {
+            return run.dates[cursor];
+        }
+
+        boolean hasRemaining() {
+            return cursor < run.dates.length;
+        }
+
+        Match take() {
+            // Drop the reference so consumed matches can be collected before the file is done
+            Match match = run.matches.set(cursor, null);
+            cursor++;
+            return match;
+        }
+    }
+}
@@ -0,0 +1,624 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Versioned binary columnar store for matches.
+ *
+ * Layout: magic, version, row count and column count, followed by one section per column.
+ * Each section holds the column name, its kind, the value width in bytes, an optional
+ * dictionary, and then rowCount values. Numeric columns are narrowed to the smallest
+ * width that fits their values, with the minimum of that width marking a missing value.
+ * Text columns are dictionary-encoded, with -1 marking a missing value. The score column is
+ * dictionary-encoded too, but its entries are {@link MatchScore#toBytes()} encodings, so
+ * reading rebuilds scores without parsing; lines that do not render back the same keep their text.
+ * Version 1 archives, which stored scores as text, can still be read.
+ *
+ * The reader memory-maps the file and decodes rows on demand, so opening an archive
+ * only costs reading the dictionaries.
+ *
+ * Usage: ColumnarMatchArchive [csv directory] [from year] [to year] [output file]
+ */
+public class ColumnarMatchArchive {
+    public static final String DEFAULT_PATH = "Data/matches2005_2025.tpma";
+
+    private static final int MAGIC = 0x54504D41; // "TPMA"
+    private static final int VERSION = 2;
+    private static final int OLDEST_READABLE_VERSION = 1;
+
+    private static final byte KIND_INT = 0;
+    private static final byte KIND_DOUBLE = 1;
+    private static final byte KIND_DICTIONARY = 2;
+    private static final byte KIND_SCORE = 3;
+
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final Map<String, Column> columns = new HashMap<>();
+
+    private final Column tourneyId;
+    private final Column tourneyName;
+    private final Column surface;
+    private final Column drawSize;
+    private final Column tourneyLevel;
+    private final Column tourneyDate;
+    private final Column matchNum;
+    private final Column round;
+    private final Column bestOf;
+    private final Column minutes;
+    private final Column score;
+    private final PlayerColumns winner;
+    private final PlayerColumns loser;
+    private final StatColumns winnerStats;
+    private final StatColumns loserStats;
+    private final Match.RowSource deferredRows = this::decodeDeferredFields;
+    private volatile boolean lazyDecoding;
+
+    private ColumnarMatchArchive(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+
+        if (buffer.getInt() != MAGIC) {
+            throw new IOException("Not a match archive");
+        }
+        int version = buffer.getInt();
+        if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+            throw new IOException("Unsupported match archive version " + version);
+        }
+
+        this.rowCount = buffer.getInt();
+        if (rowCount < 0) {
+            throw new IllegalStateException("Negative row count " + rowCount);
+        }
+        int columnCount = readCount();
+        for (int i = 0; i < columnCount; i++) {
+            Column column = readColumnHeader();
+            columns.put(column.name, column);
+        }
+
+        tourneyId = column("tourney_id");
+        tourneyName = column("tourney_name");
+        surface = column("surface");
+        drawSize = column("draw_size");
+        tourneyLevel = column("tourney_level");
+        tourneyDate = column("tourney_date");
+        matchNum = column("match_num");
+        round = column("round");
+        bestOf = column("best_of");
+        minutes = column("minutes");
+        score = column("score");
+        winner = new PlayerColumns("winner_");
+        loser = new PlayerColumns("loser_");
+        winnerStats = new StatColumns("w_");
+        loserStats = new StatColumns("l_");
+    }
+
+    /**
+     * Memory-map an archive written by {@link #write(List, String)}
+     */
+    public static ColumnarMatchArchive open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Archive too large to map: " + path);
+            }
+            return new ColumnarMatchArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (RuntimeException e) {
+            // Running off the end or an impossible count or width all mean the file is damaged
+            throw new IOException("Corrupt match archive " + path, e);
+        }
+    }
+
+    /**
+     * Whether the archive at {@code path} exists and is no older than any of the files it was
+     * converted from; once one of them is updated, the archive is out of date
+     */
+    public static boolean isCurrent(String path, List<String> sourceFiles) {
+        File archive = new File(path);
+        if (!archive.isFile()) return false;
+        for (String sourceFile : sourceFiles) {
+            if (new File(sourceFile).lastModified() > archive.lastModified()) return false;
+        }
+        return true;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    /**
+     * When enabled, matches read minutes, score and serve stats from the mapping only when
+     * one of those getters is first called, and hold a reference to the archive until then
+     */
+    public void setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+    }
+
+    /**
+     * Rebuild the match stored at the given row
+     */
+    public Match getMatch(int row) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+
+        int date = tourneyDate.getInt(row);
+        Match.Builder builder = new Match.Builder()
+                .tourneyId(tourneyId.getString(row))
+                .tourneyName(tourneyName.getString(row))
+                .surface(surface.getString(row))
+                .drawSize(drawSize.getInteger(row))
+                .tourneyLevel(tourneyLevel.getString(row))
+                .tourneyDate(tourneyDate.getInteger(row))
+                .matchNum(matchNum.getInteger(row))
+                .round(round.getString(row))
+                .bestOf(bestOf.getInteger(row))
+                .winner(winner.getPlayer(row, date))
+                .loser(loser.getPlayer(row, date));
+
+        if (lazyDecoding) {
+            builder.deferredFields(deferredRows, row);
+        } else {
+            decodeDeferredFields(row, builder);
+        }
+        return builder.build();
+    }
+
+    private void decodeDeferredFields(int row, Match.Builder builder) {
+        builder.minutes(minutes.getInteger(row))
+                .score(score.getScore(row))
+                .winnerStats(winnerStats.getStats(row))
+                .loserStats(loserStats.getStats(row));
+    }
+
+    public List<Match> getMatches() {
+        List<Match> matches = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            matches.add(getMatch(row));
+        }
+        return matches;
+    }
+
+    /**
+     * Stream the stored matches in archive order, decoding each row only when it is reached
+     */
+    public Stream<Match> stream() {
+        return IntStream.range(0, rowCount).mapToObj(this::getMatch);
+    }
+
+    /**
+     * Write matches in the given order to a new archive
+     */
+    public static void write(List<Match> matches, String path) throws IOException {
+        List<ColumnWriter> writers = new ArrayList<>();
+
+        writers.add(dictionary("tourney_id", Match::getTourneyId));
+        writers.add(dictionary("tourney_name", Match::getTourneyName));
+        writers.add(dictionary("surface", Match::getSurface));
+        writers.add(integer("draw_size", Match::getDrawSize));
+        writers.add(dictionary("tourney_level", Match::getTourneyLevel));
+        writers.add(integer("tourney_date", Match::getTourneyDate));
+        writers.add(integer("match_num", Match::getMatchNum));
+        writers.add(dictionary("round", Match::getRound));
+        writers.add(integer("best_of", Match::getBestOf));
+        writers.add(integer("minutes", Match::getMinutes));
+        writers.add(scores("score", Match::getMatchScore));
+        addPlayerWriters(writers, "winner_", Match::getWinner);
+        addPlayerWriters(writers, "loser_", Match::getLoser);
+        addStatWriters(writers, "w_", Match::getWinnerStats);
+        addStatWriters(writers, "l_", Match::getLoserStats);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(matches.size());
+            out.writeInt(writers.size());
+            for (ColumnWriter writer : writers) {
+                writer.write(out, matches);
+            }
+        }
+    }
+
+    private static void addPlayerWriters(List<ColumnWriter> writers, String prefix, Function<Match, Player> side) {
+        writers.add(dictionary(prefix + "id", m -> side.apply(m).getPlayerId()));
+        writers.add(dictionary(prefix + "name", m -> side.apply(m).getName()));
+        writers.add(dictionary(prefix + "hand", m -> side.apply(m).getHand()));
+        writers.add(dictionary(prefix + "ioc", m -> side.apply(m).getNationality()));
+        writers.add(integer(prefix + "seed", m -> side.apply(m).getSeed()));
+        writers.add(dictionary(prefix + "entry", m -> side.apply(m).getEntry()));
+        writers.add(integer(prefix + "ht", m -> side.apply(m).getHeight()));
+        writers.add(decimal(prefix + "age", m -> side.apply(m).getAge()));
+        writers.add(integer(prefix + "rank", m -> side.apply(m).getRank()));
+        writers.add(integer(prefix + "rank_points", m -> side.apply(m).getRankPoints()));
+    }
+
+    private static void addStatWriters(List<ColumnWriter> writers, String prefix, Function<Match, MatchStats> side) {
+        writers.add(stat(prefix + "ace", side, MatchStats::getAces));
+        writers.add(stat(prefix + "df", side, MatchStats::getDoubleFaults));
+        writers.add(stat(prefix + "svpt", side, MatchStats::getServePoints));
+        writers.add(stat(prefix + "1stIn", side, MatchStats::getFirstServeIn));
+        writers.add(stat(prefix + "1stWon", side, MatchStats::getFirstServeWon));
+        writers.add(stat(prefix + "2ndWon", side, MatchStats::getSecondServeWon));
+        writers.add(stat(prefix + "SvGms", side, MatchStats::getServiceGames));
+        writers.add(stat(prefix + "bpSaved", side, MatchStats::getBreakPointsSaved));
+        writers.add(stat(prefix + "bpFaced", side, MatchStats::getBreakPointsFaced));
+    }
+
+    private static ColumnWriter stat(String name, Function<Match, MatchStats> side, Function<MatchStats, Integer> getter) {
+        return integer(name, m -> {
+            MatchStats stats = side.apply(m);
+            return stats != null ? getter.apply(stats) : null;
+        });
+    }
+
+    private static ColumnWriter integer(String name, Function<Match, Integer> getter) {
+        return (out, matches) -> {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (Match match : matches) {
+                Integer value = getter.apply(match);
+                if (value != null) {
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                }
+            }
+
+            // The smallest value of the chosen width is reserved as the missing marker
+            int width = min > Byte.MIN_VALUE && max <= Byte.MAX_VALUE ? 1
+                    : min > Short.MIN_VALUE && max <= Short.MAX_VALUE ? 2 : 4;
+            if (min == Integer.MIN_VALUE) {
+                throw new IOException("Column " + name + " uses the reserved missing value");
+            }
+
+            writeColumnHeader(out, name, KIND_INT, width);
+            for (Match match : matches) {
+                Integer value = getter.apply(match);
+                writeValue(out, width, value != null ? value : missingValue(width));
+            }
+        };
+    }
+
+    private static ColumnWriter decimal(String name, Function<Match, Double> getter) {
+        return (out, matches) -> {
+            writeColumnHeader(out, name, KIND_DOUBLE, 8);
+            for (Match match : matches) {
+                Double value = getter.apply(match);
+                out.writeDouble(value != null ? value : Double.NaN);
+            }
+        };
+    }
+
+    private static ColumnWriter dictionary(String name, Function<Match, String> getter) {
+        return (out, matches) -> {
+            Map<String, Integer> codes = new LinkedHashMap<>();
+            for (Match match : matches) {
+                String value = getter.apply(match);
+                if (value != null) {
+                    codes.putIfAbsent(value, codes.size());
+                }
+            }
+
+            int width = codes.size() <= Byte.MAX_VALUE ? 1 : codes.size() <= Short.MAX_VALUE ? 2 : 4;
+            writeColumnHeader(out, name, KIND_DICTIONARY, width);
+            out.writeInt(codes.size());
+            for (String value : codes.keySet()) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            for (Match match : matches) {
+                String value = getter.apply(match);
+                writeValue(out, width, value != null ? codes.get(value) : -1);
+            }
+        };
+    }
+
+    private static ColumnWriter scores(String name, Function<Match, MatchScore> getter) {
+        return (out, matches) -> {
+            Map<MatchScore, Integer> codes = new LinkedHashMap<>();
+            for (Match match : matches) {
+                MatchScore value = getter.apply(match);
+                if (value != null) {
+                    codes.putIfAbsent(value, codes.size());
+                }
+            }
+
+            int width = codes.size() <= Byte.MAX_VALUE ? 1 : codes.size() <= Short.MAX_VALUE ? 2 : 4;
+            writeColumnHeader(out, name, KIND_SCORE, width);
+            out.writeInt(codes.size());
+            for (MatchScore value : codes.keySet()) {
+                byte[] bytes = value.toBytes();
+                out.writeShort(bytes.length);
+                out.write(bytes);
+                // Empty when the encoding renders back to the original line
+                String text = value.toString();
+                byte[] textBytes = MatchScore.fromBytes(bytes).toString().equals(text)
+                        ? new byte[0] : text.getBytes(StandardCharsets.UTF_8);
+                out.writeShort(textBytes.length);
+                out.write(textBytes);
+            }
+            for (Match match : matches) {
+                MatchScore value = getter.apply(match);
+                writeValue(out, width, value != null ? codes.get(value) : -1);
+            }
+        };
+    }
+
+    private static void writeColumnHeader(DataOutputStream out, String name, byte kind, int width) throws IOException {
+        out.writeUTF(name);
+        out.writeByte(kind);
+        out.writeByte(width);
+    }
+
+    private static void writeValue(DataOutputStream out, int width, int value) throws IOException {
+        switch (width) {
+            case 1: out.writeByte(value); break;
+            case 2: out.writeShort(value); break;
+            default: out.writeInt(value); break;
+        }
+    }
+
+    private static int missingValue(int width) {
+        switch (width) {
+            case 1: return Byte.MIN_VALUE;
+            case 2: return Short.MIN_VALUE;
+            default: return Integer.MIN_VALUE;
+        }
+    }
+
+    private Column readColumnHeader() {
+        String name = readString(buffer.getShort() & 0xFFFF);
+        byte kind = buffer.get();
+        int width = buffer.get();
+        boolean validWidth = kind == KIND_DOUBLE ? width == 8 : (width == 1 || width == 2 || width == 4)
+                && (kind == KIND_INT || kind == KIND_DICTIONARY || kind == KIND_SCORE);
+        if (!validWidth) {
+            throw new IllegalStateException("Column " + name + " has kind " + kind + " and width " + width);
+        }
+
+        String[] dictionary = null;
+        int[] codes = null;
+        MatchScore[] scores = null;
+        if (kind == KIND_SCORE) {
+            scores = new MatchScore[readCount()];
+            for (int i = 0; i < scores.length; i++) {
+                byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(bytes);
+                String text = readString(buffer.getShort() & 0xFFFF);
+                scores[i] = text.isEmpty() ? MatchScore.fromBytes(bytes) : MatchScore.parse(text);
+            }
+        } else if (kind == KIND_DICTIONARY) {
+            dictionary = new String[readCount()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer.getShort() & 0xFFFF);
+            }
+
+            // Share the loaders' symbols so ids and codes agree whatever the source
+            SymbolTable table = symbolTable(name);
+            if (table != null) {
+                codes = new int[dictionary.length];
+                for (int i = 0; i < dictionary.length; i++) {
+                    codes[i] = table.intern(dictionary[i]);
+                    dictionary[i] = table.symbol(codes[i]);
+                }
+            }
+        }
+
+        if ((long) rowCount * width > buffer.remaining()) {
+            throw new IllegalStateException("Column " + name + " is cut short");
+        }
+        Column column = new Column(name, kind, width, buffer.position(), dictionary, codes, scores);
+        buffer.position(buffer.position() + rowCount * width);
+        return column;
+    }
+
+    /**
+     * A count of entries that follow, each at least a byte long
+     */
+    private int readCount() {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalStateException("Count of " + count + " entries with " + buffer.remaining() + " bytes left");
+        }
+        return count;
+    }
+
+    private static SymbolTable symbolTable(String column) {
+        switch (column.replaceFirst("^(winner|loser)_", "")) {
+            case "tourney_id": return MatchSymbols.TOURNEY_IDS;
+            case "tourney_name": return MatchSymbols.TOURNEY_NAMES;
+            case "surface": return MatchSymbols.SURFACES;
+            case "tourney_level": return MatchSymbols.LEVELS;
+            case "round": return MatchSymbols.ROUNDS;
+            case "id": return MatchSymbols.PLAYER_IDS;
+            case "name": return MatchSymbols.PLAYER_NAMES;
+            case "hand": return MatchSymbols.HANDS;
+            case "ioc": return MatchSymbols.COUNTRIES;
+            case "entry": return MatchSymbols.ENTRIES;
+            default: return null;
+        }
+    }
+
+    private String readString(int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private Column column(String name) {
+        Column column = columns.get(name);
+        return column != null ? column : new Column(name, KIND_INT, 0, 0, null, null, null);
+    }
+
+    private interface ColumnWriter {
+        void write(DataOutputStream out, List<Match> matches) throws IOException;
+    }
+
+    /**
+     * A mapped column section. Columns missing from the file read as null.
+     */
+    private class Column {
+        final String name;
+        final byte kind;
+        final int width;
+        final int offset;
+        final String[] dictionary;
+        final int[] codes;
+        final MatchScore[] scores;
+
+        Column(String name, byte kind, int width, int offset, String[] dictionary, int[] codes, MatchScore[] scores) {
+            this.name = name;
+            this.kind = kind;
+            this.width = width;
+            this.offset = offset;
+            this.dictionary = dictionary;
+            this.codes = codes;
+            this.scores = scores;
+        }
+
+        int getRaw(int row) {
+            int position = offset + row * width;
+            switch (width) {
+                case 1: return buffer.get(position);
+                case 2: return buffer.getShort(position);
+                default: return buffer.getInt(position);
+            }
+        }
+
+        Integer getInteger(int row) {
+            int value = getInt(row);
+            return value != Integer.MIN_VALUE ? value : null;
+        }
+
+        /** Cell as an int, Integer.MIN_VALUE when missing */
+        int getInt(int row) {
+            if (width == 0) return Integer.MIN_VALUE;
+            int value = getRaw(row);
+            return value != missingValue(width) ? value : Integer.MIN_VALUE;
+        }
+
+        /** Cell as a double, NaN when missing */
+        double getDouble(int row) {
+            if (width == 0) return Double.NaN;
+            return buffer.getDouble(offset + row * width);
+        }
+
+        String getString(int row) {
+            if (width == 0) return null;
+            int code = getRaw(row);
+            return code >= 0 ? dictionary[code] : null;
+        }
+
+        /** Score cell, parsing the text of a version 1 score column */
+        MatchScore getScore(int row) {
+            if (kind != KIND_SCORE) return MatchScore.parse(getString(row));
+            int code = getRaw(row);
+            return code >= 0 ? scores[code] : null;
+        }
+
+        /** Symbol table code of a dictionary cell, or -1 when missing */
+        int getCode(int row) {
+            if (width == 0) return SymbolTable.MISSING;
+            int code = getRaw(row);
+            return code >= 0 ? codes[code] : SymbolTable.MISSING;
+        }
+    }
+
+    private class PlayerColumns {
+        final Column id;
+        final Column name;
+        final Column hand;
+        final Column ioc;
+        final Column seed;
+        final Column entry;
+        final Column height;
+        final Column age;
+        final Column rank;
+        final Column rankPoints;
+
+        PlayerColumns(String prefix) {
+            id = column(prefix + "id");
+            name = column(prefix + "name");
+            hand = column(prefix + "hand");
+            ioc = column(prefix + "ioc");
+            seed = column(prefix + "seed");
+            entry = column(prefix + "entry");
+            height = column(prefix + "ht");
+            age = column(prefix + "age");
+            rank = column(prefix + "rank");
+            rankPoints = column(prefix + "rank_points");
+        }
+
+        Player getPlayer(int row, int tourneyDate) {
+            PlayerRegistry.Attributes attributes = PlayerRegistry.SHARED.attributes(id.getCode(row),
+                    name.getString(row), hand.getString(row), ioc.getString(row), height.getInt(row),
+                    tourneyDate != Player.MISSING ? tourneyDate : 0);
+            return new Player(attributes, seed.getInt(row), entry.getString(row), age.getDouble(row),
+                    rank.getInt(row), rankPoints.getInt(row));
+        }
+    }
+
+    private class StatColumns {
+        final Column aces;
+        final Column doubleFaults;
+        final Column servePoints;
+        final Column firstServeIn;
+        final Column firstServeWon;
+        final Column secondServeWon;
+        final Column serviceGames;
+        final Column breakPointsSaved;
+        final Column breakPointsFaced;
+
+        StatColumns(String prefix) {
+            aces = column(prefix + "ace");
+            doubleFaults = column(prefix + "df");
+            servePoints = column(prefix + "svpt");
+            firstServeIn = column(prefix + "1stIn");
+            firstServeWon = column(prefix + "1stWon");
+            secondServeWon = column(prefix + "2ndWon");
+            serviceGames = column(prefix + "SvGms");
+            breakPointsSaved = column(prefix + "bpSaved");
+            breakPointsFaced = column(prefix + "bpFaced");
+        }
+
+        MatchStats getStats(int row) {
+            return new MatchStats(aces.getInt(row), doubleFaults.getInt(row), servePoints.getInt(row),
+                    firstServeIn.getInt(row), firstServeWon.getInt(row), secondServeWon.getInt(row),
+                    serviceGames.getInt(row), breakPointsSaved.getInt(row), breakPointsFaced.getInt(row));
+        }
+    }
+
+    /**
+     * One-time conversion of the per-year CSVs into an archive
+     */
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "Data/OriginalCSVs";
+        int fromYear = args.length > 1 ? Integer.parseInt(args[1]) : 2005;
+        int toYear = args.length > 2 ? Integer.parseInt(args[2]) : 2025;
+        String output = args.length > 3 ? args[3] : DEFAULT_PATH;
+
+        long start = System.nanoTime();
+        List<Match> matches = new ParallelMatchLoader().loadYearRange(directory, fromYear, toYear);
+        long loaded = System.nanoTime();
+        write(matches, output);
+        long written = System.nanoTime();
+
+        long csvBytes = 0;
+        for (int year = fromYear; year <= toYear; year++) {
+            csvBytes += new File(directory, year + ".csv").length();
+        }
+
+        System.out.printf("Parsed %d matches in %.1f ms, wrote %s in %.1f ms%n",
+                matches.size(), (loaded - start) / 1e6, output, (written - loaded) / 1e6);
+        System.out.printf("CSV size: %.1f MB, archive size: %.1f MB%n",
+                csvBytes / (1024.0 * 1024.0), new File(output).length() / (1024.0 * 1024.0));
+
+        start = System.nanoTime();
+        ColumnarMatchArchive archive = open(output);
+        System.out.printf("Opened archive with %d matches in %.1f ms%n", archive.size(), (System.nanoTime() - start) / 1e6);
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Conversions between the source's yyyyMMdd tourney dates and epoch days
+ * (days since 1970-01-01), which can be subtracted directly.
+ */
+public final class DateCodes {
+    /** Returned for a missing or impossible date */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final int[] DAYS_BEFORE_MONTH = {0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334};
+
+    private DateCodes() {
+    }
+
+    /**
+     * Epoch day of a yyyyMMdd date, or {@link #MISSING} if it is not a real calendar date
+     */
+    public static int toEpochDay(int yyyymmdd) {
+        int year = yyyymmdd / 10000;
+        int month = (yyyymmdd / 100) % 100;
+        int day = yyyymmdd % 100;
+        if (yyyymmdd <= 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) {
+            return MISSING;
+        }
+
+        // Days from 0000-03-01, with years starting in March so leap days fall at the end
+        int y = month <= 2 ? year - 1 : year;
+        int era = y / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    public static int toEpochDay(Integer yyyymmdd) {
+        return yyyymmdd != null ? toEpochDay(yyyymmdd.intValue()) : MISSING;
+    }
+
+    /**
+     * The yyyyMMdd date of an epoch day
+     */
+    public static int fromEpochDay(int epochDay) {
+        int z = epochDay + 719468;
+        int era = (z >= 0 ? z : z - 146096) / 146097;
+        int dayOfEra = z - era * 146097;
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 10000 + month * 100 + day;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return (month == 12 ? 365 : DAYS_BEFORE_MONTH[month]) - DAYS_BEFORE_MONTH[month - 1];
+    }
+}
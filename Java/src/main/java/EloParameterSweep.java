@@ -0,0 +1,210 @@
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Grid search over {@link SurfaceEloEngine.Parameters}. Every configuration rates the whole
+ * match table from the baseline and is scored on the expected score it gave each winner before
+ * the match: log loss, Brier score and accuracy. Configurations share nothing but the read-only
+ * table, so each one runs as its own task on the pool.
+ *
+ * Matches before the scoring start date still move the ratings but are not scored, so the years
+ * where everyone sits near the baseline do not dominate the comparison. Walkovers are never scored.
+ *
+ * Usage: EloParameterSweep [csv directory] [from year] [to year] [score from year] [rows shown]
+ */
+public class EloParameterSweep {
+    private final MatchTable table;
+    private final boolean[] scored;
+
+    /**
+     * @param table matches in date order
+     * @param scoreFromDate first tourney date (yyyyMMdd) whose matches are scored
+     */
+    public EloParameterSweep(MatchTable table, int scoreFromDate) {
+        this.table = table;
+        this.scored = new boolean[table.size()];
+        for (int row = 0; row < table.size(); row++) {
+            int date = table.getTourneyDate(row);
+            scored[row] = date != MatchTable.MISSING && date >= scoreFromDate && !table.isWalkover(row);
+        }
+    }
+
+    /**
+     * Evaluate every configuration on the common pool, best (lowest log loss) first
+     */
+    public List<Result> run(List<SurfaceEloEngine.Parameters> grid) {
+        return run(grid, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluate every configuration as a separate task on the pool, best (lowest log loss) first
+     */
+    public List<Result> run(List<SurfaceEloEngine.Parameters> grid, ForkJoinPool pool) {
+        List<ForkJoinTask<Result>> tasks = new ArrayList<>(grid.size());
+        for (SurfaceEloEngine.Parameters parameters : grid) {
+            tasks.add(pool.submit(() -> evaluate(parameters)));
+        }
+
+        List<Result> results = new ArrayList<>(grid.size());
+        for (ForkJoinTask<Result> task : tasks) {
+            results.add(task.join());
+        }
+        results.sort(Comparator.comparingDouble(Result::getLogLoss));
+        return results;
+    }
+
+    /**
+     * Rate the table with one configuration and score its pre-match predictions
+     */
+    public Result evaluate(SurfaceEloEngine.Parameters parameters) {
+        Score score = new Score(parameters);
+        SurfaceEloEngine.rate(table, parameters, score);
+        return score.result();
+    }
+
+    /**
+     * Log loss, Brier score and accuracy of a configuration over the scored matches
+     */
+    public static class Result {
+        private final SurfaceEloEngine.Parameters parameters;
+        private final int matches;
+        private final double logLoss;
+        private final double brierScore;
+        private final double accuracy;
+
+        Result(SurfaceEloEngine.Parameters parameters, int matches, double logLoss, double brierScore, double accuracy) {
+            this.parameters = parameters;
+            this.matches = matches;
+            this.logLoss = logLoss;
+            this.brierScore = brierScore;
+            this.accuracy = accuracy;
+        }
+
+        public SurfaceEloEngine.Parameters getParameters() { return parameters; }
+        public int getMatches() { return matches; }
+        public double getLogLoss() { return logLoss; }
+        public double getBrierScore() { return brierScore; }
+        public double getAccuracy() { return accuracy; }
+
+        @Override
+        public String toString() {
+            return String.format("log loss %.5f, Brier %.5f, accuracy %.2f%% over %d matches (%s)",
+                    logLoss, brierScore, accuracy * 100, matches, parameters);
+        }
+    }
+
+    /**
+     * Accumulates the scores of one configuration as its ratings are computed
+     */
+    private class Score implements SurfaceEloEngine.RowListener {
+        private static final double MIN_PROBABILITY = 1e-15;
+
+        private final SurfaceEloEngine.Parameters parameters;
+        private int matches;
+        private double logLoss;
+        private double brierScore;
+        private double correct;
+
+        Score(SurfaceEloEngine.Parameters parameters) {
+            this.parameters = parameters;
+        }
+
+        @Override
+        public void rated(int row, double winnerSurface, double loserSurface, double winnerOverall, double loserOverall) {
+            if (!scored[row]) return;
+            double winnerProbability = parameters.expectedScore(winnerSurface, loserSurface, winnerOverall, loserOverall);
+            matches++;
+            logLoss -= Math.log(Math.max(MIN_PROBABILITY, winnerProbability));
+            brierScore += (1.0 - winnerProbability) * (1.0 - winnerProbability);
+            correct += winnerProbability > 0.5 ? 1.0 : winnerProbability == 0.5 ? 0.5 : 0.0;
+        }
+
+        Result result() {
+            if (matches == 0) {
+                return new Result(parameters, 0, Double.NaN, Double.NaN, Double.NaN);
+            }
+            return new Result(parameters, matches, logLoss / matches, brierScore / matches, correct / matches);
+        }
+    }
+
+    /**
+     * The sweep run by {@link #main}: a few hundred variations around the calibrator's constants,
+     * {@link SurfaceEloEngine.Parameters#DEFAULT} among them
+     */
+    public static List<SurfaceEloEngine.Parameters> defaultGrid() {
+        double[] highRankKs = {20, 24, 32, 40};
+        double[] lowRankKs = {24, 32, 40, 48};
+        int[] highRankCutoffs = {50, 100};
+        double[] grandSlamMultipliers = {1.0, 1.2};
+        double[][] bounds = {{SurfaceEloEngine.ELO_FLOOR, SurfaceEloEngine.ELO_CEILING}, {700, 2800}};
+        double[] surfaceWeights = {0.5, 0.75, 1.0};
+
+        List<SurfaceEloEngine.Parameters> grid = new ArrayList<>();
+        for (double highRankK : highRankKs) {
+            for (double lowRankK : lowRankKs) {
+                for (int cutoff : highRankCutoffs) {
+                    for (double grandSlam : grandSlamMultipliers) {
+                        for (double[] bound : bounds) {
+                            for (double surfaceWeight : surfaceWeights) {
+                                grid.add(new SurfaceEloEngine.Parameters(highRankK, lowRankK, cutoff,
+                                        grandSlam, 1.1, bound[0], bound[1], surfaceWeight));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return grid;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String directory = args.length > 0 ? args[0] : "Data/OriginalCSVs";
+        int fromYear = args.length > 1 ? Integer.parseInt(args[1]) : 1968;
+        int toYear = args.length > 2 ? Integer.parseInt(args[2]) : 2025;
+        int scoreFromYear = args.length > 3 ? Integer.parseInt(args[3]) : 1990;
+        int shown = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+
+        long start = System.nanoTime();
+        MatchTable table = MatchTable.of(new ParallelMatchLoader().loadYearRange(directory, fromYear, toYear));
+        System.out.printf("Loaded %d matches (%d-%d) in %.1f ms%n",
+                table.size(), fromYear, toYear, (System.nanoTime() - start) / 1e6);
+
+        List<SurfaceEloEngine.Parameters> grid = defaultGrid();
+        EloParameterSweep sweep = new EloParameterSweep(table, scoreFromYear * 10000 + 101);
+        start = System.nanoTime();
+        List<Result> results = sweep.run(grid);
+        System.out.printf("Evaluated %d configurations on %d threads in %.1f s%n",
+                grid.size(), ForkJoinPool.commonPool().getParallelism(), (System.nanoTime() - start) / 1e9);
+
+        System.out.printf("%n%4s | %6s %6s %5s %5s %5s %11s %6s | %8s %8s %7s%n",
+                "Rank", "K top", "K rest", "Top", "G x", "M x", "Bounds", "Surf w", "LogLoss", "Brier", "Acc");
+        for (int i = 0; i < Math.min(shown, results.size()); i++) {
+            printRow(i + 1, results.get(i));
+        }
+
+        // Where the calibrator's constants land, if below the rows shown
+        for (int i = shown; i < results.size(); i++) {
+            if (results.get(i).getParameters().equals(SurfaceEloEngine.Parameters.DEFAULT)) {
+                System.out.println("  ...");
+                printRow(i + 1, results.get(i));
+                System.out.println("  (current constants)");
+                break;
+            }
+        }
+
+        if (!results.isEmpty()) {
+            System.out.println();
+            System.out.println("Best configuration: " + results.get(0));
+        }
+    }
+
+    private static void printRow(int rank, Result result) {
+        SurfaceEloEngine.Parameters p = result.getParameters();
+        System.out.printf("%4d | %6.0f %6.0f %5d %5.2f %5.2f %5.0f-%-5.0f %6.2f | %8.5f %8.5f %6.2f%%%n",
+                rank, p.getKHighRank(), p.getKLowRank(), p.getHighRankCutoff(), p.getGrandSlamMultiplier(),
+                p.getMastersMultiplier(), p.getFloor(), p.getCeiling(), p.getSurfaceWeight(),
+                result.getLogLoss(), result.getBrierScore(), result.getAccuracy() * 100);
+    }
+}
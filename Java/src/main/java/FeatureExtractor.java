@@ -1,6 +1,12 @@
 import java.util.*;
 
 public class FeatureExtractor {
+    // Historical performance features in order, and their values for a player without history
+    private static final String[] HISTORY_FEATURES = {
+            "recent_form_5", "recent_form_10", "surface_form_10", "surface_elo", "total_matches", "career_win_rate"
+    };
+    private static final double[] NO_HISTORY = {0.5, 0.5, 0.5, 1500.0, 0.0, 0.5};
+
     private final PlayerHistoryManager historyManager;
     private final Map<String, Integer> surfaceEncoding = Map.of(
             "Hard", 0, "Clay", 1, "Grass", 2, "Carpet", 3
@@ -48,17 +54,17 @@ public class FeatureExtractor {
         addFeature(features, featureNames, "round", encodeRound(match.getRound()));
 
         // Date features
-        addDateFeatures(features, featureNames, match.getTourneyDate());
+        addDateFeatures(features, featureNames, match.getTourneyDate() != null ? match.getTourneyDate() : 0);
 
         // Player features
         addPlayerFeatures(features, featureNames, player1, "p1_", match.getSurface());
         addPlayerFeatures(features, featureNames, player2, "p2_", match.getSurface());
 
         // Head-to-head features
-        String p1Id = player1.getPlayerId();
-        String p2Id = player2.getPlayerId();
-        if (p1Id != null && p2Id != null) {
-            addHeadToHeadFeatures(features, featureNames, p1Id, p2Id);
+        int p1Code = player1.getPlayerCode();
+        int p2Code = player2.getPlayerCode();
+        if (p1Code >= 0 && p2Code >= 0) {
+            addHeadToHeadFeatures(features, featureNames, liveHeadToHead(p1Code, p2Code));
         } else {
             addFeature(features, featureNames, "h2h_win_rate", 0.5);
             addFeature(features, featureNames, "h2h_total_matches", 0.0);
@@ -70,7 +76,76 @@ public class FeatureExtractor {
         }
 
         // Ranking comparison features
-        addRankingFeatures(features, featureNames, player1.getRank(), player2.getRank());
+        addRankingFeatures(features, featureNames, player1.getRank(0), player2.getRank(0));
+
+        return new FeatureVector(features, featureNames);
+    }
+
+    /**
+     * Same features as {@link #extractFeatures(Match, boolean)} for the match at a table row,
+     * read from the table's columns without rebuilding the Match or its players
+     */
+    public FeatureVector extractFeatures(MatchTable table, int row, boolean player1IsWinner) {
+        return extractFeatures(table, row, player1IsWinner, null);
+    }
+
+    /**
+     * Features for a table row with player form, records and head-to-head taken from a timeline
+     * as of just before that match, instead of from the history manager's current state. Needs
+     * no replay, so rows can be extracted in any order and from several threads. For a table
+     * in date order the result equals extracting each row after replaying the rows before it.
+     * Surface Elo is each side's pre-match rating when the timeline was built with
+     * {@link SurfaceEloEngine} ratings, and the 1500 baseline otherwise.
+     */
+    public FeatureVector extractFeaturesAsOf(MatchTable table, int row, boolean player1IsWinner, PlayerTimelineIndex timeline) {
+        if (timeline == null) {
+            throw new IllegalArgumentException("Timeline cannot be null");
+        }
+        return extractFeatures(table, row, player1IsWinner, timeline);
+    }
+
+    private FeatureVector extractFeatures(MatchTable table, int row, boolean player1IsWinner, PlayerTimelineIndex timeline) {
+        int side1 = player1IsWinner ? MatchTable.WINNER : MatchTable.LOSER;
+        int side2 = player1IsWinner ? MatchTable.LOSER : MatchTable.WINNER;
+        String surface = table.getSurface(row);
+
+        List<Double> features = new ArrayList<>();
+        List<String> featureNames = new ArrayList<>();
+
+        // Tournament features
+        addFeature(features, featureNames, "surface", encodeSurface(surface));
+        addFeature(features, featureNames, "draw_size", table.getDrawSize(row, 0));
+        addFeature(features, featureNames, "tourney_level", encodeTourneyLevel(table.getTourneyLevel(row)));
+        addFeature(features, featureNames, "best_of", table.getBestOf(row, 0));
+        addFeature(features, featureNames, "round", encodeRound(table.getRound(row)));
+
+        // Date features
+        addDateFeatures(features, featureNames, table.getTourneyDate(row));
+
+        // Player features
+        addPlayerFeatures(features, featureNames, table, row, side1, "p1_", surface, timeline);
+        addPlayerFeatures(features, featureNames, table, row, side2, "p2_", surface, timeline);
+
+        // Head-to-head features
+        int p1Code = table.getPlayerCode(row, side1);
+        int p2Code = table.getPlayerCode(row, side2);
+        if (p1Code >= 0 && p2Code >= 0) {
+            HeadToHeadRecord h2h = timeline != null
+                    ? timeline.headToHeadBefore(p1Code, p2Code, table.getTourneyDate(row), row)
+                    : liveHeadToHead(p1Code, p2Code);
+            addHeadToHeadFeatures(features, featureNames, h2h);
+        } else {
+            addFeature(features, featureNames, "h2h_win_rate", 0.5);
+            addFeature(features, featureNames, "h2h_total_matches", 0.0);
+        }
+
+        // Match statistics (if available)
+        if (table.hasStats(row, side1) && table.hasStats(row, side2)) {
+            addMatchStatsFeatures(features, featureNames, table.getStats(row, side1), table.getStats(row, side2));
+        }
+
+        // Ranking comparison features
+        addRankingFeatures(features, featureNames, table.getRank(row, side1, 0), table.getRank(row, side2, 0));
 
         return new FeatureVector(features, featureNames);
     }
@@ -84,8 +159,13 @@ public class FeatureExtractor {
         names.add(name);
     }
 
-    private void addDateFeatures(List<Double> features, List<String> names, Integer tourneyDate) {
-        if (tourneyDate != null && tourneyDate > 0) {
+    private void addFeature(List<Double> features, List<String> names, String name, double value) {
+        features.add(Double.isNaN(value) || Double.isInfinite(value) ? 0.0 : value);
+        names.add(name);
+    }
+
+    private void addDateFeatures(List<Double> features, List<String> names, int tourneyDate) {
+        if (tourneyDate > 0) {
             int year = tourneyDate / 10000;
             int month = (tourneyDate / 100) % 100;
             int day = tourneyDate % 100;
@@ -119,51 +199,80 @@ public class FeatureExtractor {
             return;
         }
 
+        PlayerHistory history = liveHistory(player.getPlayerId());
+        addPlayerFeatures(features, names, prefix, history != null ? historyFeatures(history, surface) : NO_HISTORY,
+                player.getSeed(0), player.getEntry(), player.getHand(), player.getHeight(180),
+                player.getAge(25.0), player.getRank(100), player.getRankPoints(1000));
+    }
+
+    private void addPlayerFeatures(List<Double> features, List<String> names, MatchTable table, int row, int side,
+                                   String prefix, String surface, PlayerTimelineIndex timeline) {
+        double[] history = NO_HISTORY;
+        if (timeline != null) {
+            PlayerRecord record = timeline.asOf(table.getPlayerCode(row, side), table.getTourneyDate(row), row);
+            if (record != null) history = historyFeatures(record, timeline.surfaceEloBefore(row, side), surface);
+        } else {
+            PlayerHistory live = liveHistory(table.getPlayerId(row, side));
+            if (live != null) history = historyFeatures(live, surface);
+        }
+        addPlayerFeatures(features, names, prefix, history, table.getSeed(row, side, 0),
+                table.getEntry(row, side), table.getHand(row, side), table.getHeight(row, side, 180),
+                table.getAge(row, side, 25.0), table.getRank(row, side, 100), table.getRankPoints(row, side, 1000));
+    }
+
+    private PlayerHistory liveHistory(String playerId) {
+        return playerId != null && historyManager != null ? historyManager.getPlayerHistory(playerId) : null;
+    }
+
+    /**
+     * Player features from plain values, with missing numbers already replaced by their defaults.
+     * {@code history} holds the {@link #HISTORY_FEATURES} values.
+     */
+    private void addPlayerFeatures(List<Double> features, List<String> names, String prefix, double[] history,
+                                   int seed, String entry, String hand,
+                                   int height, double age, int rank, int rankPoints) {
         // Basic player attributes
-        addFeature(features, names, prefix + "seed", player.getSeed() != null ? player.getSeed().doubleValue() : 0.0);
-        addFeature(features, names, prefix + "entry", encodeEntry(player.getEntry()));
+        addFeature(features, names, prefix + "seed", seed);
+        addFeature(features, names, prefix + "entry", encodeEntry(entry));
 
-        String hand = player.getHand();
         if (hand == null || hand.isEmpty()) hand = "R";
         addFeature(features, names, prefix + "hand", encodeHand(hand));
 
-        addFeature(features, names, prefix + "height", player.getHeight() != null ? player.getHeight().doubleValue() : 180.0);
-        addFeature(features, names, prefix + "age", player.getAge() != null ? player.getAge() : 25.0);
-        addFeature(features, names, prefix + "rank", player.getRank() != null ? player.getRank().doubleValue() : 100.0);
-        addFeature(features, names, prefix + "rank_points", player.getRankPoints() != null ? player.getRankPoints().doubleValue() : 1000.0);
+        addFeature(features, names, prefix + "height", height);
+        addFeature(features, names, prefix + "age", age);
+        addFeature(features, names, prefix + "rank", rank);
+        addFeature(features, names, prefix + "rank_points", rankPoints);
 
         // Historical performance features
-        String playerId = player.getPlayerId();
-        PlayerHistory history = null;
-        if (playerId != null && historyManager != null) {
-            history = historyManager.getPlayerHistory(playerId);
+        for (int i = 0; i < HISTORY_FEATURES.length; i++) {
+            addFeature(features, names, prefix + HISTORY_FEATURES[i], history[i]);
         }
+    }
 
-        if (history != null) {
-            addFeature(features, names, prefix + "recent_form_5", history.getRecentForm(5));
-            addFeature(features, names, prefix + "recent_form_10", history.getRecentForm(10));
-            addFeature(features, names, prefix + "surface_form_10", history.getSurfaceForm(surface, 10));
-            addFeature(features, names, prefix + "surface_elo", history.getSurfaceElo(surface));
-            addFeature(features, names, prefix + "total_matches", (double) history.getTotalMatches());
-            double winRate = history.getTotalMatches() > 0 ? (double) history.getTotalWins() / history.getTotalMatches() : 0.5;
-            addFeature(features, names, prefix + "career_win_rate", winRate);
-        } else {
-            // Default values for new players or missing history
-            addFeature(features, names, prefix + "recent_form_5", 0.5);
-            addFeature(features, names, prefix + "recent_form_10", 0.5);
-            addFeature(features, names, prefix + "surface_form_10", 0.5);
-            addFeature(features, names, prefix + "surface_elo", 1500.0);
-            addFeature(features, names, prefix + "total_matches", 0.0);
-            addFeature(features, names, prefix + "career_win_rate", 0.5);
-        }
+    /**
+     * The {@link #HISTORY_FEATURES} values of a record
+     */
+    private static double[] historyFeatures(PlayerRecord history, double surfaceElo, String surface) {
+        int totalMatches = history.getTotalMatches();
+        double winRate = totalMatches > 0 ? (double) history.getTotalWins() / totalMatches : 0.5;
+        return new double[]{
+                history.getRecentForm(5), history.getRecentForm(10), history.getSurfaceForm(surface, 10),
+                surfaceElo, totalMatches, winRate
+        };
     }
 
-    private void addHeadToHeadFeatures(List<Double> features, List<String> names, String player1Id, String player2Id) {
-        HeadToHeadRecord h2h = null;
-        if (historyManager != null) {
-            h2h = historyManager.getHeadToHeadRecord(player1Id, player2Id);
-        }
+    /**
+     * A live history's values, all read from one state so a concurrent update cannot mix in
+     */
+    private static double[] historyFeatures(PlayerHistory history, String surface) {
+        return history.read(view -> historyFeatures(view, view.getSurfaceElo(surface), surface));
+    }
 
+    private HeadToHeadRecord liveHeadToHead(int player1Code, int player2Code) {
+        return historyManager != null ? historyManager.getHeadToHeadRecord(player1Code, player2Code) : null;
+    }
+
+    private void addHeadToHeadFeatures(List<Double> features, List<String> names, HeadToHeadRecord h2h) {
         if (h2h != null && h2h.getTotalMatches() > 0) {
             addFeature(features, names, "h2h_win_rate", h2h.getWinRate());
             addFeature(features, names, "h2h_total_matches", (double) h2h.getTotalMatches());
@@ -175,28 +284,28 @@ public class FeatureExtractor {
 
     private void addMatchStatsFeatures(List<Double> features, List<String> names, MatchStats stats1, MatchStats stats2) {
         // Player 1 serving stats
-        addFeature(features, names, "p1_aces", stats1.getAces() != null ? stats1.getAces().doubleValue() : 0.0);
-        addFeature(features, names, "p1_double_faults", stats1.getDoubleFaults() != null ? stats1.getDoubleFaults().doubleValue() : 0.0);
-        addFeature(features, names, "p1_first_serve_pct", stats1.getFirstServePercentage() != null ? stats1.getFirstServePercentage() : 0.6);
-        addFeature(features, names, "p1_first_serve_win_pct", stats1.getFirstServeWinPercentage() != null ? stats1.getFirstServeWinPercentage() : 0.7);
-        addFeature(features, names, "p1_second_serve_win_pct", stats1.getSecondServeWinPercentage() != null ? stats1.getSecondServeWinPercentage() : 0.5);
-        addFeature(features, names, "p1_ace_rate", stats1.getAceRate() != null ? stats1.getAceRate() : 0.05);
-        addFeature(features, names, "p1_df_rate", stats1.getDoubleFaultRate() != null ? stats1.getDoubleFaultRate() : 0.03);
-        addFeature(features, names, "p1_bp_save_pct", stats1.getBreakPointSavePercentage() != null ? stats1.getBreakPointSavePercentage() : 0.6);
+        addFeature(features, names, "p1_aces", stats1.getAces(0));
+        addFeature(features, names, "p1_double_faults", stats1.getDoubleFaults(0));
+        addFeature(features, names, "p1_first_serve_pct", stats1.getFirstServePercentage(0.6));
+        addFeature(features, names, "p1_first_serve_win_pct", stats1.getFirstServeWinPercentage(0.7));
+        addFeature(features, names, "p1_second_serve_win_pct", stats1.getSecondServeWinPercentage(0.5));
+        addFeature(features, names, "p1_ace_rate", stats1.getAceRate(0.05));
+        addFeature(features, names, "p1_df_rate", stats1.getDoubleFaultRate(0.03));
+        addFeature(features, names, "p1_bp_save_pct", stats1.getBreakPointSavePercentage(0.6));
 
         // Player 2 serving stats
-        addFeature(features, names, "p2_aces", stats2.getAces() != null ? stats2.getAces().doubleValue() : 0.0);
-        addFeature(features, names, "p2_double_faults", stats2.getDoubleFaults() != null ? stats2.getDoubleFaults().doubleValue() : 0.0);
-        addFeature(features, names, "p2_first_serve_pct", stats2.getFirstServePercentage() != null ? stats2.getFirstServePercentage() : 0.6);
-        addFeature(features, names, "p2_first_serve_win_pct", stats2.getFirstServeWinPercentage() != null ? stats2.getFirstServeWinPercentage() : 0.7);
-        addFeature(features, names, "p2_second_serve_win_pct", stats2.getSecondServeWinPercentage() != null ? stats2.getSecondServeWinPercentage() : 0.5);
-        addFeature(features, names, "p2_ace_rate", stats2.getAceRate() != null ? stats2.getAceRate() : 0.05);
-        addFeature(features, names, "p2_df_rate", stats2.getDoubleFaultRate() != null ? stats2.getDoubleFaultRate() : 0.03);
-        addFeature(features, names, "p2_bp_save_pct", stats2.getBreakPointSavePercentage() != null ? stats2.getBreakPointSavePercentage() : 0.6);
-    }
-
-    private void addRankingFeatures(List<Double> features, List<String> names, Integer rank1, Integer rank2) {
-        if (rank1 != null && rank2 != null && rank1 > 0 && rank2 > 0) {
+        addFeature(features, names, "p2_aces", stats2.getAces(0));
+        addFeature(features, names, "p2_double_faults", stats2.getDoubleFaults(0));
+        addFeature(features, names, "p2_first_serve_pct", stats2.getFirstServePercentage(0.6));
+        addFeature(features, names, "p2_first_serve_win_pct", stats2.getFirstServeWinPercentage(0.7));
+        addFeature(features, names, "p2_second_serve_win_pct", stats2.getSecondServeWinPercentage(0.5));
+        addFeature(features, names, "p2_ace_rate", stats2.getAceRate(0.05));
+        addFeature(features, names, "p2_df_rate", stats2.getDoubleFaultRate(0.03));
+        addFeature(features, names, "p2_bp_save_pct", stats2.getBreakPointSavePercentage(0.6));
+    }
+
+    private void addRankingFeatures(List<Double> features, List<String> names, int rank1, int rank2) {
+        if (rank1 > 0 && rank2 > 0) {
             double rankDiff = Math.log(rank1 + 1) - Math.log(rank2 + 1);
             double rankRatio = (double) rank2 / (rank1 + 1);
             double avgRankQuality = 2.0 / (Math.sqrt(rank1) + Math.sqrt(rank2));
@@ -0,0 +1,110 @@
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Precomputed answers for PlayerHistory's decayed form and momentum over the last few results.
+ *
+ * A window of n results is a bit mask (bit i set when the i-th most recent match was won).
+ * For small windows every mask's answer is tabulated, so a query is one array read; larger
+ * windows up to 64 walk the mask with precomputed weights. Either way the sums are built in
+ * the same order and from the same terms as PlayerHistory's original loops, so the results
+ * are bit-for-bit the same.
+ */
+final class FormWeights {
+    /** Widest window whose answers are fully tabulated (2^12 entries per table) */
+    static final int MAX_TABLE_WINDOW = 12;
+    /** Widest window that fits the recent-results mask */
+    static final int MAX_MASK_WINDOW = 64;
+
+    private final double decayFactor;
+    private final double[] decayWeights = new double[MAX_MASK_WINDOW];
+    private final double[] totalWeights = new double[MAX_MASK_WINDOW + 1];
+    private final double[] streakWeights = new double[MAX_MASK_WINDOW];
+    private final AtomicReferenceArray<double[]> formTables = new AtomicReferenceArray<>(MAX_TABLE_WINDOW + 1);
+    private final AtomicReferenceArray<double[]> momentumTables = new AtomicReferenceArray<>(MAX_TABLE_WINDOW + 1);
+
+    FormWeights(double decayFactor, double streakDecay) {
+        this.decayFactor = decayFactor;
+        double totalWeight = 0.0;
+        double streakWeight = 1.0;
+        for (int i = 0; i < MAX_MASK_WINDOW; i++) {
+            decayWeights[i] = Math.pow(decayFactor, i);
+            totalWeight += decayWeights[i];
+            totalWeights[i + 1] = totalWeight;
+            streakWeights[i] = streakWeight;
+            streakWeight *= streakDecay;
+        }
+    }
+
+    /**
+     * Decay-weighted win share of the newest {@code matches} results (1..64)
+     */
+    double form(long recentResults, int matches) {
+        if (matches <= MAX_TABLE_WINDOW) {
+            return formTable(matches)[(int) (recentResults & lowBits(matches))];
+        }
+        return computeForm(recentResults, matches);
+    }
+
+    /**
+     * tanh of the streak-weighted +1/-1 results over the newest {@code matches} results (1..64)
+     */
+    double momentum(long recentResults, int matches) {
+        if (matches <= MAX_TABLE_WINDOW) {
+            return momentumTable(matches)[(int) (recentResults & lowBits(matches))];
+        }
+        return computeMomentum(recentResults, matches);
+    }
+
+    /** Weight of the i-th most recent result in the form sum */
+    double decayWeight(int i) {
+        return i < MAX_MASK_WINDOW ? decayWeights[i] : Math.pow(decayFactor, i);
+    }
+
+    private double computeForm(long recentResults, int matches) {
+        double weightedWins = 0.0;
+        for (int i = 0; i < matches; i++) {
+            if ((recentResults & (1L << i)) != 0) {
+                weightedWins += decayWeights[i];
+            }
+        }
+        double totalWeight = totalWeights[matches];
+        return totalWeight > 0 ? weightedWins / totalWeight : 0.5;
+    }
+
+    private double computeMomentum(long recentResults, int matches) {
+        double momentum = 0.0;
+        for (int i = 0; i < matches; i++) {
+            double result = (recentResults & (1L << i)) != 0 ? 1.0 : -1.0;
+            momentum += result * streakWeights[i];
+        }
+        return Math.tanh(momentum / matches);
+    }
+
+    private double[] formTable(int matches) {
+        double[] table = formTables.get(matches);
+        if (table == null) {
+            table = new double[1 << matches];
+            for (int mask = 0; mask < table.length; mask++) {
+                table[mask] = computeForm(mask, matches);
+            }
+            formTables.compareAndSet(matches, null, table);
+        }
+        return table;
+    }
+
+    private double[] momentumTable(int matches) {
+        double[] table = momentumTables.get(matches);
+        if (table == null) {
+            table = new double[1 << matches];
+            for (int mask = 0; mask < table.length; mask++) {
+                table[mask] = computeMomentum(mask, matches);
+            }
+            momentumTables.compareAndSet(matches, null, table);
+        }
+        return table;
+    }
+
+    private static long lowBits(int count) {
+        return count >= 64 ? -1L : (1L << count) - 1;
+    }
+}
@@ -0,0 +1,441 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Glicko-2 ratings (Glickman, "Example of the Glicko-2 system") for every player, held in
+ * primitive arrays indexed by {@link MatchSymbols#PLAYER_IDS} code.
+ *
+ * Matches are grouped into weekly rating periods by tourney date (weeks start on Monday, which
+ * is when tournaments are dated). All matches of a period are rated against the ratings from
+ * before it, so each player's update only reads shared state; large periods split their
+ * players across the pool. A player's deviation also grows with every period they sit out,
+ * which is applied lazily when they next play (or are read {@link #getDeviationAt as of a date}),
+ * and is capped at the starting deviation.
+ *
+ * Matches must arrive in date order. The latest period is only rated once a later one starts
+ * or {@link #flush()} is called. A period can be flushed early and continued: the later matches
+ * are then rated as a second batch, starting from the values the first one produced.
+ * A {@link RatingListener} hears about every player rated, as each period is flushed.
+ */
+public class Glicko2Engine {
+    public static final double DEFAULT_RATING = 1500.0;
+    public static final double DEFAULT_DEVIATION = 350.0;
+    public static final double DEFAULT_VOLATILITY = 0.06;
+    /** System constant limiting how fast volatility changes */
+    public static final double DEFAULT_TAU = 0.5;
+
+    // Ratio between the Glicko and Glicko-2 scales
+    private static final double SCALE = 173.7178;
+    private static final double CONVERGENCE = 1e-6;
+    private static final int NEVER = Integer.MIN_VALUE;
+    // Periods with fewer players are rated on the calling thread
+    private static final int PARALLEL_THRESHOLD = 512;
+
+    private final double tau;
+    private final ForkJoinPool pool;
+    private final int shardCount;
+    private final RatingListener listener;
+
+    // Per player, on the Glicko scale; lastPeriods holds NEVER until the player is rated
+    private double[] ratings = new double[0];
+    private double[] deviations = new double[0];
+    private double[] volatilities = new double[0];
+    private int[] lastPeriods = new int[0];
+    private int[] periodSlots = new int[0];
+
+    // Matches of the period being collected
+    private int pendingPeriod = NEVER;
+    private int[] pendingWinners = new int[256];
+    private int[] pendingLosers = new int[256];
+    private int pendingSize;
+    private int lastRatedPeriod = NEVER;
+    private int matchCount;
+
+    public Glicko2Engine() {
+        this(DEFAULT_TAU, ForkJoinPool.commonPool());
+    }
+
+    public Glicko2Engine(double tau, ForkJoinPool pool) {
+        this(tau, pool, null);
+    }
+
+    public Glicko2Engine(double tau, ForkJoinPool pool, RatingListener listener) {
+        if (tau <= 0) {
+            throw new IllegalArgumentException("Tau must be positive: " + tau);
+        }
+        this.tau = tau;
+        this.pool = pool;
+        this.shardCount = Math.max(1, pool.getParallelism());
+        this.listener = listener;
+        ensureCapacity(MatchSymbols.PLAYER_IDS.size());
+    }
+
+    /**
+     * Rating period (week number, Monday to Sunday) of a yyyyMMdd date, or {@link DateCodes#MISSING}
+     */
+    public static int period(int tourneyDate) {
+        int epochDay = DateCodes.toEpochDay(tourneyDate);
+        // 1970-01-01 was a Thursday, so shifting by 3 days puts Mondays at the start of a week
+        return epochDay != DateCodes.MISSING ? Math.floorDiv(epochDay + 3, 7) : DateCodes.MISSING;
+    }
+
+    /**
+     * Deviation after sitting out some rating periods with the given volatility
+     */
+    public static double deviationAfterIdle(double deviation, double volatility, int idlePeriods) {
+        if (idlePeriods <= 0) return deviation;
+        double grown = Math.sqrt(deviation * deviation + idlePeriods * (volatility * SCALE) * (volatility * SCALE));
+        return Math.min(DEFAULT_DEVIATION, grown);
+    }
+
+    /**
+     * Rate every match of the table whose players and date are known, in date order, and
+     * flush the last period. Returns the number of matches rated.
+     */
+    public int rate(MatchTable table) {
+        int rows = table.size();
+        long[] order = new long[rows];
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            int date = table.getTourneyDate(row);
+            if (date != MatchTable.MISSING) order[count++] = ((long) date << 32) | row;
+        }
+        Arrays.sort(order, 0, count);
+
+        int before = matchCount;
+        for (int i = 0; i < count; i++) {
+            int row = (int) order[i];
+            add(table.getPlayerCode(row, MatchTable.WINNER), table.getPlayerCode(row, MatchTable.LOSER),
+                    (int) (order[i] >> 32));
+        }
+        flush();
+        return matchCount - before;
+    }
+
+    /**
+     * Add one match, rating the pending period first if the match starts a later one
+     */
+    public void add(Match match) {
+        Integer date = match.getTourneyDate();
+        if (date == null) return;
+        add(match.getWinner().getPlayerCode(), match.getLoser().getPlayerCode(), date);
+    }
+
+    /**
+     * Add one match by {@link MatchSymbols#PLAYER_IDS} codes and yyyyMMdd date. Matches with a
+     * missing player or date are ignored.
+     *
+     * @throws IllegalArgumentException if the match is dated before a period already added
+     */
+    public void add(int winner, int loser, int tourneyDate) {
+        // A player listed against themselves tells us nothing
+        if (winner < 0 || loser < 0 || winner == loser) return;
+        int period = period(tourneyDate);
+        if (period == DateCodes.MISSING) return;
+
+        if (period != pendingPeriod) {
+            if (!accepts(tourneyDate)) {
+                throw new IllegalArgumentException("Match dated " + tourneyDate + " is earlier than matches already added");
+            }
+            flush();
+            pendingPeriod = period;
+        }
+
+        if (pendingSize == pendingWinners.length) {
+            pendingWinners = Arrays.copyOf(pendingWinners, pendingSize * 2);
+            pendingLosers = Arrays.copyOf(pendingLosers, pendingSize * 2);
+        }
+        pendingWinners[pendingSize] = winner;
+        pendingLosers[pendingSize] = loser;
+        pendingSize++;
+    }
+
+    /**
+     * Whether a match on a yyyyMMdd date can still be added: its period is not before the
+     * pending one or the last one rated
+     */
+    public boolean accepts(int tourneyDate) {
+        int period = period(tourneyDate);
+        return period != DateCodes.MISSING && period >= pendingPeriod && period >= lastRatedPeriod;
+    }
+
+    /**
+     * Set a player's values as of the end of {@code period}, e.g. from a restored history.
+     * Only allowed while no matches are pending.
+     */
+    public void restore(int playerCode, double rating, double deviation, double volatility, int period) {
+        if (pendingSize > 0) {
+            throw new IllegalStateException("Cannot restore a player while a period is pending");
+        }
+        ensureCapacity(playerCode + 1);
+        ratings[playerCode] = rating;
+        deviations[playerCode] = deviation;
+        volatilities[playerCode] = volatility;
+        lastPeriods[playerCode] = period;
+        lastRatedPeriod = Math.max(lastRatedPeriod, period);
+    }
+
+    /**
+     * Rate the pending period
+     */
+    public void flush() {
+        if (pendingSize == 0) return;
+        new Period().rate();
+        matchCount += pendingSize;
+        lastRatedPeriod = pendingPeriod;
+        pendingPeriod = NEVER;
+        pendingSize = 0;
+    }
+
+    /** Number of matches rated so far */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /** Rating after the last period the player played, or the default */
+    public double getRating(int playerCode) {
+        return known(playerCode) ? ratings[playerCode] : DEFAULT_RATING;
+    }
+
+    /** Deviation after the last period the player played, or the default */
+    public double getDeviation(int playerCode) {
+        return known(playerCode) ? deviations[playerCode] : DEFAULT_DEVIATION;
+    }
+
+    /** Deviation going into the rating period of a yyyyMMdd date, grown by the periods sat out before it */
+    public double getDeviationAt(int playerCode, int tourneyDate) {
+        if (!known(playerCode) || lastPeriods[playerCode] == NEVER) return DEFAULT_DEVIATION;
+        int period = period(tourneyDate);
+        int idle = period == DateCodes.MISSING ? 0 : period - lastPeriods[playerCode] - 1;
+        return deviationAfterIdle(deviations[playerCode], volatilities[playerCode], idle);
+    }
+
+    public double getVolatility(int playerCode) {
+        return known(playerCode) ? volatilities[playerCode] : DEFAULT_VOLATILITY;
+    }
+
+    /**
+     * Write every rated player's values into the manager's histories, after flushing the
+     * pending period. Returns the number of histories updated.
+     */
+    public int applyTo(PlayerHistoryManager historyManager) {
+        flush();
+        int updated = 0;
+        for (int player = 0; player < lastPeriods.length; player++) {
+            if (lastPeriods[player] == NEVER) continue;
+            PlayerHistory history = historyManager.getPlayerHistory(MatchSymbols.PLAYER_IDS.symbol(player));
+            if (history == null) continue;
+            history.updateGlicko(ratings[player], deviations[player], volatilities[player], lastPeriods[player]);
+            updated++;
+        }
+        return updated;
+    }
+
+    private boolean known(int playerCode) {
+        return playerCode >= 0 && playerCode < ratings.length;
+    }
+
+    private void ensureCapacity(int players) {
+        if (players <= ratings.length) return;
+        int oldLength = ratings.length;
+        int capacity = Math.max(players, oldLength + (oldLength >> 1));
+        ratings = Arrays.copyOf(ratings, capacity);
+        deviations = Arrays.copyOf(deviations, capacity);
+        volatilities = Arrays.copyOf(volatilities, capacity);
+        lastPeriods = Arrays.copyOf(lastPeriods, capacity);
+        periodSlots = Arrays.copyOf(periodSlots, capacity);
+        Arrays.fill(ratings, oldLength, capacity, DEFAULT_RATING);
+        Arrays.fill(deviations, oldLength, capacity, DEFAULT_DEVIATION);
+        Arrays.fill(volatilities, oldLength, capacity, DEFAULT_VOLATILITY);
+        Arrays.fill(lastPeriods, oldLength, capacity, NEVER);
+        Arrays.fill(periodSlots, oldLength, capacity, -1);
+    }
+
+    /**
+     * One rating period: the players in it, each with their results (CSR layout), and their
+     * values on the Glicko-2 scale before and after
+     */
+    private final class Period {
+        private final int[] players;
+        private final int[] offsets;
+        private final int[] opponents;
+        private final double[] scores;
+        private final double[] mu;
+        private final double[] phi;
+        private final double[] newMu;
+        private final double[] newPhi;
+        private final double[] newSigma;
+
+        Period() {
+            int maxPlayer = 0;
+            for (int i = 0; i < pendingSize; i++) {
+                maxPlayer = Math.max(maxPlayer, Math.max(pendingWinners[i], pendingLosers[i]));
+            }
+            ensureCapacity(maxPlayer + 1);
+
+            // Local slots for the period's players, in order of first appearance
+            int[] local = new int[pendingSize * 2];
+            int size = 0;
+            int[] counts = new int[pendingSize * 2 + 1];
+            for (int i = 0; i < pendingSize * 2; i++) {
+                int player = (i & 1) == 0 ? pendingWinners[i >> 1] : pendingLosers[i >> 1];
+                if (periodSlots[player] < 0) {
+                    periodSlots[player] = size;
+                    local[size++] = player;
+                }
+                counts[periodSlots[player] + 1]++;
+            }
+            players = Arrays.copyOf(local, size);
+
+            offsets = new int[size + 1];
+            for (int slot = 0; slot < size; slot++) {
+                offsets[slot + 1] = offsets[slot] + counts[slot + 1];
+            }
+            opponents = new int[pendingSize * 2];
+            scores = new double[pendingSize * 2];
+            int[] next = Arrays.copyOf(offsets, size);
+            for (int i = 0; i < pendingSize; i++) {
+                int winnerSlot = periodSlots[pendingWinners[i]];
+                int loserSlot = periodSlots[pendingLosers[i]];
+                opponents[next[winnerSlot]] = loserSlot;
+                scores[next[winnerSlot]++] = 1.0;
+                opponents[next[loserSlot]] = winnerSlot;
+                scores[next[loserSlot]++] = 0.0;
+            }
+
+            mu = new double[size];
+            phi = new double[size];
+            for (int slot = 0; slot < size; slot++) {
+                int player = players[slot];
+                int idle = lastPeriods[player] == NEVER ? 0 : pendingPeriod - lastPeriods[player] - 1;
+                mu[slot] = (ratings[player] - DEFAULT_RATING) / SCALE;
+                phi[slot] = deviationAfterIdle(deviations[player], volatilities[player], idle) / SCALE;
+            }
+            newMu = new double[size];
+            newPhi = new double[size];
+            newSigma = new double[size];
+        }
+
+        void rate() {
+            int size = players.length;
+            if (size < PARALLEL_THRESHOLD || shardCount == 1) {
+                update(0, size);
+            } else {
+                int step = (size + shardCount - 1) / shardCount;
+                List<ForkJoinTask<?>> tasks = new ArrayList<>(shardCount - 1);
+                for (int from = step; from < size; from += step) {
+                    int start = from;
+                    int end = Math.min(size, from + step);
+                    tasks.add(pool.submit(() -> update(start, end)));
+                }
+                // The calling thread takes the first range itself
+                update(0, Math.min(size, step));
+                for (ForkJoinTask<?> task : tasks) {
+                    task.join();
+                }
+            }
+
+            for (int slot = 0; slot < size; slot++) {
+                int player = players[slot];
+                ratings[player] = DEFAULT_RATING + newMu[slot] * SCALE;
+                deviations[player] = newPhi[slot] * SCALE;
+                volatilities[player] = newSigma[slot];
+                lastPeriods[player] = pendingPeriod;
+                periodSlots[player] = -1;
+            }
+            if (listener != null) {
+                for (int player : players) {
+                    listener.rated(player, ratings[player], deviations[player], volatilities[player], pendingPeriod);
+                }
+            }
+        }
+
+        /**
+         * Steps 3 to 8 of the Glicko-2 update for the players in [from, to)
+         */
+        private void update(int from, int to) {
+            for (int slot = from; slot < to; slot++) {
+                double playerMu = mu[slot];
+                double playerPhi = phi[slot];
+                double sigma = volatilities[players[slot]];
+
+                double inverseVariance = 0.0;
+                double improvement = 0.0;
+                for (int entry = offsets[slot]; entry < offsets[slot + 1]; entry++) {
+                    int opponent = opponents[entry];
+                    double g = g(phi[opponent]);
+                    double expected = 1.0 / (1.0 + Math.exp(-g * (playerMu - mu[opponent])));
+                    inverseVariance += g * g * expected * (1.0 - expected);
+                    improvement += g * (scores[entry] - expected);
+                }
+                double variance = 1.0 / inverseVariance;
+                double delta = variance * improvement;
+
+                double sigmaPrime = volatility(playerPhi, sigma, variance, delta);
+                double phiStar = Math.sqrt(playerPhi * playerPhi + sigmaPrime * sigmaPrime);
+                double phiPrime = 1.0 / Math.sqrt(1.0 / (phiStar * phiStar) + 1.0 / variance);
+
+                newMu[slot] = playerMu + phiPrime * phiPrime * improvement;
+                newPhi[slot] = Math.min(DEFAULT_DEVIATION / SCALE, phiPrime);
+                newSigma[slot] = sigmaPrime;
+            }
+        }
+    }
+
+    /**
+     * Receives each player's new values when a period is rated, on the thread that flushed it
+     */
+    public interface RatingListener {
+        void rated(int playerCode, double rating, double deviation, double volatility, int period);
+    }
+
+    private static double g(double phi) {
+        return 1.0 / Math.sqrt(1.0 + 3.0 * phi * phi / (Math.PI * Math.PI));
+    }
+
+    /**
+     * New volatility, solving step 5 with the Illinois variant of regula falsi
+     */
+    private double volatility(double phi, double sigma, double variance, double delta) {
+        double a = Math.log(sigma * sigma);
+        double phiSquared = phi * phi;
+        double deltaSquared = delta * delta;
+
+        double lower = a;
+        double upper;
+        if (deltaSquared > phiSquared + variance) {
+            upper = Math.log(deltaSquared - phiSquared - variance);
+        } else {
+            int k = 1;
+            while (volatilityObjective(a - k * tau, a, phiSquared, variance, deltaSquared) < 0) {
+                k++;
+            }
+            upper = a - k * tau;
+        }
+
+        double fLower = volatilityObjective(lower, a, phiSquared, variance, deltaSquared);
+        double fUpper = volatilityObjective(upper, a, phiSquared, variance, deltaSquared);
+        while (Math.abs(upper - lower) > CONVERGENCE) {
+            double c = lower + (lower - upper) * fLower / (fUpper - fLower);
+            double fC = volatilityObjective(c, a, phiSquared, variance, deltaSquared);
+            if (fC * fUpper <= 0) {
+                lower = upper;
+                fLower = fUpper;
+            } else {
+                fLower /= 2;
+            }
+            upper = c;
+            fUpper = fC;
+        }
+        return Math.exp(lower / 2);
+    }
+
+    private double volatilityObjective(double x, double a, double phiSquared, double variance, double deltaSquared) {
+        double ex = Math.exp(x);
+        double denominator = phiSquared + variance + ex;
+        return ex * (deltaSquared - phiSquared - variance - ex) / (2 * denominator * denominator) - (x - a) / (tau * tau);
+    }
+}
@@ -1,7 +1,19 @@
+/**
+ * One player's wins and losses against another. {@link HeadToHeadStore} hands out fresh
+ * copies, so a record a reader holds never changes underneath it.
+ */
 public class HeadToHeadRecord {
     private int wins = 0;
     private int losses = 0;
 
+    public HeadToHeadRecord() {
+    }
+
+    public HeadToHeadRecord(int wins, int losses) {
+        this.wins = wins;
+        this.losses = losses;
+    }
+
     public void addMatch(boolean won) {
         if (won) wins++;
         else losses++;
@@ -0,0 +1,208 @@
+import java.util.Arrays;
+
+/**
+ * Head-to-head counts for every pairing of players, keyed by {@link MatchSymbols#PLAYER_IDS} codes.
+ *
+ * Each unordered pairing is stored once: the key packs the lower code into the high 32 bits and
+ * the higher code into the low 32 bits, and the entry counts the wins of each side. Lookups from
+ * either player read the same entry and flip it as needed.
+ *
+ * Entries live in open-addressing tables (linear probing) split into segments by key hash; each
+ * segment has its own lock, so the parallel replay can record results from several threads.
+ */
+public class HeadToHeadStore {
+    private static final int SEGMENT_BITS = 4;
+    private static final int INITIAL_SEGMENT_CAPACITY = 256;
+    private static final long EMPTY = -1L;
+
+    private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+    public HeadToHeadStore() {
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Count a win for the first player over the second
+     */
+    public void record(int winnerCode, int loserCode) {
+        if (winnerCode < 0 || loserCode < 0) {
+            throw new IllegalArgumentException("Head-to-head needs both player codes: " + winnerCode + " vs " + loserCode);
+        }
+        long key = key(winnerCode, loserCode);
+        long hash = mix(key);
+        // A player listed against themselves gets both the win and the loss
+        segmentFor(hash).record(key, (int) hash, winnerCode <= loserCode, winnerCode >= loserCode);
+    }
+
+    /**
+     * Player 1's record against player 2, or null if they have not met
+     */
+    public HeadToHeadRecord get(int player1Code, int player2Code) {
+        if (player1Code < 0 || player2Code < 0) return null;
+        long key = key(player1Code, player2Code);
+        long hash = mix(key);
+        long counts = segmentFor(hash).counts(key, (int) hash);
+        if (counts == EMPTY) return null;
+
+        int lowerWins = (int) (counts >>> 32);
+        int higherWins = (int) counts;
+        return player1Code <= player2Code
+                ? new HeadToHeadRecord(lowerWins, higherWins)
+                : new HeadToHeadRecord(higherWins, lowerWins);
+    }
+
+    /**
+     * Add counts for a pairing in one step, e.g. when restoring a {@link HistorySnapshot}
+     */
+    public void add(int player1Code, int player2Code, int player1Wins, int player2Wins) {
+        if (player1Code < 0 || player2Code < 0) {
+            throw new IllegalArgumentException("Head-to-head needs both player codes: " + player1Code + " vs " + player2Code);
+        }
+        long key = key(player1Code, player2Code);
+        long hash = mix(key);
+        boolean player1Lower = player1Code <= player2Code;
+        segmentFor(hash).add(key, (int) hash,
+                player1Lower ? player1Wins : player2Wins, player1Lower ? player2Wins : player1Wins);
+    }
+
+    /**
+     * Visit every pairing as (lower code, higher code, lower side's wins, higher side's wins)
+     */
+    public void forEach(PairingVisitor visitor) {
+        for (Segment segment : segments) {
+            segment.forEach(visitor);
+        }
+    }
+
+    public interface PairingVisitor {
+        void visit(int lowerCode, int higherCode, int lowerWins, int higherWins);
+    }
+
+    /** Number of distinct pairings */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    private Segment segmentFor(long hash) {
+        return segments[(int) (hash >>> (64 - SEGMENT_BITS))];
+    }
+
+    private static long key(int player1Code, int player2Code) {
+        int lower = Math.min(player1Code, player2Code);
+        int higher = Math.max(player1Code, player2Code);
+        return ((long) lower << 32) | higher;
+    }
+
+    /** 64-bit finalizer from MurmurHash3, so neighbouring codes spread across the table */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * One open-addressing table, resized to stay at most half full
+     */
+    private static final class Segment {
+        private long[] keys;
+        private int[] lowerWins;
+        private int[] higherWins;
+        private int size;
+
+        Segment() {
+            allocate(INITIAL_SEGMENT_CAPACITY);
+        }
+
+        synchronized void record(long key, int hash, boolean lowerWon, boolean higherWon) {
+            add(key, hash, lowerWon ? 1 : 0, higherWon ? 1 : 0);
+        }
+
+        synchronized void add(long key, int hash, int lowerDelta, int higherDelta) {
+            int slot = find(key, hash);
+            if (keys[slot] == EMPTY) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = find(key, hash);
+                }
+                keys[slot] = key;
+                size++;
+            }
+            lowerWins[slot] += lowerDelta;
+            higherWins[slot] += higherDelta;
+        }
+
+        synchronized void forEach(PairingVisitor visitor) {
+            for (int slot = 0; slot < keys.length; slot++) {
+                long key = keys[slot];
+                if (key == EMPTY) continue;
+                visitor.visit((int) (key >>> 32), (int) key, lowerWins[slot], higherWins[slot]);
+            }
+        }
+
+        /**
+         * Lower side's wins in the high 32 bits and higher side's in the low 32 bits, or EMPTY
+         */
+        synchronized long counts(long key, int hash) {
+            int slot = find(key, hash);
+            if (keys[slot] == EMPTY) return EMPTY;
+            return ((long) lowerWins[slot] << 32) | (higherWins[slot] & 0xFFFFFFFFL);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized void clear() {
+            allocate(INITIAL_SEGMENT_CAPACITY);
+            size = 0;
+        }
+
+        /**
+         * Slot holding the key, or the empty slot where it would go
+         */
+        private int find(long key, int hash) {
+            int mask = keys.length - 1;
+            int slot = hash & mask;
+            while (keys[slot] != EMPTY && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldLowerWins = lowerWins;
+            int[] oldHigherWins = higherWins;
+            allocate(oldKeys.length * 2);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == EMPTY) continue;
+                int slot = find(oldKeys[i], (int) mix(oldKeys[i]));
+                keys[slot] = oldKeys[i];
+                lowerWins[slot] = oldLowerWins[i];
+                higherWins[slot] = oldHigherWins[i];
+            }
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            lowerWins = new int[capacity];
+            higherWins = new int[capacity];
+        }
+    }
+}
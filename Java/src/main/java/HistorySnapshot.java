@@ -0,0 +1,367 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Versioned binary snapshot of a {@link PlayerHistoryManager}: every player's histories,
+ * surface records, surface and overall Elo, Glicko-2 values, plus the head-to-head counts.
+ *
+ * A snapshot can be tagged with the {@link IngestionCheckpoint} of the last match it contains,
+ * so an {@link IncrementalMatchIngestor} can resume from there after a restore. It also lists
+ * every data file it was built from with the length and modification time that file had, so
+ * {@link #isCurrent()} can tell whether any of them changed since, other than by rows appended to
+ * the checkpoint's file. Surface, level and player codes
+ * are process-specific, so the snapshot carries their names and the reader maps them onto the
+ * current {@link MatchSymbols} tables.
+ *
+ * Layout: magic, version, checkpoint, source files, surface names, tournament level names,
+ * histories keyed by player id, player id names, then one entry per head-to-head pairing.
+ */
+public class HistorySnapshot {
+    public static final String DEFAULT_PATH = "Data/player_histories.tphs";
+
+    private static final int MAGIC = 0x54504853; // "TPHS"
+    private static final int VERSION = 5;
+    private static final int OLDEST_READABLE_VERSION = 1;
+    // Enough for the checkpoint and a few thousand source file entries
+    private static final int HEADER_READ_LIMIT = 1 << 20;
+
+    private final Map<String, PlayerHistory> histories;
+    private final HeadToHeadStore headToHead;
+    private final IngestionCheckpoint checkpoint;
+    private final List<Source> sources;
+
+    private HistorySnapshot(Map<String, PlayerHistory> histories, HeadToHeadStore headToHead,
+                            IngestionCheckpoint checkpoint, List<Source> sources) {
+        this.histories = histories;
+        this.headToHead = headToHead;
+        this.checkpoint = checkpoint;
+        this.sources = sources;
+    }
+
+    /**
+     * Write the manager's state to a new snapshot that lists no source files
+     */
+    public static void write(PlayerHistoryManager historyManager, IngestionCheckpoint checkpoint, String path) throws IOException {
+        write(historyManager, checkpoint, Collections.emptyList(), path);
+    }
+
+    /**
+     * Write the manager's state to a new snapshot, replacing any existing file atomically.
+     * {@code sources} are the data files the state was built from, stamped before they were read.
+     * The manager must not be updated while it is being written.
+     */
+    public static void write(PlayerHistoryManager historyManager, IngestionCheckpoint checkpoint, List<Source> sources,
+                             String path) throws IOException {
+        Path absolute = Paths.get(path).toAbsolutePath();
+        Path temp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                writeCheckpoint(out, checkpoint);
+                out.writeInt(sources.size());
+                for (Source source : sources) {
+                    writeString(out, source.path);
+                    out.writeLong(source.length);
+                    out.writeLong(source.lastModified);
+                }
+
+                int surfaceCount = MatchSymbols.SURFACES.size();
+                out.writeInt(surfaceCount);
+                for (int code = 0; code < surfaceCount; code++) {
+                    writeString(out, MatchSymbols.SURFACES.symbol(code));
+                }
+                int levelCount = MatchSymbols.LEVELS.size();
+                out.writeInt(levelCount);
+                for (int code = 0; code < levelCount; code++) {
+                    writeString(out, MatchSymbols.LEVELS.symbol(code));
+                }
+
+                Map<String, PlayerHistory> histories = historyManager.histories();
+                out.writeInt(histories.size());
+                for (Map.Entry<String, PlayerHistory> entry : histories.entrySet()) {
+                    writeString(out, entry.getKey());
+                    entry.getValue().write(out);
+                }
+
+                writeHeadToHead(out, historyManager.headToHead());
+            }
+            Files.move(temp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Read a snapshot, memory-mapping the file
+     */
+    public static HistorySnapshot read(String path) throws IOException {
+        return read(path, true);
+    }
+
+    /**
+     * Read only the source files a snapshot lists, without its histories
+     */
+    public static List<Source> readSources(String path) throws IOException {
+        // Read into the heap rather than map, so the file can be replaced straight after
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            in = ByteBuffer.allocate((int) Math.min(channel.size(), HEADER_READ_LIMIT));
+            while (in.hasRemaining() && channel.read(in) >= 0) {
+                // keep reading until the buffer is full or the file ends
+            }
+            in.flip();
+        }
+        try {
+            int version = readHeader(in);
+            readCheckpoint(in);
+            return readSources(in, version);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt history snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Read a snapshot either through a read-only memory mapping or by loading the file into the heap
+     */
+    public static HistorySnapshot read(String path, boolean memoryMapped) throws IOException {
+        ByteBuffer buffer = memoryMapped ? map(path) : ByteBuffer.wrap(Files.readAllBytes(Paths.get(path)));
+        try {
+            return read(buffer);
+        } catch (RuntimeException e) {
+            // Running off the end, a bad code or an impossible size all mean the file is damaged
+            throw new IOException("Corrupt history snapshot " + path, e);
+        }
+    }
+
+    private static ByteBuffer map(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot too large to map: " + path);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * Check the magic number and return the version
+     */
+    private static int readHeader(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC) {
+            throw new IOException("Not a history snapshot");
+        }
+        int version = in.getInt();
+        if (version < OLDEST_READABLE_VERSION || version > VERSION) {
+            throw new IOException("Unsupported history snapshot version " + version);
+        }
+        return version;
+    }
+
+    private static HistorySnapshot read(ByteBuffer in) throws IOException {
+        int version = readHeader(in);
+        IngestionCheckpoint checkpoint = readCheckpoint(in);
+        List<Source> sources = readSources(in, version);
+
+        int[] surfaceCodes = new int[readCount(in)];
+        for (int i = 0; i < surfaceCodes.length; i++) {
+            surfaceCodes[i] = MatchSymbols.SURFACES.intern(readString(in));
+        }
+        int[] levelCodes = null;
+        if (version >= 4) {
+            levelCodes = new int[readCount(in)];
+            for (int i = 0; i < levelCodes.length; i++) {
+                levelCodes[i] = MatchSymbols.LEVELS.intern(readString(in));
+            }
+        }
+
+        int historyCount = readCount(in);
+        Map<String, PlayerHistory> histories = new HashMap<>(historyCount * 2);
+        for (int i = 0; i < historyCount; i++) {
+            String playerId = MatchSymbols.PLAYER_IDS.symbol(MatchSymbols.PLAYER_IDS.intern(readString(in)));
+            histories.put(playerId, PlayerHistory.read(in, surfaceCodes, levelCodes, version));
+        }
+
+        int[] playerCodes = new int[readCount(in)];
+        for (int i = 0; i < playerCodes.length; i++) {
+            playerCodes[i] = MatchSymbols.PLAYER_IDS.intern(readString(in));
+        }
+        HeadToHeadStore headToHead = new HeadToHeadStore();
+        int pairings = readCount(in);
+        for (int i = 0; i < pairings; i++) {
+            int lower = playerCodes[in.getInt()];
+            int higher = playerCodes[in.getInt()];
+            headToHead.add(lower, higher, in.getInt(), in.getInt());
+        }
+
+        return new HistorySnapshot(histories, headToHead, checkpoint, sources);
+    }
+
+    /**
+     * A count of entries that follow; each takes at least a byte, so a damaged count is caught
+     * before anything is allocated for it
+     */
+    private static int readCount(ByteBuffer in) {
+        int count = in.getInt();
+        if (count < 0 || count > in.remaining()) {
+            throw new IllegalStateException("Count of " + count + " entries with " + in.remaining() + " bytes left");
+        }
+        return count;
+    }
+
+    // Snapshots before version 5 do not list their sources
+    private static List<Source> readSources(ByteBuffer in, int version) {
+        if (version < 5) return Collections.emptyList();
+        List<Source> sources = new ArrayList<>();
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            sources.add(new Source(readString(in), in.getLong(), in.getLong()));
+        }
+        return Collections.unmodifiableList(sources);
+    }
+
+    /**
+     * Copy the snapshot's state into the manager, replacing what it held
+     */
+    public void restoreInto(PlayerHistoryManager historyManager) {
+        historyManager.restore(histories, headToHead);
+    }
+
+    /** Checkpoint of the last match in the snapshot, or null if it was not tagged */
+    public IngestionCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+
+    public int getPlayerCount() {
+        return histories.size();
+    }
+
+    /** The data files the snapshot was built from, empty if it does not list them */
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    /**
+     * Whether the snapshot lists its sources and none of them changed since it was written.
+     * The file its checkpoint resumes from may also have grown, as the appended rows can
+     * be ingested from the checkpoint.
+     */
+    public boolean isCurrent() {
+        if (sources.isEmpty()) return false;
+        String resumable = checkpoint != null ? checkpoint.getSourceFile() : null;
+        for (Source source : sources) {
+            boolean current = source.getPath().equals(resumable) ? source.isCurrentOrAppended() : source.isCurrent();
+            if (!current) return false;
+        }
+        return true;
+    }
+
+    /**
+     * A data file a snapshot was built from, with its length and modification time when read
+     */
+    public static final class Source {
+        private final String path;
+        private final long length;
+        private final long lastModified;
+
+        public Source(String path, long length, long lastModified) {
+            this.path = path;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+
+        /** The file as it is now; take this before reading it */
+        public static Source of(String path) {
+            File file = new File(path);
+            return new Source(path, file.length(), file.lastModified());
+        }
+
+        /** Whether the file still has the recorded length and modification time */
+        public boolean isCurrent() {
+            File file = new File(path);
+            return file.isFile() && file.length() == length && file.lastModified() == lastModified;
+        }
+
+        /** Whether the file is unchanged or only longer than recorded, as when rows were appended */
+        public boolean isCurrentOrAppended() {
+            File file = new File(path);
+            return isCurrent() || file.isFile() && file.length() > length;
+        }
+
+        public String getPath() { return path; }
+        public long getLength() { return length; }
+        public long getLastModified() { return lastModified; }
+
+        @Override
+        public String toString() {
+            return path + " (" + length + " bytes, modified " + lastModified + ")";
+        }
+    }
+
+    /**
+     * Pairings go out with indexes into a table of the player ids they use
+     */
+    private static void writeHeadToHead(DataOutputStream out, HeadToHeadStore headToHead) throws IOException {
+        int[] pairings = new int[headToHead.size() * 4];
+        Map<Integer, Integer> indexes = new LinkedHashMap<>();
+        int[] next = {0};
+        headToHead.forEach((lowerCode, higherCode, lowerWins, higherWins) -> {
+            if (next[0] == pairings.length) {
+                throw new IllegalStateException("Head-to-head store changed while writing a snapshot");
+            }
+            pairings[next[0]++] = indexes.computeIfAbsent(lowerCode, k -> indexes.size());
+            pairings[next[0]++] = indexes.computeIfAbsent(higherCode, k -> indexes.size());
+            pairings[next[0]++] = lowerWins;
+            pairings[next[0]++] = higherWins;
+        });
+
+        out.writeInt(indexes.size());
+        for (int playerCode : indexes.keySet()) {
+            writeString(out, MatchSymbols.PLAYER_IDS.symbol(playerCode));
+        }
+        out.writeInt(next[0] / 4);
+        for (int i = 0; i < next[0]; i++) {
+            out.writeInt(pairings[i]);
+        }
+    }
+
+    private static void writeCheckpoint(DataOutputStream out, IngestionCheckpoint checkpoint) throws IOException {
+        out.writeBoolean(checkpoint != null);
+        if (checkpoint == null) return;
+        writeString(out, checkpoint.getSourceFile());
+        out.writeLong(checkpoint.getByteOffset());
+        out.writeLong(checkpoint.getMatchesIngested());
+        out.writeBoolean(checkpoint.getLastTourneyId() != null);
+        if (checkpoint.getLastTourneyId() != null) writeString(out, checkpoint.getLastTourneyId());
+        out.writeBoolean(checkpoint.getLastMatchNum() != null);
+        if (checkpoint.getLastMatchNum() != null) out.writeInt(checkpoint.getLastMatchNum());
+    }
+
+    private static IngestionCheckpoint readCheckpoint(ByteBuffer in) {
+        if (in.get() == 0) return null;
+        String sourceFile = readString(in);
+        long byteOffset = in.getLong();
+        long matchesIngested = in.getLong();
+        String lastTourneyId = in.get() != 0 ? readString(in) : null;
+        Integer lastMatchNum = in.get() != 0 ? in.getInt() : null;
+        return new IngestionCheckpoint(sourceFile, byteOffset, matchesIngested, lastTourneyId, lastMatchNum);
+    }
+
+    static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IOException("String too long for a snapshot: " + bytes.length + " bytes");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
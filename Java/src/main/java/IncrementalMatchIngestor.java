@@ -0,0 +1,96 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies only the rows appended to a results CSV since the last run.
+ *
+ * The ingestor's position is the {@link IngestionCheckpoint} its {@link HistorySnapshot} is
+ * tagged with, so the histories and the byte offset they reflect are always saved together:
+ * after new rows are applied, the manager is written to the snapshot with the advanced checkpoint
+ * in one atomic file replace. On restart, restore the snapshot and start the ingestor from its
+ * checkpoint; a refresh then maps the CSV, jumps straight to that offset and parses just the new rows.
+ * The snapshot keeps the other source files it lists and records the CSV as it was when read.
+ */
+public class IncrementalMatchIngestor {
+    private final String csvFilePath;
+    private final String snapshotPath;
+    private final TennisDataLoader loader;
+    private IngestionCheckpoint checkpoint;
+
+    public IncrementalMatchIngestor(String csvFilePath, IngestionCheckpoint checkpoint, String snapshotPath) {
+        this(csvFilePath, checkpoint, snapshotPath, new TennisDataLoader());
+    }
+
+    /**
+     * Ingest into a manager whose state already reflects the CSV up to {@code checkpoint}, usually
+     * the one a restored snapshot was tagged with. Only a manager holding nothing from the file
+     * should start from offset 0.
+     */
+    public IncrementalMatchIngestor(String csvFilePath, IngestionCheckpoint checkpoint, String snapshotPath,
+                                    TennisDataLoader loader) {
+        this.csvFilePath = csvFilePath;
+        this.snapshotPath = snapshotPath;
+        this.loader = loader;
+        resumeFrom(checkpoint);
+    }
+
+    /**
+     * Start from an existing checkpoint, e.g. the one stored with a history snapshot
+     */
+    public void resumeFrom(IngestionCheckpoint checkpoint) {
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("No checkpoint to resume " + csvFilePath + " from");
+        }
+        if (!csvFilePath.equals(checkpoint.getSourceFile())) {
+            throw new IllegalArgumentException("Checkpoint is for " + checkpoint.getSourceFile() + ", not " + csvFilePath);
+        }
+        this.checkpoint = checkpoint;
+    }
+
+    /**
+     * Apply every complete row appended since the checkpoint, then advance the checkpoint and save
+     * it with the manager's state to the snapshot. Returns the number of matches applied.
+     * Other updates to the manager must not run at the same time, as the snapshot is written from it.
+     */
+    public synchronized int ingestInto(PlayerHistoryManager historyManager) throws IOException {
+        HistorySnapshot.Source stamp = HistorySnapshot.Source.of(csvFilePath);
+        List<Match> newMatches = new ArrayList<>();
+        long offset = loader.loadAppendedMatches(csvFilePath, checkpoint.getByteOffset(), newMatches::add);
+
+        for (Match match : newMatches) {
+            historyManager.updateWithMatch(match);
+        }
+
+        if (offset != checkpoint.getByteOffset()) {
+            Match last = newMatches.isEmpty() ? null : newMatches.get(newMatches.size() - 1);
+            checkpoint = new IngestionCheckpoint(csvFilePath, offset,
+                    checkpoint.getMatchesIngested() + newMatches.size(),
+                    last != null ? last.getTourneyId() : checkpoint.getLastTourneyId(),
+                    last != null ? last.getMatchNum() : checkpoint.getLastMatchNum());
+            // If this fails the rows stay applied in memory and the next successful save records them
+            historyManager.saveSnapshot(snapshotPath, checkpoint, sourcesWith(stamp));
+        }
+        return newMatches.size();
+    }
+
+    /**
+     * The sources the existing snapshot lists, with this CSV's entry replaced by {@code stamp}
+     */
+    private List<HistorySnapshot.Source> sourcesWith(HistorySnapshot.Source stamp) throws IOException {
+        List<HistorySnapshot.Source> sources = new ArrayList<>();
+        if (Files.isRegularFile(Paths.get(snapshotPath))) {
+            for (HistorySnapshot.Source source : HistorySnapshot.readSources(snapshotPath)) {
+                if (!source.getPath().equals(csvFilePath)) sources.add(source);
+            }
+        }
+        sources.add(stamp);
+        return sources;
+    }
+
+    public IngestionCheckpoint getCheckpoint() {
+        return checkpoint;
+    }
+}
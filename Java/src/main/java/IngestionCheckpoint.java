@@ -0,0 +1,32 @@
+/**
+ * Position in a results file up to which matches have been applied.
+ * Stored inside the {@link HistorySnapshot} that holds the matching histories.
+ */
+public class IngestionCheckpoint {
+    private final String sourceFile;
+    private final long byteOffset;
+    private final long matchesIngested;
+    private final String lastTourneyId;
+    private final Integer lastMatchNum;
+
+    public IngestionCheckpoint(String sourceFile, long byteOffset, long matchesIngested,
+                               String lastTourneyId, Integer lastMatchNum) {
+        this.sourceFile = sourceFile;
+        this.byteOffset = byteOffset;
+        this.matchesIngested = matchesIngested;
+        this.lastTourneyId = lastTourneyId;
+        this.lastMatchNum = lastMatchNum;
+    }
+
+    public String getSourceFile() { return sourceFile; }
+    public long getByteOffset() { return byteOffset; }
+    public long getMatchesIngested() { return matchesIngested; }
+    public String getLastTourneyId() { return lastTourneyId; }
+    public Integer getLastMatchNum() { return lastMatchNum; }
+
+    @Override
+    public String toString() {
+        return String.format("%s @ %d bytes (%d matches, last %s #%s)",
+                sourceFile, byteOffset, matchesIngested, lastTourneyId, lastMatchNum);
+    }
+}
@@ -0,0 +1,322 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Scans a comma separated file directly from a memory-mapped buffer.
+ * Field boundaries of the current row are recorded once, so numeric cells
+ * can be parsed straight from the bytes without building intermediate Strings.
+ */
+public class MappedCsvReader {
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final ByteBuffer buffer;
+    private final int limit;
+    private final String[] header;
+
+    private int position;
+    private int rowStart = -1;
+    private int fieldCount;
+    private int[] fieldStart = new int[64];
+    private int[] fieldEnd = new int[64];
+    private byte[] scratch = new byte[128];
+
+    public MappedCsvReader(Path file) throws IOException {
+        this(file, 0);
+    }
+
+    /**
+     * Map the file and read its header, then continue from the first row that starts
+     * at or after {@code startOffset}, usually a {@link #nextRowOffset()}. Offsets inside
+     * the header are ignored.
+     */
+    public MappedCsvReader(Path file, long startOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.buffer = mapped;
+            this.limit = (int) size;
+        }
+
+        if (nextRow()) {
+            header = new String[fieldCount];
+            for (int i = 0; i < fieldCount; i++) {
+                String name = getString(i);
+                header[i] = name != null ? name : "";
+            }
+        } else {
+            header = new String[0];
+        }
+
+        if (startOffset > limit) {
+            throw new IOException("Offset " + startOffset + " is past the end of " + file);
+        }
+        if (startOffset > position) {
+            position = (int) startOffset;
+            // An offset inside a row skips the rest of it
+            while (position < limit && buffer.get(position - 1) != '\n') {
+                position++;
+            }
+        }
+    }
+
+    private MappedCsvReader(MappedCsvReader source) {
+        this.buffer = source.buffer;
+        this.limit = source.limit;
+        this.header = source.header;
+        this.position = limit;
+    }
+
+    /**
+     * A second reader over the same mapping, with its own row state, for {@link #readRowAt(long)}
+     */
+    MappedCsvReader duplicate() {
+        return new MappedCsvReader(this);
+    }
+
+    /**
+     * Make the row starting at the given offset, as returned by {@link #rowOffset()}, current
+     */
+    boolean readRowAt(long offset) {
+        position = (int) offset;
+        return nextRow();
+    }
+
+    /**
+     * Resolve a header name to its column position, or -1 if absent
+     */
+    public int columnIndex(String name) {
+        for (int i = 0; i < header.length; i++) {
+            if (header[i].equals(name)) return i;
+        }
+        return -1;
+    }
+
+    public String[] getHeader() {
+        return header.clone();
+    }
+
+    /**
+     * Advance to the next non-blank row. Returns false at end of file.
+     */
+    public boolean nextRow() {
+        while (position < limit) {
+            int start = position;
+            int count = 0;
+            int fieldBegin = start;
+            boolean blank = true;
+            int i = start;
+
+            for (; i < limit; i++) {
+                byte b = buffer.get(i);
+                if (b == ',') {
+                    if (count == fieldStart.length) growFields();
+                    trimInto(count++, fieldBegin, i);
+                    fieldBegin = i + 1;
+                } else if (b == '\n') {
+                    break;
+                } else if ((b & 0xFF) > ' ') {
+                    blank = false;
+                }
+            }
+            if (count == fieldStart.length) growFields();
+            trimInto(count++, fieldBegin, i);
+            position = i < limit ? i + 1 : i;
+
+            if (!blank || count > 1) {
+                rowStart = start;
+                fieldCount = count;
+                return true;
+            }
+        }
+        rowStart = -1;
+        fieldCount = 0;
+        return false;
+    }
+
+    /**
+     * Byte offset of the current row within the file
+     */
+    public long rowOffset() {
+        return rowStart;
+    }
+
+    /**
+     * Byte offset just past the current row, where the next row starts
+     */
+    public long nextRowOffset() {
+        return position;
+    }
+
+    /**
+     * Whether the current row ended with a newline. The last row of a file that
+     * is still being appended to may be incomplete.
+     */
+    public boolean isRowTerminated() {
+        return position > 0 && buffer.get(position - 1) == '\n';
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    private void trimInto(int field, int from, int to) {
+        while (from < to && (buffer.get(from) & 0xFF) <= ' ') from++;
+        while (to > from && (buffer.get(to - 1) & 0xFF) <= ' ') to--;
+        fieldStart[field] = from;
+        fieldEnd[field] = to;
+    }
+
+    private void growFields() {
+        int[] newStart = new int[fieldStart.length * 2];
+        int[] newEnd = new int[fieldEnd.length * 2];
+        System.arraycopy(fieldStart, 0, newStart, 0, fieldStart.length);
+        System.arraycopy(fieldEnd, 0, newEnd, 0, fieldEnd.length);
+        fieldStart = newStart;
+        fieldEnd = newEnd;
+    }
+
+    public boolean isBlank(int column) {
+        return column < 0 || column >= fieldCount || fieldStart[column] == fieldEnd[column];
+    }
+
+    /**
+     * Decode a cell as a String, or null when the column is absent or blank
+     */
+    public String getString(int column) {
+        if (isBlank(column)) return null;
+        return new String(scratch, 0, copyToScratch(column), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Code of a cell in the given symbol table, or {@link SymbolTable#MISSING} when blank.
+     * Values the table already holds are looked up without creating a String.
+     */
+    public int internField(int column, SymbolTable table) {
+        if (isBlank(column)) return SymbolTable.MISSING;
+        return table.intern(scratch, 0, copyToScratch(column));
+    }
+
+    private int copyToScratch(int column) {
+        int from = fieldStart[column];
+        int length = fieldEnd[column] - from;
+        if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(from + i);
+        }
+        return length;
+    }
+
+    /**
+     * Compare a cell against an ASCII value without decoding it
+     */
+    public boolean fieldEquals(int column, byte[] value) {
+        if (column < 0 || column >= fieldCount) return false;
+        int from = fieldStart[column];
+        if (fieldEnd[column] - from != value.length) return false;
+        for (int i = 0; i < value.length; i++) {
+            if (buffer.get(from + i) != value[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse a cell as an int, returning {@code missing} for blank or malformed cells
+     */
+    public int getInt(int column, int missing) {
+        if (isBlank(column)) return missing;
+        int i = fieldStart[column];
+        int end = fieldEnd[column];
+
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) return missing;
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) return missing;
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) return missing;
+        }
+
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) return missing;
+        return (int) value;
+    }
+
+    /**
+     * Parse a plain decimal cell as a double, returning {@code missing} for blank or malformed cells.
+     * Values with up to 15 significant digits are computed directly; anything longer
+     * is handed to Double.parseDouble so the result always matches the String-based path.
+     */
+    public double getDouble(int column, double missing) {
+        if (isBlank(column)) return missing;
+        int i = fieldStart[column];
+        int end = fieldEnd[column];
+
+        boolean negative = false;
+        byte first = buffer.get(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int significantDigits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b >= '0' && b <= '9') {
+                digits++;
+                if (mantissa != 0 || b != '0') significantDigits++;
+                if (significantDigits <= MAX_FAST_DIGITS) mantissa = mantissa * 10 + (b - '0');
+                if (seenDot) fractionDigits++;
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else if (b == 'e' || b == 'E') {
+                break;
+            } else {
+                return missing;
+            }
+        }
+
+        if (digits == 0) return missing;
+        if (i < end) return parseExponentForm(column, i + 1, missing);
+
+        if (significantDigits <= MAX_FAST_DIGITS && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(getString(column));
+    }
+
+    private double parseExponentForm(int column, int exponentStart, double missing) {
+        int end = fieldEnd[column];
+        int i = exponentStart;
+        if (i < end && (buffer.get(i) == '-' || buffer.get(i) == '+')) i++;
+        if (i == end) return missing;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') return missing;
+        }
+        return Double.parseDouble(getString(column));
+    }
+}
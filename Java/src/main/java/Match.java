@@ -8,13 +8,22 @@ public class Match {
     private final Integer matchNum;
     private final String round;
     private final Integer bestOf;
-    private final Integer minutes;
-    private final String score;
-
     private final Player winner;
     private final Player loser;
-    private final MatchStats winnerStats;
-    private final MatchStats loserStats;
+
+    // Decoded on first access when the match was loaded lazily
+    private Integer minutes;
+    private MatchScore score;
+    private MatchStats winnerStats;
+    private MatchStats loserStats;
+    private volatile RowSource rowSource;
+    private final int row;
+
+    // Codes in the MatchSymbols tables, -1 when the field is missing
+    private final int tourneyCode;
+    private final int surfaceCode;
+    private final int tourneyLevelCode;
+    private final int roundCode;
 
     private Match(Builder builder) {
         // Add validation for required fields
@@ -32,11 +41,18 @@ public class Match {
         this.round = builder.round;
         this.bestOf = builder.bestOf;
         this.minutes = builder.minutes;
-        this.score = builder.score;
+        this.score = builder.parsedScore();
         this.winner = builder.winner;
         this.loser = builder.loser;
         this.winnerStats = builder.winnerStats;
         this.loserStats = builder.loserStats;
+        this.row = builder.row;
+        this.rowSource = builder.rowSource;
+
+        this.tourneyCode = MatchSymbols.TOURNEY_IDS.intern(tourneyId);
+        this.surfaceCode = MatchSymbols.SURFACES.intern(surface);
+        this.tourneyLevelCode = MatchSymbols.LEVELS.intern(tourneyLevel);
+        this.roundCode = MatchSymbols.ROUNDS.intern(round);
     }
 
     // All your existing getters remain the same...
@@ -49,12 +65,48 @@ public class Match {
     public Integer getMatchNum() { return matchNum; }
     public String getRound() { return round; }
     public Integer getBestOf() { return bestOf; }
-    public Integer getMinutes() { return minutes; }
-    public String getScore() { return score; }
+    public Integer getMinutes() { decodeIfNeeded(); return minutes; }
+    public String getScore() { decodeIfNeeded(); return score != null ? score.toString() : null; }
+    /** The score parsed into sets and outcome, or null if the source had none */
+    public MatchScore getMatchScore() { decodeIfNeeded(); return score; }
+    public boolean isWalkover() { MatchScore s = getMatchScore(); return s != null && s.isWalkover(); }
+    public boolean isRetirement() { MatchScore s = getMatchScore(); return s != null && s.isRetirement(); }
     public Player getWinner() { return winner; }
     public Player getLoser() { return loser; }
-    public MatchStats getWinnerStats() { return winnerStats; }
-    public MatchStats getLoserStats() { return loserStats; }
+    public MatchStats getWinnerStats() { decodeIfNeeded(); return winnerStats; }
+    public MatchStats getLoserStats() { decodeIfNeeded(); return loserStats; }
+    public int getTourneyCode() { return tourneyCode; }
+    public int getSurfaceCode() { return surfaceCode; }
+    public int getTourneyLevelCode() { return tourneyLevelCode; }
+    public int getRoundCode() { return roundCode; }
+
+    private void decodeIfNeeded() {
+        if (rowSource != null) {
+            decode();
+        }
+    }
+
+    private synchronized void decode() {
+        RowSource source = rowSource;
+        if (source == null) return;
+
+        Builder fields = new Builder();
+        source.decodeDeferredFields(row, fields);
+        this.minutes = fields.minutes;
+        this.score = fields.parsedScore();
+        this.winnerStats = fields.winnerStats;
+        this.loserStats = fields.loserStats;
+        // Dropping the source publishes the fields and lets the mapping go once every row is decoded
+        this.rowSource = null;
+    }
+
+    /**
+     * Where a lazily loaded match reads its minutes, score and serve stats from.
+     * Implementations fill in those four Builder fields for the given row.
+     */
+    interface RowSource {
+        void decodeDeferredFields(int row, Builder target);
+    }
 
     // NESTED BUILDER CLASS - Move content from Builder.java here
     public static class Builder {
@@ -64,6 +116,7 @@ public class Match {
         String tourneyLevel;
         String round;
         String score;
+        MatchScore matchScore;
         Integer drawSize;
         Integer tourneyDate;
         Integer matchNum;
@@ -73,6 +126,8 @@ public class Match {
         Player loser;
         MatchStats winnerStats;
         MatchStats loserStats;
+        RowSource rowSource;
+        int row;
 
         public Builder tourneyId(String val) { tourneyId = val; return this; }
         public Builder tourneyName(String val) { tourneyName = val; return this; }
@@ -84,12 +139,20 @@ public class Match {
         public Builder round(String val) { round = val; return this; }
         public Builder bestOf(Integer val) { bestOf = val; return this; }
         public Builder minutes(Integer val) { minutes = val; return this; }
-        public Builder score(String val) { score = val; return this; }
+        public Builder score(String val) { score = val; matchScore = null; return this; }
+        /** Score already parsed, e.g. from a MatchTable */
+        public Builder score(MatchScore val) { matchScore = val; score = null; return this; }
         public Builder winner(Player val) { winner = val; return this; }
         public Builder loser(Player val) { loser = val; return this; }
         public Builder winnerStats(MatchStats val) { winnerStats = val; return this; }
         public Builder loserStats(MatchStats val) { loserStats = val; return this; }
+        /** Leave minutes, score and stats to be decoded from the source on first access */
+        Builder deferredFields(RowSource source, int sourceRow) { rowSource = source; row = sourceRow; return this; }
 
         public Match build() { return new Match(this); }
+
+        MatchScore parsedScore() {
+            return matchScore != null ? matchScore : MatchScore.parse(score);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Row filter on tourney date, tour level, surface and round.
+ *
+ * The loaders evaluate it against the raw CSV bytes before any Player, MatchStats or
+ * Match objects are built, so rejected rows cost little more than a scan.
+ * Unset criteria accept everything.
+ */
+public class MatchFilter {
+    private static final byte[] DEFAULT_SURFACE = "Hard".getBytes(StandardCharsets.US_ASCII);
+    private static final MatchFilter ALL = new Builder().build();
+
+    private final int fromDate;
+    private final int toDate;
+    private final byte[][] levels;
+    private final byte[][] surfaces;
+    private final byte[][] rounds;
+
+    private MatchFilter(Builder builder) {
+        this.fromDate = builder.fromDate;
+        this.toDate = builder.toDate;
+        this.levels = encode(builder.levels);
+        this.surfaces = encode(builder.surfaces);
+        this.rounds = encode(builder.rounds);
+    }
+
+    /**
+     * Filter that accepts every match
+     */
+    public static MatchFilter all() {
+        return ALL;
+    }
+
+    public boolean isUnrestricted() {
+        return fromDate == Integer.MIN_VALUE && toDate == Integer.MAX_VALUE
+                && levels == null && surfaces == null && rounds == null;
+    }
+
+    /**
+     * Evaluate the filter on an already built match
+     */
+    public boolean matches(Match match) {
+        if (!acceptsDate(match.getTourneyDate())) return false;
+        if (levels != null && !contains(levels, match.getTourneyLevel())) return false;
+        if (surfaces != null && !contains(surfaces, match.getSurface())) return false;
+        return rounds == null || contains(rounds, match.getRound());
+    }
+
+    /**
+     * Evaluate the filter on the current row of a reader without decoding any Strings.
+     * A blank surface counts as "Hard", the same default Match applies.
+     */
+    boolean acceptsRow(MappedCsvReader reader, int dateColumn, int levelColumn, int surfaceColumn, int roundColumn) {
+        if (fromDate != Integer.MIN_VALUE || toDate != Integer.MAX_VALUE) {
+            int date = reader.getInt(dateColumn, Integer.MIN_VALUE);
+            if (date == Integer.MIN_VALUE || date < fromDate || date > toDate) return false;
+        }
+        if (levels != null && !anyEquals(reader, levelColumn, levels)) return false;
+        if (surfaces != null) {
+            if (reader.isBlank(surfaceColumn)) {
+                if (!contains(surfaces, DEFAULT_SURFACE)) return false;
+            } else if (!anyEquals(reader, surfaceColumn, surfaces)) {
+                return false;
+            }
+        }
+        return rounds == null || anyEquals(reader, roundColumn, rounds);
+    }
+
+    private boolean acceptsDate(Integer date) {
+        if (fromDate == Integer.MIN_VALUE && toDate == Integer.MAX_VALUE) return true;
+        return date != null && date >= fromDate && date <= toDate;
+    }
+
+    private static boolean anyEquals(MappedCsvReader reader, int column, byte[][] values) {
+        for (byte[] value : values) {
+            if (reader.fieldEquals(column, value)) return true;
+        }
+        return false;
+    }
+
+    private static boolean contains(byte[][] values, String value) {
+        return value != null && contains(values, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static boolean contains(byte[][] values, byte[] value) {
+        for (byte[] candidate : values) {
+            if (Arrays.equals(candidate, value)) return true;
+        }
+        return false;
+    }
+
+    private static byte[][] encode(String[] values) {
+        if (values == null) return null;
+        byte[][] encoded = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            encoded[i] = values[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return encoded;
+    }
+
+    public static class Builder {
+        int fromDate = Integer.MIN_VALUE;
+        int toDate = Integer.MAX_VALUE;
+        String[] levels;
+        String[] surfaces;
+        String[] rounds;
+
+        /** Earliest tourney date to keep, as yyyyMMdd (inclusive) */
+        public Builder fromDate(int val) { fromDate = val; return this; }
+        /** Latest tourney date to keep, as yyyyMMdd (inclusive) */
+        public Builder toDate(int val) { toDate = val; return this; }
+        public Builder levels(String... val) { levels = val.clone(); return this; }
+        public Builder surfaces(String... val) { surfaces = val.clone(); return this; }
+        public Builder rounds(String... val) { rounds = val.clone(); return this; }
+
+        public MatchFilter build() { return new MatchFilter(this); }
+    }
+}
@@ -0,0 +1,348 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity ring of a player's most recent results, one packed long per match.
+ *
+ * Appending past capacity overwrites the oldest entry, so both are constant time; entries are
+ * read newest first with {@link #won(int)}, {@link #surfaceCode(int)} and {@link #date(int)}.
+ * The win count and a mask of the last 64 results are kept up to date on every append.
+ * The backing array starts small and doubles up to the capacity, since most players never
+ * play more than a few dozen matches.
+ *
+ * Entry layout: bit 0 won, bit 1 set when the date is stored as raw yyyyMMdd because it is not
+ * a real calendar date, bits 2-17 the {@link MatchSymbols#SURFACES} code plus one (0 for none),
+ * bits 32-63 the epoch day (or raw date, or {@link DateCodes#MISSING}).
+ *
+ * A second long per match describes the opponent: bits 0-31 their rating as a float (NaN if
+ * unknown), bits 32-47 their rank plus one and bits 48-55 the {@link MatchSymbols#LEVELS} code
+ * plus one (0 for unknown). Ratings also feed a decay-weighted average of opponent strength
+ * that is updated on every append, so it costs nothing to read and covers evicted results too.
+ *
+ * Results with a calendar date also feed win and match sums for each of the
+ * {@link TimeDecay#TRACKED_WINDOWS}, weighted by exp(-age / window) in days. The sums are
+ * anchored at the latest date added and rescaled through the decay tables when a later date
+ * arrives, so both appends and queries as of any later day are constant time. They are not
+ * saved: {@link #read} rebuilds them from the stored results, which for a full buffer leaves
+ * out evicted results hundreds of matches old.
+ */
+public class MatchResultBuffer {
+    /** Weight kept by earlier opponents each time a rated result is added */
+    static final double OPPONENT_STRENGTH_DECAY = 0.95;
+
+    private static final int INITIAL_SIZE = 16;
+    private static final long WON = 1L;
+    private static final long RAW_DATE = 2L;
+    private static final int SURFACE_SHIFT = 2;
+    private static final int SURFACE_MASK = 0xFFFF;
+    private static final int RANK_SHIFT = 32;
+    private static final int RANK_MASK = 0xFFFF;
+    private static final int LEVEL_SHIFT = 48;
+    private static final int LEVEL_MASK = 0xFF;
+    private static final long NO_OPPONENT = Float.floatToRawIntBits(Float.NaN) & 0xFFFFFFFFL;
+
+    private final int capacity;
+    private long[] entries;
+    private long[] opponents;
+    private int head;
+    private int size;
+    private int wins;
+    private long recentResults;
+    private double strengthSum;
+    private double strengthWeight;
+    private final double[] decayedWins = new double[TimeDecay.TRACKED_WINDOWS.length];
+    private final double[] decayedMatches = new double[TimeDecay.TRACKED_WINDOWS.length];
+    private int decayDay = DateCodes.MISSING;
+
+    public MatchResultBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new long[Math.min(INITIAL_SIZE, capacity)];
+        this.opponents = new long[entries.length];
+    }
+
+    /**
+     * Append a result, evicting the oldest one when full
+     */
+    public void add(boolean won, int surfaceCode, Integer date) {
+        append(pack(won, surfaceCode, date), NO_OPPONENT);
+    }
+
+    /**
+     * Append a result with its opponent's rank (0 or less if unknown), the tournament level code
+     * (-1 if unknown) and the opponent's rating going into the match (NaN if unknown)
+     */
+    public void add(boolean won, int surfaceCode, Integer date, int opponentRank, int levelCode, double opponentRating) {
+        append(pack(won, surfaceCode, date), packOpponent(opponentRank, levelCode, opponentRating));
+        if (!Double.isNaN(opponentRating)) {
+            strengthSum = strengthSum * OPPONENT_STRENGTH_DECAY + opponentRating;
+            strengthWeight = strengthWeight * OPPONENT_STRENGTH_DECAY + 1.0;
+        }
+    }
+
+    private void append(long entry, long opponent) {
+        boolean won = (entry & WON) != 0;
+        if (size < capacity) {
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, Math.min(capacity, entries.length * 2));
+                opponents = Arrays.copyOf(opponents, entries.length);
+            }
+            opponents[size] = opponent;
+            entries[size++] = entry;
+            // Entries fill the array in order until it is full, then head wraps around it
+            head = size % entries.length;
+        } else {
+            if ((entries[head] & WON) != 0) wins--;
+            entries[head] = entry;
+            opponents[head] = opponent;
+            head = (head + 1) % capacity;
+        }
+        if (won) wins++;
+        recentResults = (recentResults << 1) | (won ? 1L : 0L);
+
+        int day = (int) (entry >> 32);
+        if ((entry & RAW_DATE) == 0 && day != DateCodes.MISSING) {
+            addDecayed(day, won);
+        }
+    }
+
+    private void addDecayed(int day, boolean won) {
+        if (decayDay == DateCodes.MISSING || day >= decayDay) {
+            int elapsed = decayDay == DateCodes.MISSING ? 0 : day - decayDay;
+            for (int w = 0; w < decayedMatches.length; w++) {
+                double weight = TimeDecay.tracked(w).weight(elapsed);
+                decayedWins[w] = decayedWins[w] * weight + (won ? 1.0 : 0.0);
+                decayedMatches[w] = decayedMatches[w] * weight + 1.0;
+            }
+            decayDay = day;
+        } else {
+            // A result older than the anchor comes in already decayed
+            for (int w = 0; w < decayedMatches.length; w++) {
+                double weight = TimeDecay.tracked(w).weight(decayDay - day);
+                if (won) decayedWins[w] += weight;
+                decayedMatches[w] += weight;
+            }
+        }
+    }
+
+    public int size() { return size; }
+    public int capacity() { return capacity; }
+    public boolean isEmpty() { return size == 0; }
+
+    /** Wins among the stored results */
+    public int wins() { return wins; }
+
+    /**
+     * The newest results as a bit mask, bit i set when the i-th most recent was a win.
+     * Only the lowest min(size, 64) bits are meaningful.
+     */
+    public long recentResults() { return recentResults; }
+
+    /** Whether the i-th most recent result (0 = latest) was a win */
+    public boolean won(int i) {
+        return (entry(i) & WON) != 0;
+    }
+
+    /** Surface code of the i-th most recent result, or -1 without a surface */
+    public int surfaceCode(int i) {
+        return (int) ((entry(i) >>> SURFACE_SHIFT) & SURFACE_MASK) - 1;
+    }
+
+    /** Epoch day of the i-th most recent result, or {@link DateCodes#MISSING} if unknown */
+    public int epochDay(int i) {
+        long entry = entry(i);
+        return (entry & RAW_DATE) == 0 ? (int) (entry >> 32) : DateCodes.MISSING;
+    }
+
+    /** The i-th most recent result's date as it was added (yyyyMMdd), or null */
+    public Integer date(int i) {
+        long entry = entry(i);
+        int stored = (int) (entry >> 32);
+        if ((entry & RAW_DATE) != 0) return stored;
+        return stored != DateCodes.MISSING ? DateCodes.fromEpochDay(stored) : null;
+    }
+
+    /** Rank of the i-th most recent result's opponent, or -1 if unknown */
+    public int opponentRank(int i) {
+        return (int) ((opponent(i) >>> RANK_SHIFT) & RANK_MASK) - 1;
+    }
+
+    /** Tournament level code of the i-th most recent result, or -1 if unknown */
+    public int tourneyLevelCode(int i) {
+        return (int) ((opponent(i) >>> LEVEL_SHIFT) & LEVEL_MASK) - 1;
+    }
+
+    /** Rating of the i-th most recent result's opponent going into the match, or NaN if unknown */
+    public double opponentRating(int i) {
+        return Float.intBitsToFloat((int) opponent(i));
+    }
+
+    /**
+     * Decay-weighted average rating of every rated opponent added, including evicted ones,
+     * or {@code none} if there were none
+     */
+    public double opponentStrength(double none) {
+        return strengthWeight > 0 ? strengthSum / strengthWeight : none;
+    }
+
+    /**
+     * Results added, each weighted by exp(-age / days) as of an epoch day. Constant time for the
+     * {@link TimeDecay#TRACKED_WINDOWS}, which also count evicted results; other windows walk
+     * the stored results. Results without a calendar date are left out. A missing day reads as
+     * the latest result's day; an earlier day is rejected, as the sums already count the later
+     * results.
+     *
+     * @throws IllegalArgumentException if {@code asOfDay} is before the latest result
+     */
+    public double decayedMatches(int days, int asOfDay) {
+        return decayedSum(days, asOfDay, false);
+    }
+
+    /** As {@link #decayedMatches(int, int)}, counting only wins */
+    public double decayedWins(int days, int asOfDay) {
+        return decayedSum(days, asOfDay, true);
+    }
+
+    private double decayedSum(int days, int asOfDay, boolean winsOnly) {
+        if (decayDay == DateCodes.MISSING) return 0.0;
+        if (asOfDay == DateCodes.MISSING) asOfDay = decayDay;
+        if (asOfDay < decayDay) {
+            throw new IllegalArgumentException("Epoch day " + asOfDay + " is before the latest result (" + decayDay + ")");
+        }
+
+        int tracked = TimeDecay.trackedIndex(days);
+        if (tracked >= 0) {
+            double sum = winsOnly ? decayedWins[tracked] : decayedMatches[tracked];
+            return sum * TimeDecay.tracked(tracked).weight(asOfDay - decayDay);
+        }
+
+        TimeDecay decay = TimeDecay.forWindow(days);
+        double sum = 0.0;
+        for (int i = 0; i < size; i++) {
+            int day = epochDay(i);
+            // Results can arrive out of date order, so every stored one is checked
+            if (day == DateCodes.MISSING || day > asOfDay || (winsOnly && !won(i))) continue;
+            sum += decay.weight(asOfDay - day);
+        }
+        return sum;
+    }
+
+    public void clear() {
+        entries = new long[Math.min(INITIAL_SIZE, capacity)];
+        opponents = new long[entries.length];
+        head = 0;
+        size = 0;
+        wins = 0;
+        recentResults = 0L;
+        strengthSum = 0.0;
+        strengthWeight = 0.0;
+        Arrays.fill(decayedWins, 0.0);
+        Arrays.fill(decayedMatches, 0.0);
+        decayDay = DateCodes.MISSING;
+    }
+
+    /**
+     * Write the capacity, the entries oldest first, then their opponents and the strength
+     * average. Surface and level codes are written as they are, so the reader needs the writer's
+     * tables (see {@link #read(ByteBuffer, int[], int[])}).
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(capacity);
+        out.writeInt(size);
+        for (int i = size - 1; i >= 0; i--) {
+            out.writeLong(entry(i));
+        }
+        for (int i = size - 1; i >= 0; i--) {
+            out.writeLong(opponent(i));
+        }
+        out.writeDouble(strengthSum);
+        out.writeDouble(strengthWeight);
+    }
+
+    /**
+     * Read a buffer written by {@link #write(DataOutputStream)}, translating each saved surface
+     * code through {@code surfaceCodes} and level code through {@code levelCodes}. Buffers saved
+     * without opponents (a null {@code levelCodes}) read them as unknown.
+     */
+    static MatchResultBuffer read(ByteBuffer in, int[] surfaceCodes, int[] levelCodes) {
+        MatchResultBuffer buffer = new MatchResultBuffer(in.getInt());
+        int size = in.getInt();
+        if (size < 0 || size > buffer.capacity) {
+            throw new IllegalStateException("Result buffer of " + size + " entries exceeds capacity " + buffer.capacity);
+        }
+        if (size > in.remaining() / Long.BYTES) {
+            throw new IllegalStateException("Result buffer of " + size + " entries runs past the end of the data");
+        }
+        long[] saved = new long[size];
+        for (int i = 0; i < size; i++) {
+            long entry = in.getLong();
+            int savedCode = (int) ((entry >>> SURFACE_SHIFT) & SURFACE_MASK) - 1;
+            int surfaceCode = savedCode >= 0 ? surfaceCodes[savedCode] : -1;
+            entry &= ~((long) SURFACE_MASK << SURFACE_SHIFT);
+            saved[i] = entry | ((long) (surfaceCode + 1) << SURFACE_SHIFT);
+        }
+        for (int i = 0; i < size; i++) {
+            long opponent = NO_OPPONENT;
+            if (levelCodes != null) {
+                opponent = in.getLong();
+                int savedLevel = (int) ((opponent >>> LEVEL_SHIFT) & LEVEL_MASK) - 1;
+                int levelCode = savedLevel >= 0 ? levelCodes[savedLevel] : -1;
+                opponent &= ~((long) LEVEL_MASK << LEVEL_SHIFT);
+                opponent |= (long) (levelCode + 1) << LEVEL_SHIFT;
+            }
+            buffer.append(saved[i], opponent);
+        }
+        if (levelCodes != null) {
+            buffer.strengthSum = in.getDouble();
+            buffer.strengthWeight = in.getDouble();
+        }
+        return buffer;
+    }
+
+    private long entry(int i) {
+        return entries[index(i)];
+    }
+
+    private long opponent(int i) {
+        return opponents[index(i)];
+    }
+
+    private int index(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Result " + i + " of " + size);
+        }
+        int index = head - 1 - i;
+        return index >= 0 ? index : index + entries.length;
+    }
+
+    private static long pack(boolean won, int surfaceCode, Integer date) {
+        if (surfaceCode + 1 > SURFACE_MASK) {
+            throw new IllegalStateException("Surface code " + surfaceCode + " does not fit a result entry");
+        }
+        long entry = (won ? WON : 0L) | ((long) (surfaceCode + 1) << SURFACE_SHIFT);
+
+        int stored = DateCodes.MISSING;
+        if (date != null) {
+            stored = DateCodes.toEpochDay(date.intValue());
+            if (stored == DateCodes.MISSING) {
+                stored = date;
+                entry |= RAW_DATE;
+            }
+        }
+        return entry | ((long) stored << 32);
+    }
+
+    private static long packOpponent(int opponentRank, int levelCode, double opponentRating) {
+        if (levelCode + 1 > LEVEL_MASK) {
+            throw new IllegalStateException("Level code " + levelCode + " does not fit a result entry");
+        }
+        long rank = opponentRank > 0 ? Math.min(opponentRank, RANK_MASK - 1) + 1 : 0;
+        long level = levelCode >= 0 ? levelCode + 1 : 0;
+        long rating = Float.floatToRawIntBits((float) opponentRating) & 0xFFFFFFFFL;
+        return (level << LEVEL_SHIFT) | (rank << RANK_SHIFT) | rating;
+    }
+}
@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * A parsed score line such as "7-6(5) 3-6 6-2 RET" or "W/O".
+ *
+ * Stored as one small byte array: the outcome, then three bytes per set holding the winner's
+ * games, the loser's games and the tiebreak (the set loser's points as written in parentheses,
+ * or a marker for no tiebreak / a match tiebreak like "[10-8]"). Games are from the match
+ * winner's side, as in the source. {@link #toString()} gives back the original text; the raw
+ * String is only kept for the rare lines that do not render back the same.
+ */
+public final class MatchScore {
+    public enum Outcome {
+        COMPLETED,
+        RETIRED,
+        WALKOVER,
+        DEFAULTED,
+        /** Abandoned, e.g. for weather (WEA, ABN) */
+        ABANDONED,
+        /** Not available, or a line the parser could not read */
+        UNKNOWN
+    }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+    private static final int SET_BYTES = 3;
+    private static final int NO_TIEBREAK = 0xFF;
+    private static final int MATCH_TIEBREAK = 0xFE;
+    private static final int MAX_VALUE = 0xFD;
+
+    private final byte[] encoded;
+    private final String text;
+
+    private MatchScore(byte[] encoded, String text) {
+        this.encoded = encoded;
+        this.text = text;
+    }
+
+    /**
+     * Parse a score line; null or blank gives null
+     */
+    public static MatchScore parse(String score) {
+        if (score == null) return null;
+        String trimmed = score.trim();
+        if (trimmed.isEmpty()) return null;
+
+        String[] tokens = trimmed.split("\\s+");
+        byte[] encoded = new byte[1 + tokens.length * SET_BYTES];
+        int sets = 0;
+        Outcome outcome = Outcome.COMPLETED;
+
+        for (String token : tokens) {
+            if (outcome != Outcome.COMPLETED || !parseSet(token, encoded, 1 + sets * SET_BYTES)) {
+                // Sets may only come before the marker; the first marker decides ("W/O RET" is a walkover)
+                Outcome marker = outcomeOf(token);
+                if (marker == null) {
+                    return unreadable(score);
+                }
+                if (outcome == Outcome.COMPLETED) outcome = marker;
+            } else {
+                sets++;
+            }
+        }
+
+        encoded[0] = (byte) outcome.ordinal();
+        MatchScore parsed = new MatchScore(Arrays.copyOf(encoded, 1 + sets * SET_BYTES), null);
+        return parsed.render().equals(score) ? parsed : new MatchScore(parsed.encoded, score);
+    }
+
+    /**
+     * Rebuild from {@link #toBytes()}
+     */
+    public static MatchScore fromBytes(byte[] bytes) {
+        if (bytes.length == 0 || (bytes.length - 1) % SET_BYTES != 0 || bytes[0] < 0 || bytes[0] >= OUTCOMES.length) {
+            throw new IllegalArgumentException("Not an encoded score: " + Arrays.toString(bytes));
+        }
+        return new MatchScore(bytes.clone(), null);
+    }
+
+    /**
+     * The compact encoding, without the raw text of unusual lines
+     */
+    public byte[] toBytes() {
+        return encoded.clone();
+    }
+
+    public Outcome getOutcome() { return OUTCOMES[encoded[0]]; }
+    public boolean isCompleted() { return getOutcome() == Outcome.COMPLETED; }
+    public boolean isWalkover() { return getOutcome() == Outcome.WALKOVER; }
+    public boolean isRetirement() { return getOutcome() == Outcome.RETIRED; }
+
+    /** Sets in the line, including an unfinished last set and a match tiebreak */
+    public int getSetCount() { return (encoded.length - 1) / SET_BYTES; }
+
+    public int getWinnerGames(int set) { return value(set, 0); }
+    public int getLoserGames(int set) { return value(set, 1); }
+
+    /** True for a set decided by a tiebreak, such as 7-6(5) */
+    public boolean hasTiebreak(int set) {
+        int tiebreak = value(set, 2);
+        return tiebreak != NO_TIEBREAK && tiebreak != MATCH_TIEBREAK;
+    }
+
+    /** Points the set loser won in its tiebreak, or -1 without one */
+    public int getTiebreakLoserPoints(int set) {
+        return hasTiebreak(set) ? value(set, 2) : -1;
+    }
+
+    /** True for a deciding match tiebreak such as [10-8], whose "games" are points */
+    public boolean isMatchTiebreak(int set) {
+        return value(set, 2) == MATCH_TIEBREAK;
+    }
+
+    /** Sets in which the match winner had more games */
+    public int getWinnerSets() {
+        int won = 0;
+        for (int set = 0; set < getSetCount(); set++) {
+            if (getWinnerGames(set) > getLoserGames(set)) won++;
+        }
+        return won;
+    }
+
+    /** Sets in which the match loser had more games */
+    public int getLoserSets() {
+        int won = 0;
+        for (int set = 0; set < getSetCount(); set++) {
+            if (getLoserGames(set) > getWinnerGames(set)) won++;
+        }
+        return won;
+    }
+
+    public int getTiebreakCount() {
+        int tiebreaks = 0;
+        for (int set = 0; set < getSetCount(); set++) {
+            if (hasTiebreak(set)) tiebreaks++;
+        }
+        return tiebreaks;
+    }
+
+    /** Games played, not counting match tiebreak points */
+    public int getTotalGames() {
+        int games = 0;
+        for (int set = 0; set < getSetCount(); set++) {
+            if (!isMatchTiebreak(set)) games += getWinnerGames(set) + getLoserGames(set);
+        }
+        return games;
+    }
+
+    @Override
+    public String toString() {
+        return text != null ? text : render();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof MatchScore)) return false;
+        MatchScore other = (MatchScore) o;
+        return Arrays.equals(encoded, other.encoded) && toString().equals(other.toString());
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(encoded);
+    }
+
+    private int value(int set, int offset) {
+        if (set < 0 || set >= getSetCount()) {
+            throw new IndexOutOfBoundsException("Set " + set + " of " + getSetCount());
+        }
+        return encoded[1 + set * SET_BYTES + offset] & 0xFF;
+    }
+
+    private String render() {
+        StringBuilder sb = new StringBuilder();
+        for (int set = 0; set < getSetCount(); set++) {
+            if (set > 0) sb.append(' ');
+            if (isMatchTiebreak(set)) {
+                sb.append('[').append(getWinnerGames(set)).append('-').append(getLoserGames(set)).append(']');
+            } else {
+                sb.append(getWinnerGames(set)).append('-').append(getLoserGames(set));
+                if (hasTiebreak(set)) sb.append('(').append(getTiebreakLoserPoints(set)).append(')');
+            }
+        }
+        String marker = markerOf(getOutcome());
+        if (marker != null) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(marker);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parse "6-4", "7-6(5)" or "[10-8]" into three bytes at offset; false if the token is not a set
+     */
+    private static boolean parseSet(String token, byte[] target, int offset) {
+        boolean matchTiebreak = token.length() > 2 && token.charAt(0) == '[' && token.charAt(token.length() - 1) == ']';
+        int end = matchTiebreak ? token.length() - 1 : token.length();
+        int pos = matchTiebreak ? 1 : 0;
+
+        int dash = token.indexOf('-', pos);
+        if (dash < 0) return false;
+        int paren = matchTiebreak ? -1 : token.indexOf('(', dash);
+        int gamesEnd = paren >= 0 ? paren : end;
+
+        int winnerGames = number(token, pos, dash);
+        int loserGames = number(token, dash + 1, gamesEnd);
+        int tiebreak = matchTiebreak ? MATCH_TIEBREAK : NO_TIEBREAK;
+        if (paren >= 0) {
+            if (token.charAt(end - 1) != ')') return false;
+            tiebreak = number(token, paren + 1, end - 1);
+        }
+        if (winnerGames < 0 || loserGames < 0 || tiebreak < 0) return false;
+
+        target[offset] = (byte) winnerGames;
+        target[offset + 1] = (byte) loserGames;
+        target[offset + 2] = (byte) tiebreak;
+        return true;
+    }
+
+    /**
+     * Digits in [from, to) as an int no larger than MAX_VALUE, otherwise -1
+     */
+    private static int number(String token, int from, int to) {
+        if (from >= to || to - from > 3) return -1;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = token.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value <= MAX_VALUE ? value : -1;
+    }
+
+    private static Outcome outcomeOf(String token) {
+        switch (token) {
+            case "RET": return Outcome.RETIRED;
+            case "W/O": return Outcome.WALKOVER;
+            case "DEF": case "(DEF)": return Outcome.DEFAULTED;
+            case "WEA": case "(WEA)": case "ABN": case "(ABN)": return Outcome.ABANDONED;
+            case "NA": return Outcome.UNKNOWN;
+            default: return null;
+        }
+    }
+
+    private static String markerOf(Outcome outcome) {
+        switch (outcome) {
+            case RETIRED: return "RET";
+            case WALKOVER: return "W/O";
+            case DEFAULTED: return "DEF";
+            case ABANDONED: return "WEA";
+            case UNKNOWN: return "NA";
+            default: return null;
+        }
+    }
+
+    private static MatchScore unreadable(String score) {
+        return new MatchScore(new byte[] { (byte) Outcome.UNKNOWN.ordinal() }, score);
+    }
+}
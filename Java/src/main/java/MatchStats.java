@@ -1,17 +1,34 @@
+/**
+ * Serve statistics of one side of a match. Counts are stored as primitives, with
+ * {@link #MISSING} marking a value the source did not have.
+ */
 public class MatchStats {
-    private final Integer aces;
-    private final Integer doubleFaults;
-    private final Integer servePoints;
-    private final Integer firstServeIn;
-    private final Integer firstServeWon;
-    private final Integer secondServeWon;
-    private final Integer serviceGames;
-    private final Integer breakPointsSaved;
-    private final Integer breakPointsFaced;
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final int aces;
+    private final int doubleFaults;
+    private final int servePoints;
+    private final int firstServeIn;
+    private final int firstServeWon;
+    private final int secondServeWon;
+    private final int serviceGames;
+    private final int breakPointsSaved;
+    private final int breakPointsFaced;
 
     public MatchStats(Integer aces, Integer doubleFaults, Integer servePoints,
                       Integer firstServeIn, Integer firstServeWon, Integer secondServeWon,
                       Integer serviceGames, Integer breakPointsSaved, Integer breakPointsFaced) {
+        this(orMissing(aces), orMissing(doubleFaults), orMissing(servePoints),
+                orMissing(firstServeIn), orMissing(firstServeWon), orMissing(secondServeWon),
+                orMissing(serviceGames), orMissing(breakPointsSaved), orMissing(breakPointsFaced));
+    }
+
+    /**
+     * Build from primitive counts, passing {@link #MISSING} for unknown values
+     */
+    public MatchStats(int aces, int doubleFaults, int servePoints,
+                      int firstServeIn, int firstServeWon, int secondServeWon,
+                      int serviceGames, int breakPointsSaved, int breakPointsFaced) {
         this.aces = aces;
         this.doubleFaults = doubleFaults;
         this.servePoints = servePoints;
@@ -24,45 +41,71 @@ public class MatchStats {
     }
 
     // Getters
-    public Integer getAces() { return aces; }
-    public Integer getDoubleFaults() { return doubleFaults; }
-    public Integer getServePoints() { return servePoints; }
-    public Integer getFirstServeIn() { return firstServeIn; }
-    public Integer getFirstServeWon() { return firstServeWon; }
-    public Integer getSecondServeWon() { return secondServeWon; }
-    public Integer getServiceGames() { return serviceGames; }
-    public Integer getBreakPointsSaved() { return breakPointsSaved; }
-    public Integer getBreakPointsFaced() { return breakPointsFaced; }
+    public Integer getAces() { return boxed(aces); }
+    public Integer getDoubleFaults() { return boxed(doubleFaults); }
+    public Integer getServePoints() { return boxed(servePoints); }
+    public Integer getFirstServeIn() { return boxed(firstServeIn); }
+    public Integer getFirstServeWon() { return boxed(firstServeWon); }
+    public Integer getSecondServeWon() { return boxed(secondServeWon); }
+    public Integer getServiceGames() { return boxed(serviceGames); }
+    public Integer getBreakPointsSaved() { return boxed(breakPointsSaved); }
+    public Integer getBreakPointsFaced() { return boxed(breakPointsFaced); }
+
+    // Primitive getters, returning the given value when the count is missing
+    public int getAces(int missing) { return aces != MISSING ? aces : missing; }
+    public int getDoubleFaults(int missing) { return doubleFaults != MISSING ? doubleFaults : missing; }
+    public int getServePoints(int missing) { return servePoints != MISSING ? servePoints : missing; }
+    public int getFirstServeIn(int missing) { return firstServeIn != MISSING ? firstServeIn : missing; }
+    public int getFirstServeWon(int missing) { return firstServeWon != MISSING ? firstServeWon : missing; }
+    public int getSecondServeWon(int missing) { return secondServeWon != MISSING ? secondServeWon : missing; }
+    public int getServiceGames(int missing) { return serviceGames != MISSING ? serviceGames : missing; }
+    public int getBreakPointsSaved(int missing) { return breakPointsSaved != MISSING ? breakPointsSaved : missing; }
+    public int getBreakPointsFaced(int missing) { return breakPointsFaced != MISSING ? breakPointsFaced : missing; }
 
     // Derived statistics
-    public Double getFirstServePercentage() {
-        return (servePoints != null && servePoints > 0 && firstServeIn != null)
-                ? (double) firstServeIn / servePoints : null;
+    public Double getFirstServePercentage() { return boxed(getFirstServePercentage(Double.NaN)); }
+    public Double getFirstServeWinPercentage() { return boxed(getFirstServeWinPercentage(Double.NaN)); }
+    public Double getSecondServeWinPercentage() { return boxed(getSecondServeWinPercentage(Double.NaN)); }
+    public Double getAceRate() { return boxed(getAceRate(Double.NaN)); }
+    public Double getDoubleFaultRate() { return boxed(getDoubleFaultRate(Double.NaN)); }
+    public Double getBreakPointSavePercentage() { return boxed(getBreakPointSavePercentage(Double.NaN)); }
+
+    // Derived statistics without allocation, returning the given value when undefined
+    public double getFirstServePercentage(double missing) {
+        return (servePoints > 0 && firstServeIn != MISSING) ? (double) firstServeIn / servePoints : missing;
     }
 
-    public Double getFirstServeWinPercentage() {
-        return (firstServeIn != null && firstServeIn > 0 && firstServeWon != null)
-                ? (double) firstServeWon / firstServeIn : null;
+    public double getFirstServeWinPercentage(double missing) {
+        return (firstServeIn > 0 && firstServeWon != MISSING) ? (double) firstServeWon / firstServeIn : missing;
     }
 
-    public Double getSecondServeWinPercentage() {
-        if (servePoints == null || firstServeIn == null || secondServeWon == null) return null;
+    public double getSecondServeWinPercentage(double missing) {
+        if (servePoints == MISSING || firstServeIn == MISSING || secondServeWon == MISSING) return missing;
         int secondServePoints = servePoints - firstServeIn;
-        return secondServePoints > 0 ? (double) secondServeWon / secondServePoints : null;
+        return secondServePoints > 0 ? (double) secondServeWon / secondServePoints : missing;
+    }
+
+    public double getAceRate(double missing) {
+        return (servePoints > 0 && aces != MISSING) ? (double) aces / servePoints : missing;
+    }
+
+    public double getDoubleFaultRate(double missing) {
+        return (servePoints > 0 && doubleFaults != MISSING) ? (double) doubleFaults / servePoints : missing;
+    }
+
+    public double getBreakPointSavePercentage(double missing) {
+        return (breakPointsFaced > 0 && breakPointsSaved != MISSING) ? (double) breakPointsSaved / breakPointsFaced : missing;
     }
 
-    public Double getAceRate() {
-        return (servePoints != null && servePoints > 0 && aces != null)
-                ? (double) aces / servePoints : null;
+    private static int orMissing(Integer value) {
+        return value != null ? value : MISSING;
     }
 
-    public Double getDoubleFaultRate() {
-        return (servePoints != null && servePoints > 0 && doubleFaults != null)
-                ? (double) doubleFaults / servePoints : null;
+    private static Integer boxed(int value) {
+        return value != MISSING ? value : null;
     }
 
-    public Double getBreakPointSavePercentage() {
-        return (breakPointsFaced != null && breakPointsFaced > 0 && breakPointsSaved != null)
-                ? (double) breakPointsSaved / breakPointsFaced : null;
+    private static Double boxed(double value) {
+        return !Double.isNaN(value) ? value : null;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+/**
+ * Process-wide symbol tables for the repeated text fields of the match data.
+ * Every loader shares them, so the same player id always gets the same code.
+ */
+public final class MatchSymbols {
+    public static final SymbolTable PLAYER_IDS = new SymbolTable();
+    public static final SymbolTable PLAYER_NAMES = new SymbolTable();
+    public static final SymbolTable COUNTRIES = new SymbolTable();
+    public static final SymbolTable HANDS = new SymbolTable();
+    public static final SymbolTable ENTRIES = new SymbolTable();
+    public static final SymbolTable TOURNEY_IDS = new SymbolTable();
+    public static final SymbolTable TOURNEY_NAMES = new SymbolTable();
+    public static final SymbolTable SURFACES = new SymbolTable();
+    public static final SymbolTable LEVELS = new SymbolTable();
+    public static final SymbolTable ROUNDS = new SymbolTable();
+
+    private MatchSymbols() {
+    }
+}
@@ -0,0 +1,365 @@
+import java.util.Arrays;
+
+/**
+ * Matches held as parallel primitive arrays, one per field, in the order they were added.
+ *
+ * Scans that walk every match (history replay, backtests, training) read a few dense
+ * arrays instead of chasing Match, Player and boxed field pointers. Text fields are stored
+ * as their {@link MatchSymbols} codes. Missing numbers read as {@link #MISSING}, or NaN
+ * for ages. {@link #row(int)} gives a view with the Match getters, and {@link #getMatch(int)}
+ * rebuilds an equal Match.
+ *
+ * Player names, hands, countries and heights are the shared {@link PlayerRegistry} variants
+ * the players already point at; seeds, entries, ages, ranks and points are per-row snapshots.
+ *
+ * Narrow columns (short ranks, seeds, minutes and stats) reject values that do not fit
+ * rather than wrap.
+ */
+public class MatchTable {
+    public static final int WINNER = 0;
+    public static final int LOSER = 1;
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    // Serve stat indices, in MatchStats constructor order
+    public static final int ACES = 0;
+    public static final int DOUBLE_FAULTS = 1;
+    public static final int SERVE_POINTS = 2;
+    public static final int FIRST_SERVE_IN = 3;
+    public static final int FIRST_SERVE_WON = 4;
+    public static final int SECOND_SERVE_WON = 5;
+    public static final int SERVICE_GAMES = 6;
+    public static final int BREAK_POINTS_SAVED = 7;
+    public static final int BREAK_POINTS_FACED = 8;
+    private static final int STAT_COUNT = 9;
+
+    private static final short SHORT_MISSING = Short.MIN_VALUE;
+
+    private int size;
+
+    // Tournament columns
+    private int[] tourneyCodes;
+    private int[] tourneyNameCodes;
+    private byte[] surfaceCodes;
+    private byte[] levelCodes;
+    private byte[] roundCodes;
+    private short[] drawSizes;
+    private int[] dates;
+    private int[] matchNums;
+    private short[] bestOf;
+    private short[] minutes;
+    private MatchScore[] scores;
+
+    // Player columns, indexed [side][row]
+    // Static attributes are shared PlayerRegistry variants; the rest are per-match snapshots
+    private final int[][] playerCodes = new int[2][];
+    private final PlayerRegistry.Attributes[][] attributes = new PlayerRegistry.Attributes[2][];
+    private final byte[][] entryCodes = new byte[2][];
+    private final short[][] seeds = new short[2][];
+    private final double[][] ages = new double[2][];
+    private final short[][] ranks = new short[2][];
+    private final int[][] rankPoints = new int[2][];
+
+    // Serve stats, indexed [side][stat][row]; hasStats is false where the match had no MatchStats
+    private final short[][][] stats = new short[2][STAT_COUNT][];
+    private final boolean[][] hasStats = new boolean[2][];
+
+    public MatchTable() {
+        this(1024);
+    }
+
+    public MatchTable(int initialCapacity) {
+        resize(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Copy matches into a new table, keeping their order
+     */
+    public static MatchTable of(Iterable<Match> matches) {
+        MatchTable table = new MatchTable();
+        for (Match match : matches) {
+            table.add(match);
+        }
+        return table;
+    }
+
+    /**
+     * Append a match and return its row
+     */
+    public int add(Match match) {
+        if (size == dates.length) {
+            resize(size * 2);
+        }
+
+        int row = size;
+        tourneyCodes[row] = match.getTourneyCode();
+        tourneyNameCodes[row] = MatchSymbols.TOURNEY_NAMES.intern(match.getTourneyName());
+        surfaceCodes[row] = toByte(match.getSurfaceCode(), "surface");
+        levelCodes[row] = toByte(match.getTourneyLevelCode(), "tourney_level");
+        roundCodes[row] = toByte(match.getRoundCode(), "round");
+        drawSizes[row] = toShort(match.getDrawSize(), "draw_size");
+        dates[row] = orMissing(match.getTourneyDate());
+        matchNums[row] = orMissing(match.getMatchNum());
+        bestOf[row] = toShort(match.getBestOf(), "best_of");
+        minutes[row] = toShort(match.getMinutes(), "minutes");
+        scores[row] = match.getMatchScore();
+
+        addPlayer(WINNER, row, match.getWinner());
+        addPlayer(LOSER, row, match.getLoser());
+        addStats(WINNER, row, match.getWinnerStats());
+        addStats(LOSER, row, match.getLoserStats());
+
+        size++;
+        return row;
+    }
+
+    private void addPlayer(int side, int row, Player player) {
+        playerCodes[side][row] = player.getPlayerCode();
+        attributes[side][row] = player.getAttributes();
+        entryCodes[side][row] = toByte(MatchSymbols.ENTRIES.intern(player.getEntry()), "entry");
+        seeds[side][row] = toShort(player.getSeed(MISSING), "seed");
+        ages[side][row] = player.getAge(Double.NaN);
+        ranks[side][row] = toShort(player.getRank(MISSING), "rank");
+        rankPoints[side][row] = player.getRankPoints(MISSING);
+    }
+
+    private void addStats(int side, int row, MatchStats matchStats) {
+        hasStats[side][row] = matchStats != null;
+        short[][] sideStats = stats[side];
+        if (matchStats == null) {
+            for (int stat = 0; stat < STAT_COUNT; stat++) sideStats[stat][row] = SHORT_MISSING;
+            return;
+        }
+        sideStats[ACES][row] = toShort(matchStats.getAces(MISSING), "ace");
+        sideStats[DOUBLE_FAULTS][row] = toShort(matchStats.getDoubleFaults(MISSING), "df");
+        sideStats[SERVE_POINTS][row] = toShort(matchStats.getServePoints(MISSING), "svpt");
+        sideStats[FIRST_SERVE_IN][row] = toShort(matchStats.getFirstServeIn(MISSING), "1stIn");
+        sideStats[FIRST_SERVE_WON][row] = toShort(matchStats.getFirstServeWon(MISSING), "1stWon");
+        sideStats[SECOND_SERVE_WON][row] = toShort(matchStats.getSecondServeWon(MISSING), "2ndWon");
+        sideStats[SERVICE_GAMES][row] = toShort(matchStats.getServiceGames(MISSING), "SvGms");
+        sideStats[BREAK_POINTS_SAVED][row] = toShort(matchStats.getBreakPointsSaved(MISSING), "bpSaved");
+        sideStats[BREAK_POINTS_FACED][row] = toShort(matchStats.getBreakPointsFaced(MISSING), "bpFaced");
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Primitive column access; numbers return MISSING (ages NaN) when absent, codes -1
+
+    public int getTourneyCode(int row) { return tourneyCodes[check(row)]; }
+    public int getSurfaceCode(int row) { return surfaceCodes[check(row)]; }
+    public int getTourneyLevelCode(int row) { return levelCodes[check(row)]; }
+    public int getRoundCode(int row) { return roundCodes[check(row)]; }
+    public int getTourneyDate(int row) { return dates[check(row)]; }
+    public int getDrawSize(int row, int missing) { return widen(drawSizes[check(row)], missing); }
+    public int getBestOf(int row, int missing) { return widen(bestOf[check(row)], missing); }
+
+    public int getPlayerCode(int row, int side) { return playerCodes[side][check(row)]; }
+    public PlayerRegistry.Profile getProfile(int row, int side) { return attributes[side][check(row)].profile; }
+    public int getSeed(int row, int side, int missing) { return widen(seeds[side][check(row)], missing); }
+    public int getHeight(int row, int side, int missing) {
+        int height = attributes[side][check(row)].height;
+        return height != MISSING ? height : missing;
+    }
+
+    public int getRank(int row, int side, int missing) { return widen(ranks[side][check(row)], missing); }
+
+    public double getAge(int row, int side, double missing) {
+        double age = ages[side][check(row)];
+        return !Double.isNaN(age) ? age : missing;
+    }
+
+    public int getRankPoints(int row, int side, int missing) {
+        int points = rankPoints[side][check(row)];
+        return points != MISSING ? points : missing;
+    }
+
+    public int getStat(int row, int side, int stat, int missing) {
+        return widen(stats[side][stat][check(row)], missing);
+    }
+
+    /** Parsed score, or null if the match had none */
+    public MatchScore getMatchScore(int row) {
+        return scores[check(row)];
+    }
+
+    public boolean isWalkover(int row) {
+        MatchScore score = getMatchScore(row);
+        return score != null && score.isWalkover();
+    }
+
+    public boolean hasStats(int row, int side) {
+        return hasStats[side][check(row)];
+    }
+
+    // Text columns as their canonical Strings
+
+    public String getSurface(int row) { return MatchSymbols.SURFACES.symbol(getSurfaceCode(row)); }
+    public String getTourneyLevel(int row) { return MatchSymbols.LEVELS.symbol(getTourneyLevelCode(row)); }
+    public String getRound(int row) { return MatchSymbols.ROUNDS.symbol(getRoundCode(row)); }
+    public String getPlayerId(int row, int side) { return MatchSymbols.PLAYER_IDS.symbol(getPlayerCode(row, side)); }
+    public String getHand(int row, int side) { return attributes[side][check(row)].hand; }
+    public String getEntry(int row, int side) { return MatchSymbols.ENTRIES.symbol(entryCodes[side][check(row)]); }
+
+    /**
+     * One side's serve stats, or null if the match had none
+     */
+    public MatchStats getStats(int row, int side) {
+        if (!hasStats(row, side)) return null;
+        short[][] sideStats = stats[side];
+        return new MatchStats(
+                widen(sideStats[ACES][row], MatchStats.MISSING),
+                widen(sideStats[DOUBLE_FAULTS][row], MatchStats.MISSING),
+                widen(sideStats[SERVE_POINTS][row], MatchStats.MISSING),
+                widen(sideStats[FIRST_SERVE_IN][row], MatchStats.MISSING),
+                widen(sideStats[FIRST_SERVE_WON][row], MatchStats.MISSING),
+                widen(sideStats[SECOND_SERVE_WON][row], MatchStats.MISSING),
+                widen(sideStats[SERVICE_GAMES][row], MatchStats.MISSING),
+                widen(sideStats[BREAK_POINTS_SAVED][row], MatchStats.MISSING),
+                widen(sideStats[BREAK_POINTS_FACED][row], MatchStats.MISSING));
+    }
+
+    public Player getPlayer(int row, int side) {
+        check(row);
+        return new Player(attributes[side][row],
+                getSeed(row, side, Player.MISSING),
+                getEntry(row, side),
+                getAge(row, side, Double.NaN),
+                getRank(row, side, Player.MISSING),
+                getRankPoints(row, side, Player.MISSING));
+    }
+
+    /**
+     * Rebuild the match stored at a row
+     */
+    public Match getMatch(int row) {
+        check(row);
+        return new Match.Builder()
+                .tourneyId(MatchSymbols.TOURNEY_IDS.symbol(tourneyCodes[row]))
+                .tourneyName(MatchSymbols.TOURNEY_NAMES.symbol(tourneyNameCodes[row]))
+                .surface(getSurface(row))
+                .drawSize(boxed(drawSizes[row]))
+                .tourneyLevel(getTourneyLevel(row))
+                .tourneyDate(dates[row] != MISSING ? dates[row] : null)
+                .matchNum(matchNums[row] != MISSING ? matchNums[row] : null)
+                .round(getRound(row))
+                .bestOf(boxed(bestOf[row]))
+                .minutes(boxed(minutes[row]))
+                .score(scores[row])
+                .winner(getPlayer(row, WINNER))
+                .loser(getPlayer(row, LOSER))
+                .winnerStats(getStats(row, WINNER))
+                .loserStats(getStats(row, LOSER))
+                .build();
+    }
+
+    /**
+     * A view of one row with the same getters as Match. Players and stats are built on
+     * each call, so hot loops should prefer the primitive column accessors.
+     */
+    public Row row(int row) {
+        return new Row(check(row));
+    }
+
+    public class Row {
+        private final int row;
+
+        private Row(int row) {
+            this.row = row;
+        }
+
+        public int getIndex() { return row; }
+        public String getTourneyId() { return MatchSymbols.TOURNEY_IDS.symbol(tourneyCodes[row]); }
+        public String getTourneyName() { return MatchSymbols.TOURNEY_NAMES.symbol(tourneyNameCodes[row]); }
+        public String getSurface() { return MatchTable.this.getSurface(row); }
+        public Integer getDrawSize() { return boxed(drawSizes[row]); }
+        public String getTourneyLevel() { return MatchTable.this.getTourneyLevel(row); }
+        public Integer getTourneyDate() { return dates[row] != MISSING ? dates[row] : null; }
+        public Integer getMatchNum() { return matchNums[row] != MISSING ? matchNums[row] : null; }
+        public String getRound() { return MatchTable.this.getRound(row); }
+        public Integer getBestOf() { return boxed(bestOf[row]); }
+        public Integer getMinutes() { return boxed(minutes[row]); }
+        public String getScore() { return scores[row] != null ? scores[row].toString() : null; }
+        public MatchScore getMatchScore() { return scores[row]; }
+        public Player getWinner() { return getPlayer(row, WINNER); }
+        public Player getLoser() { return getPlayer(row, LOSER); }
+        public MatchStats getWinnerStats() { return getStats(row, WINNER); }
+        public MatchStats getLoserStats() { return getStats(row, LOSER); }
+        public int getTourneyCode() { return tourneyCodes[row]; }
+        public int getSurfaceCode() { return surfaceCodes[row]; }
+        public int getTourneyLevelCode() { return levelCodes[row]; }
+        public int getRoundCode() { return roundCodes[row]; }
+
+        public Match toMatch() { return getMatch(row); }
+    }
+
+    private int check(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return row;
+    }
+
+    private void resize(int capacity) {
+        tourneyCodes = Arrays.copyOf(orEmpty(tourneyCodes), capacity);
+        tourneyNameCodes = Arrays.copyOf(orEmpty(tourneyNameCodes), capacity);
+        surfaceCodes = Arrays.copyOf(orEmpty(surfaceCodes), capacity);
+        levelCodes = Arrays.copyOf(orEmpty(levelCodes), capacity);
+        roundCodes = Arrays.copyOf(orEmpty(roundCodes), capacity);
+        drawSizes = Arrays.copyOf(orEmpty(drawSizes), capacity);
+        dates = Arrays.copyOf(orEmpty(dates), capacity);
+        matchNums = Arrays.copyOf(orEmpty(matchNums), capacity);
+        bestOf = Arrays.copyOf(orEmpty(bestOf), capacity);
+        minutes = Arrays.copyOf(orEmpty(minutes), capacity);
+        scores = Arrays.copyOf(scores != null ? scores : new MatchScore[0], capacity);
+
+        for (int side = WINNER; side <= LOSER; side++) {
+            playerCodes[side] = Arrays.copyOf(orEmpty(playerCodes[side]), capacity);
+            attributes[side] = Arrays.copyOf(attributes[side] != null ? attributes[side] : new PlayerRegistry.Attributes[0], capacity);
+            entryCodes[side] = Arrays.copyOf(orEmpty(entryCodes[side]), capacity);
+            seeds[side] = Arrays.copyOf(orEmpty(seeds[side]), capacity);
+            ages[side] = Arrays.copyOf(ages[side] != null ? ages[side] : new double[0], capacity);
+            ranks[side] = Arrays.copyOf(orEmpty(ranks[side]), capacity);
+            rankPoints[side] = Arrays.copyOf(orEmpty(rankPoints[side]), capacity);
+            hasStats[side] = Arrays.copyOf(hasStats[side] != null ? hasStats[side] : new boolean[0], capacity);
+            for (int stat = 0; stat < STAT_COUNT; stat++) {
+                stats[side][stat] = Arrays.copyOf(orEmpty(stats[side][stat]), capacity);
+            }
+        }
+    }
+
+    private static int[] orEmpty(int[] values) { return values != null ? values : new int[0]; }
+    private static short[] orEmpty(short[] values) { return values != null ? values : new short[0]; }
+    private static byte[] orEmpty(byte[] values) { return values != null ? values : new byte[0]; }
+
+    private static int orMissing(Integer value) {
+        return value != null ? value : MISSING;
+    }
+
+    private static int widen(short value, int missing) {
+        return value != SHORT_MISSING ? value : missing;
+    }
+
+    private static Integer boxed(short value) {
+        return value != SHORT_MISSING ? (int) value : null;
+    }
+
+    private static short toShort(Integer value, String column) {
+        return toShort(value != null ? value : MISSING, column);
+    }
+
+    private static short toShort(int value, String column) {
+        if (value == MISSING) return SHORT_MISSING;
+        if (value <= SHORT_MISSING || value > Short.MAX_VALUE) {
+            throw new IllegalArgumentException(column + " value " + value + " does not fit a MatchTable column");
+        }
+        return (short) value;
+    }
+
+    private static byte toByte(int code, String column) {
+        if (code > Byte.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct " + column + " values for a MatchTable column");
+        }
+        return (byte) code;
+    }
+}
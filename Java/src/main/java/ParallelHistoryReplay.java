@@ -0,0 +1,274 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Stream;
+
+/**
+ * Replays matches into a {@link PlayerHistoryManager} on several threads.
+ *
+ * Every match is split into two per-player events (the winner's and the loser's side), and
+ * events are sharded by player id. A player's history only changes with that player's own
+ * events, so each shard can apply its events in match order without coordinating with the
+ * others. The winner's event also counts the meeting in the shared {@link HeadToHeadStore};
+ * those counts do not depend on order. Overall Elo does depend on both players, so each chunk's
+ * ratings are worked out in match order on the calling thread before its events are applied,
+ * and its matches go to the manager's Glicko-2 engine in order once they are.
+ * The result is the same as replaying the matches one at a time with
+ * {@link PlayerHistoryManager#updateWithMatch(Match)}.
+ *
+ * Streams are consumed in chunks, so memory stays bounded by the chunk size rather than the
+ * number of matches. Matches must be in chronological order and have both player ids.
+ */
+public class ParallelHistoryReplay {
+    static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final PlayerHistoryManager historyManager;
+    private final ForkJoinPool pool;
+    private final int shardCount;
+    private final int chunkSize;
+
+    public ParallelHistoryReplay(PlayerHistoryManager historyManager) {
+        this(historyManager, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    public ParallelHistoryReplay(PlayerHistoryManager historyManager, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.historyManager = historyManager;
+        this.pool = pool;
+        this.shardCount = Math.max(1, pool.getParallelism());
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Replay a chronologically ordered list. Returns the number of matches applied.
+     */
+    public int replay(List<Match> matches) {
+        return replay(matches.stream());
+    }
+
+    /**
+     * Replay a chronologically ordered stream. Returns the number of matches applied.
+     */
+    public int replay(Stream<Match> matches) {
+        Chunk chunk = new Chunk(chunkSize);
+        boolean excludeWalkovers = historyManager.isExcludeWalkovers();
+        int applied = 0;
+
+        Iterator<Match> iterator = matches.iterator();
+        while (iterator.hasNext()) {
+            Match match = iterator.next();
+            if (excludeWalkovers && match.isWalkover()) continue;
+            chunk.add(match.getWinner(), match.getLoser(), match.getSurface(), match.getTourneyLevel(), match.getTourneyDate());
+            if (chunk.size == chunkSize) {
+                applied += apply(chunk);
+            }
+        }
+        return applied + apply(chunk);
+    }
+
+    /**
+     * Replay every row of a table in order. Returns the number of matches applied.
+     */
+    public int replay(MatchTable table) {
+        Chunk chunk = new Chunk(chunkSize);
+        boolean excludeWalkovers = historyManager.isExcludeWalkovers();
+        int applied = 0;
+
+        for (int row = 0; row < table.size(); row++) {
+            if (excludeWalkovers && table.isWalkover(row)) continue;
+            int date = table.getTourneyDate(row);
+            chunk.add(table.getPlayerId(row, MatchTable.WINNER), table.getPlayerCode(row, MatchTable.WINNER),
+                    table.getRank(row, MatchTable.WINNER, 0),
+                    table.getPlayerId(row, MatchTable.LOSER), table.getPlayerCode(row, MatchTable.LOSER),
+                    table.getRank(row, MatchTable.LOSER, 0),
+                    table.getSurface(row), table.getTourneyLevel(row), date != MatchTable.MISSING ? date : null);
+            if (chunk.size == chunkSize) {
+                applied += apply(chunk);
+            }
+        }
+        return applied + apply(chunk);
+    }
+
+    /**
+     * Apply a chunk across all shards and wait for them, then empty it.
+     * Returns the number of matches in the chunk.
+     */
+    private int apply(Chunk chunk) {
+        int matches = chunk.size;
+        if (matches == 0) return 0;
+
+        chunk.rateElo(historyManager);
+        int[][] shardEvents = chunk.partition(shardCount);
+        if (shardCount == 1) {
+            applyEvents(chunk, shardEvents[0]);
+        } else {
+            List<ForkJoinTask<?>> tasks = new ArrayList<>(shardCount - 1);
+            for (int shard = 1; shard < shardCount; shard++) {
+                int[] events = shardEvents[shard];
+                tasks.add(pool.submit(() -> applyEvents(chunk, events)));
+            }
+            // The calling thread takes the first shard itself
+            applyEvents(chunk, shardEvents[0]);
+            for (ForkJoinTask<?> task : tasks) {
+                task.join();
+            }
+        }
+        for (int i = 0; i < matches; i++) {
+            historyManager.rateGlicko(chunk.winnerCodes[i], chunk.loserCodes[i], chunk.dates[i]);
+        }
+        chunk.clear();
+        return matches;
+    }
+
+    private void applyEvents(Chunk chunk, int[] events) {
+        for (int event : events) {
+            int match = event >>> 1;
+            boolean won = (event & 1) == 0;
+            if (won) {
+                historyManager.applyPlayerResult(chunk.winnerIds[match], true, chunk.surfaces[match], chunk.dates[match],
+                        chunk.loserRanks[match], chunk.levels[match], chunk.loserElos[match], chunk.winnerElosAfter[match],
+                        chunk.winnerSurfaceElosAfter[match]);
+            } else {
+                historyManager.applyPlayerResult(chunk.loserIds[match], false, chunk.surfaces[match], chunk.dates[match],
+                        chunk.winnerRanks[match], chunk.levels[match], chunk.winnerElos[match], chunk.loserElosAfter[match],
+                        chunk.loserSurfaceElosAfter[match]);
+            }
+            if (won) {
+                historyManager.recordHeadToHead(chunk.winnerCodes[match], chunk.loserCodes[match]);
+            }
+        }
+    }
+
+    /**
+     * A batch of matches in replay order. Events are encoded as match index * 2, plus one for
+     * the loser's side.
+     */
+    private static class Chunk {
+        final String[] winnerIds;
+        final String[] loserIds;
+        final int[] winnerCodes;
+        final int[] loserCodes;
+        final int[] winnerRanks;
+        final int[] loserRanks;
+        final String[] surfaces;
+        final String[] levels;
+        final Integer[] dates;
+        // Overall Elo going into and coming out of each match, and surface Elo coming out of it,
+        // filled in by rateElo
+        final double[] winnerElos;
+        final double[] loserElos;
+        final double[] winnerElosAfter;
+        final double[] loserElosAfter;
+        final double[] winnerSurfaceElosAfter;
+        final double[] loserSurfaceElosAfter;
+        int size;
+
+        Chunk(int capacity) {
+            winnerIds = new String[capacity];
+            loserIds = new String[capacity];
+            winnerCodes = new int[capacity];
+            loserCodes = new int[capacity];
+            winnerRanks = new int[capacity];
+            loserRanks = new int[capacity];
+            surfaces = new String[capacity];
+            levels = new String[capacity];
+            dates = new Integer[capacity];
+            winnerElos = new double[capacity];
+            loserElos = new double[capacity];
+            winnerElosAfter = new double[capacity];
+            loserElosAfter = new double[capacity];
+            winnerSurfaceElosAfter = new double[capacity];
+            loserSurfaceElosAfter = new double[capacity];
+        }
+
+        void add(Player winner, Player loser, String surface, String level, Integer date) {
+            add(winner.getPlayerId(), winner.getPlayerCode(), winner.getRank(0),
+                    loser.getPlayerId(), loser.getPlayerCode(), loser.getRank(0), surface, level, date);
+        }
+
+        void add(String winnerId, int winnerCode, int winnerRank, String loserId, int loserCode, int loserRank,
+                 String surface, String level, Integer date) {
+            winnerIds[size] = Objects.requireNonNull(winnerId, "winner id");
+            loserIds[size] = Objects.requireNonNull(loserId, "loser id");
+            winnerCodes[size] = winnerCode;
+            loserCodes[size] = loserCode;
+            winnerRanks[size] = winnerRank;
+            loserRanks[size] = loserRank;
+            surfaces[size] = surface;
+            levels[size] = level;
+            dates[size] = date;
+            size++;
+        }
+
+        /**
+         * Overall and surface Elo before and after each match, in match order, starting from
+         * the ratings the histories hold
+         */
+        void rateElo(PlayerHistoryManager historyManager) {
+            SurfaceEloEngine.Parameters elo = SurfaceEloEngine.Parameters.DEFAULT;
+            Map<String, Double> current = new HashMap<>();
+            Map<String, Map<String, Double>> currentBySurface = new HashMap<>();
+            for (int i = 0; i < size; i++) {
+                double winnerK = elo.kFactor(winnerRanks[i], levels[i]);
+                double loserK = elo.kFactor(loserRanks[i], levels[i]);
+                double winnerElo = current.computeIfAbsent(winnerIds[i], historyManager::overallElo);
+                double loserElo = current.computeIfAbsent(loserIds[i], historyManager::overallElo);
+                winnerElos[i] = winnerElo;
+                loserElos[i] = loserElo;
+                winnerElosAfter[i] = elo.winnerRating(winnerElo, loserElo, winnerK);
+                loserElosAfter[i] = elo.loserRating(loserElo, winnerElo, loserK);
+                current.put(winnerIds[i], winnerElosAfter[i]);
+                current.put(loserIds[i], loserElosAfter[i]);
+
+                String surface = surfaces[i] == null || surfaces[i].isEmpty() ? "Hard" : surfaces[i];
+                Map<String, Double> surfaceCurrent = currentBySurface.computeIfAbsent(surface, s -> new HashMap<>());
+                double winnerSurfaceElo = surfaceCurrent.computeIfAbsent(winnerIds[i], id -> historyManager.surfaceElo(id, surface));
+                double loserSurfaceElo = surfaceCurrent.computeIfAbsent(loserIds[i], id -> historyManager.surfaceElo(id, surface));
+                winnerSurfaceElosAfter[i] = elo.winnerRating(winnerSurfaceElo, loserSurfaceElo, winnerK);
+                loserSurfaceElosAfter[i] = elo.loserRating(loserSurfaceElo, winnerSurfaceElo, loserK);
+                surfaceCurrent.put(winnerIds[i], winnerSurfaceElosAfter[i]);
+                surfaceCurrent.put(loserIds[i], loserSurfaceElosAfter[i]);
+            }
+        }
+
+        /**
+         * Each shard's events in match order
+         */
+        int[][] partition(int shardCount) {
+            int[] counts = new int[shardCount];
+            int[] shards = new int[size * 2];
+            for (int i = 0; i < size; i++) {
+                shards[2 * i] = shardOf(winnerIds[i], shardCount);
+                shards[2 * i + 1] = shardOf(loserIds[i], shardCount);
+                counts[shards[2 * i]]++;
+                counts[shards[2 * i + 1]]++;
+            }
+
+            int[][] events = new int[shardCount][];
+            for (int shard = 0; shard < shardCount; shard++) {
+                events[shard] = new int[counts[shard]];
+                counts[shard] = 0;
+            }
+            for (int event = 0; event < shards.length; event++) {
+                int shard = shards[event];
+                events[shard][counts[shard]++] = event;
+            }
+            return events;
+        }
+
+        void clear() {
+            Arrays.fill(winnerIds, 0, size, null);
+            Arrays.fill(loserIds, 0, size, null);
+            Arrays.fill(surfaces, 0, size, null);
+            Arrays.fill(levels, 0, size, null);
+            Arrays.fill(dates, 0, size, null);
+            size = 0;
+        }
+
+        private static int shardOf(String playerId, int shardCount) {
+            return Math.floorMod(playerId.hashCode(), shardCount);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Loads the per-year ATP CSVs (e.g. Data/OriginalCSVs/2005.csv) concurrently on a fork-join pool
+ * and returns a single chronologically ordered list. Each year file is sorted on its own and the
+ * sorted runs are merged pairwise, so no global re-sort is needed.
+ */
+public class ParallelMatchLoader {
+    // Same fallback date used by the existing chronological sorts
+    static final int UNKNOWN_DATE = 20200101;
+
+    private final TennisDataLoader loader;
+    private final ForkJoinPool pool;
+    private volatile ParseReport lastParseReport;
+
+    public ParallelMatchLoader() {
+        this(new TennisDataLoader(), ForkJoinPool.commonPool());
+    }
+
+    public ParallelMatchLoader(TennisDataLoader loader, ForkJoinPool pool) {
+        this.loader = loader;
+        this.pool = pool;
+    }
+
+    /**
+     * Load all year files between fromYear and toYear (inclusive) found in the directory.
+     * Matches are ordered by tourney date; ties keep year-file order, then row order.
+     */
+    public List<Match> loadYearRange(String directory, int fromYear, int toYear) throws IOException {
+        return loadYearRange(directory, fromYear, toYear, MatchFilter.all());
+    }
+
+    /**
+     * Same as {@link #loadYearRange(String, int, int)}, keeping only rows accepted by the filter
+     */
+    public List<Match> loadYearRange(String directory, int fromYear, int toYear, MatchFilter filter) throws IOException {
+        List<String> files = TennisDataLoader.yearFiles(directory, fromYear, toYear);
+
+        LoadTask task = new LoadTask(files, 0, files.size(), filter);
+        try {
+            pool.invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        lastParseReport = task.report;
+        if (task.report.hasRejections()) {
+            System.err.println(task.report.summary());
+        }
+        return task.getRawResult().matches;
+    }
+
+    /**
+     * Combined parse report of every file in the most recent load
+     */
+    public ParseReport getLastParseReport() {
+        return lastParseReport;
+    }
+
+    /**
+     * Loads a contiguous range of year files, splitting until a single file remains
+     */
+    private class LoadTask extends RecursiveTask<SortedRun> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<String> files;
+        private final int from;
+        private final int to;
+        private final MatchFilter filter;
+        ParseReport report;
+
+        LoadTask(List<String> files, int from, int to, MatchFilter filter) {
+            this.files = files;
+            this.from = from;
+            this.to = to;
+            this.filter = filter;
+        }
+
+        @Override
+        protected SortedRun compute() {
+            if (to - from == 1) {
+                try {
+                    List<Match> matches = new ArrayList<>();
+                    report = loader.loadMatchesMapped(files.get(from), filter, matches::add);
+                    return SortedRun.sort(matches);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            int mid = (from + to) >>> 1;
+            LoadTask earlier = new LoadTask(files, from, mid, filter);
+            earlier.fork();
+            LoadTask laterTask = new LoadTask(files, mid, to, filter);
+            SortedRun later = laterTask.compute();
+            SortedRun merged = SortedRun.merge(earlier.join(), later);
+            report = earlier.report.merge(laterTask.report);
+            return merged;
+        }
+    }
+
+    /**
+     * Matches in date order together with their primitive sort keys
+     */
+    static class SortedRun {
+        final List<Match> matches;
+        final int[] dates;
+
+        SortedRun(List<Match> matches, int[] dates) {
+            this.matches = matches;
+            this.dates = dates;
+        }
+
+        /**
+         * Stable sort on primitive keys: the date goes in the high bits and the original
+         * row index in the low bits, so equal dates keep their file order.
+         */
+        static SortedRun sort(List<Match> matches) {
+            int size = matches.size();
+            long[] keys = new long[size];
+            for (int i = 0; i < size; i++) {
+                keys[i] = ((long) dateOf(matches.get(i)) << 32) | i;
+            }
+            Arrays.sort(keys);
+
+            List<Match> sorted = new ArrayList<>(size);
+            int[] dates = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted.add(matches.get((int) keys[i]));
+                dates[i] = (int) (keys[i] >>> 32);
+            }
+            return new SortedRun(sorted, dates);
+        }
+
+        /**
+         * Merge two runs; on equal dates the earlier run wins so the result stays stable
+         */
+        static SortedRun merge(SortedRun earlier, SortedRun later) {
+            int size = earlier.dates.length + later.dates.length;
+            List<Match> merged = new ArrayList<>(size);
+            int[] dates = new int[size];
+
+            int i = 0, j = 0, k = 0;
+            while (i < earlier.dates.length && j < later.dates.length) {
+                if (later.dates[j] < earlier.dates[i]) {
+                    dates[k++] = later.dates[j];
+                    merged.add(later.matches.get(j++));
+                } else {
+                    dates[k++] = earlier.dates[i];
+                    merged.add(earlier.matches.get(i++));
+                }
+            }
+            while (i < earlier.dates.length) {
+                dates[k++] = earlier.dates[i];
+                merged.add(earlier.matches.get(i++));
+            }
+            while (j < later.dates.length) {
+                dates[k++] = later.dates[j];
+                merged.add(later.matches.get(j++));
+            }
+            return new SortedRun(merged, dates);
+        }
+
+        static int dateOf(Match match) {
+            Integer date = match.getTourneyDate();
+            return date != null ? date : UNKNOWN_DATE;
+        }
+    }
+}
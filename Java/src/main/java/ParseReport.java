@@ -0,0 +1,141 @@
+import java.util.*;
+
+/**
+ * Counts what went wrong while parsing a match file: malformed cells per column,
+ * rows shorter than the header, and rejected rows by cause.
+ *
+ * Bad numeric cells still load as null, as before; the report just makes them visible
+ * without printing anything per row.
+ */
+public class ParseReport {
+    private final String source;
+    private final String[] columns;
+    private final int[] malformedCells;
+    private final Map<String, Integer> rejections = new TreeMap<>();
+    private int sourceCount = 1;
+    private int rowsRead;
+    private int rowsFiltered;
+    private int rowsAccepted;
+    private int shortRows;
+    private long endOffset = -1;
+
+    public ParseReport(String source, String[] columns) {
+        this.source = source;
+        this.columns = columns.clone();
+        this.malformedCells = new int[columns.length];
+    }
+
+    void rowRead(int fieldCount) {
+        rowsRead++;
+        if (fieldCount < columns.length) shortRows++;
+    }
+
+    void rowFiltered() {
+        rowsFiltered++;
+    }
+
+    void rowAccepted() {
+        rowsAccepted++;
+    }
+
+    void rowRejected(String cause) {
+        rejections.merge(cause, 1, Integer::sum);
+    }
+
+    /**
+     * A non-blank cell that could not be parsed as the column's type
+     */
+    void malformedCell(int column) {
+        if (column >= 0 && column < malformedCells.length) malformedCells[column]++;
+    }
+
+    /**
+     * The file was read up to this byte offset, just past the last row read
+     */
+    void readTo(long offset) {
+        endOffset = offset;
+    }
+
+    /**
+     * Combine with the report of another file. Columns are matched by name.
+     */
+    public ParseReport merge(ParseReport other) {
+        LinkedHashSet<String> names = new LinkedHashSet<>(Arrays.asList(columns));
+        names.addAll(Arrays.asList(other.columns));
+
+        ParseReport merged = new ParseReport(source + ", " + other.source, names.toArray(new String[0]));
+        merged.sourceCount = sourceCount + other.sourceCount;
+        for (ParseReport part : Arrays.asList(this, other)) {
+            merged.rowsRead += part.rowsRead;
+            merged.rowsFiltered += part.rowsFiltered;
+            merged.rowsAccepted += part.rowsAccepted;
+            merged.shortRows += part.shortRows;
+            part.rejections.forEach((cause, count) -> merged.rejections.merge(cause, count, Integer::sum));
+            for (int i = 0; i < part.columns.length; i++) {
+                merged.malformedCells[Arrays.asList(merged.columns).indexOf(part.columns[i])] += part.malformedCells[i];
+            }
+        }
+        return merged;
+    }
+
+    public String getSource() { return source; }
+    public int getRowsRead() { return rowsRead; }
+    public int getRowsFiltered() { return rowsFiltered; }
+    public int getRowsAccepted() { return rowsAccepted; }
+    public int getShortRows() { return shortRows; }
+    /** Byte offset just past the last row read from a mapped file, or -1 for other reports */
+    public long getEndOffset() { return endOffset; }
+
+    public int getRowsRejected() {
+        int total = 0;
+        for (int count : rejections.values()) total += count;
+        return total;
+    }
+
+    /** Rejected row counts keyed by cause */
+    public Map<String, Integer> getRejectionCauses() {
+        return Collections.unmodifiableMap(rejections);
+    }
+
+    public int getMalformedCells(String column) {
+        int index = Arrays.asList(columns).indexOf(column);
+        return index >= 0 ? malformedCells[index] : 0;
+    }
+
+    /** Malformed cell counts for every column that had any */
+    public Map<String, Integer> getMalformedCellsByColumn() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            if (malformedCells[i] > 0) counts.put(columns[i], malformedCells[i]);
+        }
+        return counts;
+    }
+
+    public boolean hasRejections() {
+        return !rejections.isEmpty();
+    }
+
+    /**
+     * Multi-line summary of the counts, suitable for a log
+     */
+    public String summary() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("Parsed %s: %d rows read, %d accepted, %d filtered, %d rejected",
+                sourceCount == 1 ? source : sourceCount + " files", rowsRead, rowsAccepted, rowsFiltered, getRowsRejected()));
+        if (shortRows > 0) {
+            sb.append(String.format("%n  %d rows shorter than the header", shortRows));
+        }
+        rejections.forEach((cause, count) -> sb.append(String.format("%n  rejected %d: %s", count, cause)));
+
+        Map<String, Integer> malformed = getMalformedCellsByColumn();
+        if (!malformed.isEmpty()) {
+            sb.append(String.format("%n  malformed cells (read as missing): %s", malformed));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
@@ -1,39 +1,87 @@
+/**
+ * A player as of one match. Id, name, hand, country and height are shared through
+ * {@link PlayerRegistry}; seed, entry, age, rank and points belong to the match.
+ */
 public class Player {
-    private final String playerId;
-    private final String name;
-    private final String hand;
-    private final String nationality;
-    private final Integer seed;
+    /** Sentinel for a missing seed, height, rank or ranking points; a missing age is NaN */
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private final PlayerRegistry.Attributes attributes;
+    private final int seed;
     private final String entry;
-    private final Integer height;
-    private final Double age;
-    private final Integer rank;
-    private final Integer rankPoints;
+    private final double age;
+    private final int rank;
+    private final int rankPoints;
 
+    /**
+     * Registers the id and attributes in the shared tables; see {@link #unregistered} for players
+     * that exist only for one prediction
+     */
     public Player(String playerId, String name, String hand, String nationality,
                   Integer seed, String entry, Integer height, Double age,
                   Integer rank, Integer rankPoints) {
-        this.playerId = playerId;
-        this.name = name;
-        this.hand = hand;
-        this.nationality = nationality;
+        this(PlayerRegistry.SHARED.attributes(MatchSymbols.PLAYER_IDS.intern(playerId), name, hand, nationality,
+                        orMissing(height), 0),
+                orMissing(seed), entry, age != null ? age : Double.NaN, orMissing(rank), orMissing(rankPoints));
+    }
+
+    /**
+     * A player for a one-off prediction, e.g. one named on a bookmaker's page. Nothing is added to
+     * {@link MatchSymbols#PLAYER_IDS} or {@link PlayerRegistry}: an id seen in the data keeps its
+     * profile, any other id is dropped.
+     */
+    public static Player unregistered(String playerId, String name, String hand, String nationality,
+                                      Integer seed, String entry, Integer height, Double age,
+                                      Integer rank, Integer rankPoints) {
+        return new Player(PlayerRegistry.SHARED.detached(MatchSymbols.PLAYER_IDS.code(playerId), name, hand,
+                        nationality, orMissing(height)),
+                orMissing(seed), entry, age != null ? age : Double.NaN, orMissing(rank), orMissing(rankPoints));
+    }
+
+    /**
+     * Used by the loaders, which register the static attributes themselves and parse numbers as primitives
+     */
+    Player(PlayerRegistry.Attributes attributes, int seed, String entry, double age, int rank, int rankPoints) {
+        this.attributes = attributes;
         this.seed = seed;
         this.entry = entry;
-        this.height = height;
         this.age = age;
         this.rank = rank;
         this.rankPoints = rankPoints;
     }
 
     // Getters
-    public String getPlayerId() { return playerId; }
-    public String getName() { return name; }
-    public String getHand() { return hand; }
-    public String getNationality() { return nationality; }
-    public Integer getSeed() { return seed; }
+    public String getPlayerId() { return MatchSymbols.PLAYER_IDS.symbol(getPlayerCode()); }
+    /** Dense code of the player id in {@link MatchSymbols#PLAYER_IDS}, or -1 without an id */
+    public int getPlayerCode() { return attributes.getPlayerCode(); }
+    /** The registry's stable handle for this player, or null without an id */
+    public PlayerRegistry.Profile getProfile() { return attributes.profile; }
+    public String getName() { return attributes.name; }
+    public String getHand() { return attributes.hand; }
+    public String getNationality() { return attributes.nationality; }
+    public Integer getSeed() { return boxed(seed); }
     public String getEntry() { return entry; }
-    public Integer getHeight() { return height; }
-    public Double getAge() { return age; }
-    public Integer getRank() { return rank; }
-    public Integer getRankPoints() { return rankPoints; }
+    public Integer getHeight() { return boxed(attributes.height); }
+    public Double getAge() { return !Double.isNaN(age) ? age : null; }
+    public Integer getRank() { return boxed(rank); }
+    public Integer getRankPoints() { return boxed(rankPoints); }
+
+    // Primitive getters, returning the given value when the attribute is missing
+    public int getSeed(int missing) { return seed != MISSING ? seed : missing; }
+    public int getHeight(int missing) { return attributes.height != MISSING ? attributes.height : missing; }
+    public double getAge(double missing) { return !Double.isNaN(age) ? age : missing; }
+    public int getRank(int missing) { return rank != MISSING ? rank : missing; }
+    public int getRankPoints(int missing) { return rankPoints != MISSING ? rankPoints : missing; }
+
+    PlayerRegistry.Attributes getAttributes() {
+        return attributes;
+    }
+
+    private static int orMissing(Integer value) {
+        return value != null ? value : MISSING;
+    }
+
+    private static Integer boxed(int value) {
+        return value != MISSING ? value : null;
+    }
 }
@@ -1,109 +1,259 @@
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
 
 /**
- * Enhanced PlayerHistory class with better ELO management and form tracking
+ * Enhanced PlayerHistory class with better ELO management and form tracking.
+ *
+ * Safe for one writer and any number of readers per player. Updates take the history's write
+ * lock; queries first run without locking and keep their answer only if no update happened
+ * meanwhile (seqlock-style), otherwise they run again under the read lock. Use
+ * {@link #read(Function)} to answer several queries from the same state.
+ *
+ * Unlocked queries only read plain fields and arrays. Per-surface state is kept in arrays indexed
+ * by {@link MatchSymbols#SURFACES} code, which the writer replaces with a larger copy rather than
+ * resizing in place, so a racing read sees stale values at worst and never loops on a
+ * half-updated structure.
  */
-public class PlayerHistory {
-    private final List<MatchResult> matchHistory = new ArrayList<>();
-    private final Map<String, SurfaceRecord> surfaceRecords = new HashMap<>();
-    private final Map<String, Double> surfaceElo = new HashMap<>();
-    private final Map<String, List<MatchResult>> surfaceSpecificHistory = new HashMap<>();
+public class PlayerHistory implements PlayerRecord {
+    private final StampedLock lock = new StampedLock();
+    private final View unlocked = new UnlockedView();
+
+    private final MatchResultBuffer matchHistory;
+    // Both indexed by MatchSymbols.SURFACES code; null and NaN where the player has none
+    private SurfaceRecord[] surfaceRecords = new SurfaceRecord[4];
+    private double[] surfaceElo = new double[0];
+    private double overallElo = 1500.0;
+    private double glickoRating = Glicko2Engine.DEFAULT_RATING;
+    private double glickoDeviation = Glicko2Engine.DEFAULT_DEVIATION;
+    private double glickoVolatility = Glicko2Engine.DEFAULT_VOLATILITY;
+    private int glickoPeriod = DateCodes.MISSING;
+    // Indexed by MatchSymbols.SURFACES code, created on a surface's first match
+    private MatchResultBuffer[] surfaceSpecificHistory = new MatchResultBuffer[4];
 
     // Time decay parameters for form calculation
     private static final double TIME_DECAY_FACTOR = 0.95;
-    private static final int MAX_HISTORY_SIZE = 500;
+    // Package-private so PlayerTimelineIndex can apply the same retention and weights
+    static final int MAX_HISTORY_SIZE = 500;
+    static final int MAX_SURFACE_HISTORY_SIZE = MAX_HISTORY_SIZE / 2;
+    static final double STREAK_DECAY_FACTOR = 0.8;
+    static final FormWeights FORM_WEIGHTS = new FormWeights(TIME_DECAY_FACTOR, STREAK_DECAY_FACTOR);
+    // Even results mixed into calendar-decayed form, so it drifts back to 0.5 during a break
+    private static final double CALENDAR_FORM_PRIOR_MATCHES = 2.0;
+
+    /**
+     * The queries available inside {@link #read(Function)}
+     */
+    public interface View extends PlayerRecord {
+        double getSurfaceElo(String surface);
+    }
 
     public PlayerHistory() {
-        // Initialize surface ELO ratings to baseline
-        surfaceElo.put("Hard", 1500.0);
-        surfaceElo.put("Clay", 1500.0);
-        surfaceElo.put("Grass", 1500.0);
-        surfaceElo.put("Carpet", 1500.0);
+        this(new MatchResultBuffer(MAX_HISTORY_SIZE));
+    }
 
-        // Initialize surface-specific history
-        surfaceSpecificHistory.put("Hard", new ArrayList<>());
-        surfaceSpecificHistory.put("Clay", new ArrayList<>());
-        surfaceSpecificHistory.put("Grass", new ArrayList<>());
-        surfaceSpecificHistory.put("Carpet", new ArrayList<>());
+    private PlayerHistory(MatchResultBuffer matchHistory) {
+        this.matchHistory = matchHistory;
+        // Initialize surface ELO ratings to baseline
+        for (String surface : new String[]{"Hard", "Clay", "Grass", "Carpet"}) {
+            setSurfaceElo(MatchSymbols.SURFACES.intern(surface), 1500.0);
+        }
     }
 
     public void addMatch(boolean won, String surface, Integer date) {
+        addMatch(won, surface, date, 0, null, Double.NaN);
+    }
+
+    /**
+     * Add a result with what is known about the opponent: their rank (0 or less if unknown)
+     * and their rating going into the match (NaN if unknown), plus the tournament level
+     */
+    public void addMatch(boolean won, String surface, Integer date, int opponentRank, String tourneyLevel,
+                         double opponentRating) {
         if (surface == null || surface.isEmpty()) {
             surface = "Hard";
         }
+        int surfaceCode = MatchSymbols.SURFACES.intern(surface);
+        int levelCode = MatchSymbols.LEVELS.intern(tourneyLevel);
+
+        long stamp = lock.writeLock();
+        try {
+            // Both buffers drop their oldest result once full
+            matchHistory.add(won, surfaceCode, date, opponentRank, levelCode, opponentRating);
+            surfaceBuffer(surfaceCode).add(won, surfaceCode, date, opponentRank, levelCode, opponentRating);
+
+            // Update surface-specific record
+            surfaceRecord(surfaceCode).addMatch(won);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
 
-        MatchResult result = new MatchResult(won, surface, date);
-        matchHistory.add(result);
+    /**
+     * Answer a group of queries from one consistent state of this history.
+     * The function may run more than once, so it must not have side effects.
+     */
+    public <T> T read(Function<? super View, T> queries) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T result = queries.apply(unlocked);
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                // A half-applied update can make the query fail; anything else is a real error
+                if (lock.validate(stamp)) throw e;
+            }
+        }
 
-        // Add to surface-specific history
-        surfaceSpecificHistory.computeIfAbsent(surface, k -> new ArrayList<>()).add(result);
+        stamp = lock.readLock();
+        try {
+            return queries.apply(unlocked);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
 
-        // Update surface-specific record
-        surfaceRecords.computeIfAbsent(surface, k -> new SurfaceRecord()).addMatch(won);
+    private double readDouble(ToDoubleFunction<View> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                double result = query.applyAsDouble(unlocked);
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                // As in read()
+                if (lock.validate(stamp)) throw e;
+            }
+        }
 
-        // Trim history if it gets too large
-        if (matchHistory.size() > MAX_HISTORY_SIZE) {
-            matchHistory.remove(0);
+        stamp = lock.readLock();
+        try {
+            return query.applyAsDouble(unlocked);
+        } finally {
+            lock.unlockRead(stamp);
         }
+    }
 
-        List<MatchResult> surfaceHistory = surfaceSpecificHistory.get(surface);
-        if (surfaceHistory != null && surfaceHistory.size() > MAX_HISTORY_SIZE / 2) {
-            surfaceHistory.remove(0);
+    private int readInt(ToIntFunction<View> query) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int result = query.applyAsInt(unlocked);
+                if (lock.validate(stamp)) return result;
+            } catch (RuntimeException e) {
+                // As in read()
+                if (lock.validate(stamp)) throw e;
+            }
         }
+
+        stamp = lock.readLock();
+        try {
+            return query.applyAsInt(unlocked);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private SurfaceRecord surfaceRecord(int surfaceCode) {
+        if (surfaceCode >= surfaceRecords.length) {
+            surfaceRecords = Arrays.copyOf(surfaceRecords, Math.max(surfaceCode + 1, surfaceRecords.length * 2));
+        }
+        SurfaceRecord record = surfaceRecords[surfaceCode];
+        if (record == null) {
+            record = new SurfaceRecord();
+            surfaceRecords[surfaceCode] = record;
+        }
+        return record;
+    }
+
+    private void setSurfaceElo(int surfaceCode, double elo) {
+        if (surfaceCode >= surfaceElo.length) {
+            double[] grown = Arrays.copyOf(surfaceElo, Math.max(surfaceCode + 1, surfaceElo.length * 2));
+            Arrays.fill(grown, surfaceElo.length, grown.length, Double.NaN);
+            grown[surfaceCode] = elo;
+            surfaceElo = grown;
+        } else {
+            surfaceElo[surfaceCode] = elo;
+        }
+    }
+
+    private MatchResultBuffer surfaceBuffer(int surfaceCode) {
+        if (surfaceCode >= surfaceSpecificHistory.length) {
+            surfaceSpecificHistory = Arrays.copyOf(surfaceSpecificHistory, Math.max(surfaceCode + 1, surfaceSpecificHistory.length * 2));
+        }
+        MatchResultBuffer buffer = surfaceSpecificHistory[surfaceCode];
+        if (buffer == null) {
+            buffer = new MatchResultBuffer(MAX_SURFACE_HISTORY_SIZE);
+            surfaceSpecificHistory[surfaceCode] = buffer;
+        }
+        return buffer;
+    }
+
+    /**
+     * Stored results on a surface, or null if the player has none there
+     */
+    private MatchResultBuffer surfaceHistory(String surface) {
+        int surfaceCode = MatchSymbols.SURFACES.code(surface);
+        MatchResultBuffer[] buffers = surfaceSpecificHistory;
+        return surfaceCode >= 0 && surfaceCode < buffers.length ? buffers[surfaceCode] : null;
     }
 
     /**
      * Calculate recent form with time decay
      */
     public double getRecentForm(int lastNMatches) {
+        return readDouble(view -> view.getRecentForm(lastNMatches));
+    }
+
+    private double recentForm(int lastNMatches) {
         if (matchHistory.isEmpty()) return 0.5;
 
-        double weightedWins = 0.0;
-        double totalWeight = 0.0;
         int matches = Math.min(lastNMatches, matchHistory.size());
-
-        for (int i = 0; i < matches; i++) {
-            int index = matchHistory.size() - 1 - i;
-            MatchResult match = matchHistory.get(index);
-
-            // Apply time decay (more recent matches have higher weight)
-            double weight = Math.pow(TIME_DECAY_FACTOR, i);
-            totalWeight += weight;
-
-            if (match.won) {
-                weightedWins += weight;
-            }
-        }
-
-        return totalWeight > 0 ? weightedWins / totalWeight : 0.5;
+        return decayedForm(matchHistory, matches);
     }
 
     /**
      * Calculate surface-specific form with improved time weighting
      */
     public double getSurfaceForm(String surface, int lastNMatches) {
+        return readDouble(view -> view.getSurfaceForm(surface, lastNMatches));
+    }
+
+    private double surfaceForm(String surface, int lastNMatches) {
         if (surface == null || surface.isEmpty()) {
             surface = "Hard";
         }
 
-        List<MatchResult> surfaceMatches = surfaceSpecificHistory.get(surface);
+        MatchResultBuffer surfaceMatches = surfaceHistory(surface);
         if (surfaceMatches == null || surfaceMatches.isEmpty()) {
             return 0.5;
         }
 
-        double weightedWins = 0.0;
-        double totalWeight = 0.0;
         int matches = Math.min(lastNMatches, surfaceMatches.size());
+        return decayedForm(surfaceMatches, matches);
+    }
 
-        for (int i = 0; i < matches; i++) {
-            int index = surfaceMatches.size() - 1 - i;
-            MatchResult match = surfaceMatches.get(index);
+    /**
+     * Win share of the newest results, each weighted by TIME_DECAY_FACTOR^i.
+     * Windows up to 64 come from the buffer's result mask in constant time.
+     */
+    private static double decayedForm(MatchResultBuffer results, int matches) {
+        if (matches > 0 && matches <= FormWeights.MAX_MASK_WINDOW) {
+            return FORM_WEIGHTS.form(results.recentResults(), matches);
+        }
 
-            // Apply time decay
-            double weight = Math.pow(TIME_DECAY_FACTOR, i);
+        double weightedWins = 0.0;
+        double totalWeight = 0.0;
+        for (int i = 0; i < matches; i++) {
+            // Apply time decay (more recent matches have higher weight)
+            double weight = FORM_WEIGHTS.decayWeight(i);
             totalWeight += weight;
 
-            if (match.won) {
+            if (results.won(i)) {
                 weightedWins += weight;
             }
         }
@@ -111,14 +261,61 @@ public class PlayerHistory {
         return totalWeight > 0 ? weightedWins / totalWeight : 0.5;
     }
 
+    /**
+     * Win share over roughly the last {@code days} days as of a yyyyMMdd date. Each result weighs
+     * exp(-age / days) by the calendar rather than by its position, and two even results are
+     * mixed in, so the share fades toward 0.5 while a player is away. Constant time for the
+     * {@link TimeDecay#TRACKED_WINDOWS} (30, 90, 180 and 365 days).
+     *
+     * The history only holds its current state, so the date can move forward from the latest
+     * result but not back before it; an unreadable date means the latest result's day.
+     *
+     * @throws IllegalArgumentException if {@code asOfDate} is before the latest result
+     */
+    public double getFormOverDays(int days, int asOfDate) {
+        return readDouble(view -> calendarForm(matchHistory, days, asOfDate));
+    }
+
+    /**
+     * As {@link #getFormOverDays(int, int)}, for the results on one surface
+     */
+    public double getSurfaceFormOverDays(String surface, int days, int asOfDate) {
+        return readDouble(view -> calendarForm(surfaceHistory(surface != null && !surface.isEmpty() ? surface : "Hard"),
+                days, asOfDate));
+    }
+
+    /**
+     * Number of results in roughly the last {@code days} days as of a yyyyMMdd date, each
+     * weighted by exp(-age / days): how active the player has been lately. The date is limited
+     * as in {@link #getFormOverDays(int, int)}.
+     */
+    public double getMatchesOverDays(int days, int asOfDate) {
+        return readDouble(view -> matchHistory.decayedMatches(days, DateCodes.toEpochDay(asOfDate)));
+    }
+
+    private static double calendarForm(MatchResultBuffer results, int days, int asOfDate) {
+        if (results == null) return 0.5;
+        int asOfDay = DateCodes.toEpochDay(asOfDate);
+        double wins = results.decayedWins(days, asOfDay);
+        double matches = results.decayedMatches(days, asOfDay);
+        return (wins + 0.5 * CALENDAR_FORM_PRIOR_MATCHES) / (matches + CALENDAR_FORM_PRIOR_MATCHES);
+    }
+
     /**
      * Get surface ELO rating
      */
     public double getSurfaceElo(String surface) {
+        return readDouble(view -> view.getSurfaceElo(surface));
+    }
+
+    private double surfaceElo(String surface) {
         if (surface == null || surface.isEmpty()) {
             surface = "Hard";
         }
-        return surfaceElo.getOrDefault(surface, 1500.0);
+        int surfaceCode = MatchSymbols.SURFACES.code(surface);
+        double[] elos = surfaceElo;
+        double elo = surfaceCode >= 0 && surfaceCode < elos.length ? elos[surfaceCode] : Double.NaN;
+        return Double.isNaN(elo) ? 1500.0 : elo;
     }
 
     /**
@@ -128,26 +325,106 @@ public class PlayerHistory {
         if (surface == null || surface.isEmpty()) {
             surface = "Hard";
         }
-        surfaceElo.put(surface, newElo);
+        long stamp = lock.writeLock();
+        try {
+            setSurfaceElo(MatchSymbols.SURFACES.intern(surface), newElo);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Rating across all surfaces, 1500 until one is set (see {@link SurfaceEloEngine})
+     */
+    public double getOverallElo() {
+        return readDouble(view -> overallElo);
+    }
+
+    public void updateOverallElo(double newElo) {
+        long stamp = lock.writeLock();
+        try {
+            overallElo = newElo;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Glicko-2 rating after the last rating period played (see {@link Glicko2Engine}). A period
+     * counts once it is rated, i.e. when a later one starts or
+     * {@link PlayerHistoryManager#closeRatingPeriod()} is called.
+     */
+    public double getGlickoRating() {
+        return readDouble(view -> glickoRating);
+    }
+
+    /**
+     * Glicko-2 deviation after the last rating period played
+     */
+    public double getGlickoDeviation() {
+        return readDouble(view -> glickoDeviation);
+    }
+
+    /**
+     * Glicko-2 deviation going into the rating period of a yyyyMMdd date: it grows with each
+     * period sat out since the last one played, so a player back from a long break reads as uncertain
+     */
+    public double getGlickoDeviation(int asOfDate) {
+        return readDouble(view -> {
+            int period = Glicko2Engine.period(asOfDate);
+            if (glickoPeriod == DateCodes.MISSING || period == DateCodes.MISSING) return glickoDeviation;
+            return Glicko2Engine.deviationAfterIdle(glickoDeviation, glickoVolatility, period - glickoPeriod - 1);
+        });
+    }
+
+    public double getGlickoVolatility() {
+        return readDouble(view -> glickoVolatility);
+    }
+
+    /**
+     * Rating period the Glicko-2 values were last updated in, or {@link DateCodes#MISSING}
+     */
+    public int getGlickoPeriod() {
+        return readInt(view -> glickoPeriod);
+    }
+
+    /**
+     * Set the Glicko-2 values after rating {@code period} (a {@link Glicko2Engine#period})
+     */
+    public void updateGlicko(double rating, double deviation, double volatility, int period) {
+        long stamp = lock.writeLock();
+        try {
+            glickoRating = rating;
+            glickoDeviation = deviation;
+            glickoVolatility = volatility;
+            glickoPeriod = period;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
      * Get momentum factor (winning/losing streak impact)
      */
     public double getMomentum(int lookbackMatches) {
+        return readDouble(view -> view.getMomentum(lookbackMatches));
+    }
+
+    private double momentum(int lookbackMatches) {
         if (matchHistory.isEmpty()) return 0.0;
 
         int matches = Math.min(lookbackMatches, matchHistory.size());
+        if (matches > 0 && matches <= FormWeights.MAX_MASK_WINDOW) {
+            return FORM_WEIGHTS.momentum(matchHistory.recentResults(), matches);
+        }
+
         double momentum = 0.0;
         double streakWeight = 1.0;
 
         for (int i = 0; i < matches; i++) {
-            int index = matchHistory.size() - 1 - i;
-            MatchResult match = matchHistory.get(index);
-
-            double result = match.won ? 1.0 : -1.0;
+            double result = matchHistory.won(i) ? 1.0 : -1.0;
             momentum += result * streakWeight;
-            streakWeight *= 0.8; // Decay weight for older matches
+            streakWeight *= STREAK_DECAY_FACTOR; // Decay weight for older matches
         }
 
         return Math.tanh(momentum / matches); // Normalize to [-1, 1]
@@ -157,71 +434,266 @@ public class PlayerHistory {
      * Get surface-specific ELO reliability (based on number of matches played)
      */
     public double getSurfaceEloReliability(String surface) {
-        List<MatchResult> surfaceMatches = surfaceSpecificHistory.get(surface);
-        if (surfaceMatches == null || surfaceMatches.isEmpty()) {
-            return 0.0;
-        }
-
         // Reliability increases with matches played, plateaus at 50 matches
-        int matchesPlayed = surfaceMatches.size();
-        return Math.min(1.0, matchesPlayed / 50.0);
+        int matchesPlayed = getSurfaceMatches(surface);
+        return matchesPlayed > 0 ? Math.min(1.0, matchesPlayed / 50.0) : 0.0;
+    }
+
+    /**
+     * Decay-weighted average rating of all the player's opponents, most recent weighing most.
+     * Kept up to date as matches are added, so reading it is constant time. 1500 without any.
+     */
+    public double getOpponentStrength() {
+        return readDouble(view -> matchHistory.opponentStrength(1500.0));
     }
 
     /**
-     * Calculate average opponent strength (for ELO adjustments)
+     * As {@link #getOpponentStrength()}, for the opponents met on one surface
+     */
+    public double getSurfaceOpponentStrength(String surface) {
+        return readDouble(view -> {
+            MatchResultBuffer matches = surfaceHistory(surface);
+            return matches != null ? matches.opponentStrength(1500.0) : 1500.0;
+        });
+    }
+
+    /**
+     * Plain average rating of the opponents in the last N results on a surface (all surfaces
+     * if null), skipping those without a rating; 1500 without any. Walks the results, unlike
+     * {@link #getSurfaceOpponentStrength(String)}.
      */
     public double getAverageOpponentStrength(String surface, int lastNMatches) {
-        // This would need opponent ranking data stored in MatchResult
-        // For now, return neutral value
-        return 1500.0;
+        return readDouble(view -> {
+            MatchResultBuffer matches = surface != null ? surfaceHistory(surface) : matchHistory;
+            if (matches == null) return 1500.0;
+            int count = Math.min(lastNMatches, matches.size());
+            double sum = 0.0;
+            int rated = 0;
+            for (int i = 0; i < count; i++) {
+                double rating = matches.opponentRating(i);
+                if (Double.isNaN(rating)) continue;
+                sum += rating;
+                rated++;
+            }
+            return rated > 0 ? sum / rated : 1500.0;
+        });
     }
 
     public int getTotalMatches() {
-        return matchHistory.size();
+        return readInt(View::getTotalMatches);
     }
 
     public int getTotalWins() {
-        return (int) matchHistory.stream().mapToInt(m -> m.won ? 1 : 0).sum();
+        return readInt(View::getTotalWins);
     }
 
     public int getSurfaceMatches(String surface) {
-        List<MatchResult> matches = surfaceSpecificHistory.get(surface);
-        return matches != null ? matches.size() : 0;
+        return readInt(view -> view.getSurfaceMatches(surface));
     }
 
     public int getSurfaceWins(String surface) {
-        List<MatchResult> matches = surfaceSpecificHistory.get(surface);
-        if (matches == null) return 0;
-
-        return (int) matches.stream().mapToInt(m -> m.won ? 1 : 0).sum();
+        return readInt(view -> view.getSurfaceWins(surface));
     }
 
+    /**
+     * A copy of the player's record on a surface
+     */
     public SurfaceRecord getSurfaceRecord(String surface) {
-        return surfaceRecords.getOrDefault(surface, new SurfaceRecord());
+        return read(view -> {
+            int surfaceCode = MatchSymbols.SURFACES.code(surface);
+            SurfaceRecord[] records = surfaceRecords;
+            SurfaceRecord record = surfaceCode >= 0 && surfaceCode < records.length ? records[surfaceCode] : null;
+            return record != null ? new SurfaceRecord(record.getMatches(), record.getWins()) : new SurfaceRecord();
+        });
     }
 
     /**
      * Get all surface ELO ratings
      */
     public Map<String, Double> getAllSurfaceElos() {
-        return new HashMap<>(surfaceElo);
+        return read(view -> {
+            double[] elos = surfaceElo;
+            Map<String, Double> all = new HashMap<>();
+            for (int code = 0; code < elos.length; code++) {
+                if (!Double.isNaN(elos[code])) all.put(MatchSymbols.SURFACES.symbol(code), elos[code]);
+            }
+            return all;
+        });
     }
 
     /**
-     * Reset ELO ratings to baseline (useful for new seasons)
+     * Reset ELO and Glicko-2 ratings to baseline (useful for new seasons)
      */
     public void resetEloRatings() {
-        surfaceElo.replaceAll((k, v) -> 1500.0);
+        long stamp = lock.writeLock();
+        try {
+            for (int code = 0; code < surfaceElo.length; code++) {
+                if (!Double.isNaN(surfaceElo[code])) surfaceElo[code] = 1500.0;
+            }
+            overallElo = 1500.0;
+            glickoRating = Glicko2Engine.DEFAULT_RATING;
+            glickoDeviation = Glicko2Engine.DEFAULT_DEVIATION;
+            glickoVolatility = Glicko2Engine.DEFAULT_VOLATILITY;
+            glickoPeriod = DateCodes.MISSING;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Write the full state for a {@link HistorySnapshot}
+     */
+    void write(DataOutputStream out) throws IOException {
+        long stamp = lock.readLock();
+        try {
+            writeUnlocked(out);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void writeUnlocked(DataOutputStream out) throws IOException {
+        matchHistory.write(out);
+
+        int surfaceBuffers = 0;
+        for (MatchResultBuffer buffer : surfaceSpecificHistory) {
+            if (buffer != null) surfaceBuffers++;
+        }
+        out.writeInt(surfaceBuffers);
+        for (int code = 0; code < surfaceSpecificHistory.length; code++) {
+            if (surfaceSpecificHistory[code] == null) continue;
+            out.writeInt(code);
+            surfaceSpecificHistory[code].write(out);
+        }
+
+        int records = 0;
+        for (SurfaceRecord record : surfaceRecords) {
+            if (record != null) records++;
+        }
+        out.writeInt(records);
+        for (int code = 0; code < surfaceRecords.length; code++) {
+            if (surfaceRecords[code] == null) continue;
+            HistorySnapshot.writeString(out, MatchSymbols.SURFACES.symbol(code));
+            out.writeInt(surfaceRecords[code].getMatches());
+            out.writeInt(surfaceRecords[code].getWins());
+        }
+
+        int elos = 0;
+        for (double elo : surfaceElo) {
+            if (!Double.isNaN(elo)) elos++;
+        }
+        out.writeInt(elos);
+        for (int code = 0; code < surfaceElo.length; code++) {
+            if (Double.isNaN(surfaceElo[code])) continue;
+            HistorySnapshot.writeString(out, MatchSymbols.SURFACES.symbol(code));
+            out.writeDouble(surfaceElo[code]);
+        }
+        out.writeDouble(overallElo);
+        out.writeDouble(glickoRating);
+        out.writeDouble(glickoDeviation);
+        out.writeDouble(glickoVolatility);
+        out.writeInt(glickoPeriod);
+    }
+
+    /**
+     * Read a history written by {@link #write(DataOutputStream)}, translating saved surface
+     * and level codes through {@code surfaceCodes} and {@code levelCodes} (null for snapshots
+     * from before version 4, which did not record opponents)
+     */
+    static PlayerHistory read(ByteBuffer in, int[] surfaceCodes, int[] levelCodes, int version) {
+        PlayerHistory history = new PlayerHistory(MatchResultBuffer.read(in, surfaceCodes, levelCodes));
+
+        int surfaceBuffers = in.getInt();
+        for (int i = 0; i < surfaceBuffers; i++) {
+            int surfaceCode = surfaceCodes[in.getInt()];
+            if (surfaceCode >= history.surfaceSpecificHistory.length) {
+                history.surfaceSpecificHistory = Arrays.copyOf(history.surfaceSpecificHistory, surfaceCode + 1);
+            }
+            history.surfaceSpecificHistory[surfaceCode] = MatchResultBuffer.read(in, surfaceCodes, levelCodes);
+        }
+
+        int surfaceRecordCount = in.getInt();
+        for (int i = 0; i < surfaceRecordCount; i++) {
+            int surfaceCode = MatchSymbols.SURFACES.intern(HistorySnapshot.readString(in));
+            if (surfaceCode >= history.surfaceRecords.length) {
+                history.surfaceRecords = Arrays.copyOf(history.surfaceRecords, surfaceCode + 1);
+            }
+            history.surfaceRecords[surfaceCode] = new SurfaceRecord(in.getInt(), in.getInt());
+        }
+
+        Arrays.fill(history.surfaceElo, Double.NaN);
+        int eloCount = in.getInt();
+        for (int i = 0; i < eloCount; i++) {
+            history.setSurfaceElo(MatchSymbols.SURFACES.intern(HistorySnapshot.readString(in)), in.getDouble());
+        }
+        // Version 1 snapshots predate the overall rating
+        if (version >= 2) {
+            history.overallElo = in.getDouble();
+        }
+        // and version 2 ones the Glicko-2 values
+        if (version >= 3) {
+            history.glickoRating = in.getDouble();
+            history.glickoDeviation = in.getDouble();
+            history.glickoVolatility = in.getDouble();
+            history.glickoPeriod = in.getInt();
+        }
+        return history;
     }
 
     /**
      * Get recent results for detailed analysis
      */
     public List<MatchResult> getRecentMatches(int count) {
-        if (matchHistory.isEmpty()) return new ArrayList<>();
+        return read(view -> {
+            int matches = Math.max(0, Math.min(count, matchHistory.size()));
+            List<MatchResult> recent = new ArrayList<>(matches);
+            // Oldest first, as before
+            for (int i = matches - 1; i >= 0; i--) {
+                int surfaceCode = matchHistory.surfaceCode(i);
+                int opponentRank = matchHistory.opponentRank(i);
+                double opponentRating = matchHistory.opponentRating(i);
+                recent.add(new MatchResult(matchHistory.won(i), MatchSymbols.SURFACES.symbol(surfaceCode), matchHistory.date(i),
+                        opponentRank > 0 ? Double.valueOf(opponentRank) : null,
+                        MatchSymbols.LEVELS.symbol(matchHistory.tourneyLevelCode(i)),
+                        Double.isNaN(opponentRating) ? null : opponentRating));
+            }
+            return recent;
+        });
+    }
+
+    /**
+     * The queries without locking, for use inside a read
+     */
+    private class UnlockedView implements View {
+        @Override
+        public double getRecentForm(int lastNMatches) { return recentForm(lastNMatches); }
+
+        @Override
+        public double getSurfaceForm(String surface, int lastNMatches) { return surfaceForm(surface, lastNMatches); }
 
-        int fromIndex = Math.max(0, matchHistory.size() - count);
-        return new ArrayList<>(matchHistory.subList(fromIndex, matchHistory.size()));
+        @Override
+        public double getMomentum(int lookbackMatches) { return momentum(lookbackMatches); }
+
+        @Override
+        public int getTotalMatches() { return matchHistory.size(); }
+
+        @Override
+        public int getTotalWins() { return matchHistory.wins(); }
+
+        @Override
+        public int getSurfaceMatches(String surface) {
+            MatchResultBuffer matches = surfaceHistory(surface);
+            return matches != null ? matches.size() : 0;
+        }
+
+        @Override
+        public int getSurfaceWins(String surface) {
+            MatchResultBuffer matches = surfaceHistory(surface);
+            return matches != null ? matches.wins() : 0;
+        }
+
+        @Override
+        public double getSurfaceElo(String surface) { return surfaceElo(surface); }
     }
 
     /**
@@ -233,17 +705,24 @@ public class PlayerHistory {
         final Integer date;
         final Double opponentRank;
         final String tournamentLevel;
+        final Double opponentRating;
 
         public MatchResult(boolean won, String surface, Integer date) {
             this(won, surface, date, null, null);
         }
 
         public MatchResult(boolean won, String surface, Integer date, Double opponentRank, String tournamentLevel) {
+            this(won, surface, date, opponentRank, tournamentLevel, null);
+        }
+
+        public MatchResult(boolean won, String surface, Integer date, Double opponentRank, String tournamentLevel,
+                           Double opponentRating) {
             this.won = won;
             this.surface = surface != null ? surface : "Hard";
             this.date = date;
             this.opponentRank = opponentRank;
             this.tournamentLevel = tournamentLevel;
+            this.opponentRating = opponentRating;
         }
 
         public boolean isWon() { return won; }
@@ -251,14 +730,22 @@ public class PlayerHistory {
         public Integer getDate() { return date; }
         public Double getOpponentRank() { return opponentRank; }
         public String getTournamentLevel() { return tournamentLevel; }
+        /** Opponent's overall Elo going into the match, or null if not recorded */
+        public Double getOpponentRating() { return opponentRating; }
 
         /**
-         * Calculate days since this match
+         * Calendar days from this match to a yyyyMMdd date
          */
         public int getDaysSince(Integer currentDate) {
             if (date == null || currentDate == null) return 0;
 
-            // Simple approximation - in reality you'd want proper date parsing
+            int currentDay = DateCodes.toEpochDay(currentDate);
+            int matchDay = DateCodes.toEpochDay(date);
+            if (currentDay != DateCodes.MISSING && matchDay != DateCodes.MISSING) {
+                return currentDay - matchDay;
+            }
+
+            // Not both real calendar dates, so approximate with 365-day years and 30-day months
             int yearDiff = (currentDate / 10000) - (date / 10000);
             int monthDiff = ((currentDate / 100) % 100) - ((date / 100) % 100);
             int dayDiff = (currentDate % 100) - (date % 100);
@@ -1,25 +1,172 @@
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
 
 /**
- * Tracks historical performance data for players
+ * Tracks historical performance data for players.
+ * Head-to-head counts are kept per pairing of player codes in a {@link HeadToHeadStore}.
+ *
+ * Each result records the opponent's rank, the tournament level and the opponent's overall Elo
+ * going into the match. Overall and surface Elo are kept current as matches are applied, with
+ * the same update as {@link SurfaceEloEngine}, so neither needs a separate pass and results
+ * ingested later move them too.
+ * Glicko-2 values come from a {@link Glicko2Engine} fed with every match applied; each weekly
+ * period is written to the histories once it is rated, when the next one starts or
+ * {@link #closeRatingPeriod()} is called. Results dated before a period already rated are left
+ * out of Glicko-2.
+ *
+ * Matches can be applied while other threads read: each {@link PlayerHistory} guards itself
+ * and the head-to-head store locks per segment, so there is no manager-wide lock. A reader sees
+ * each player consistently, though one side of a match may be applied before the other.
  */
 public class PlayerHistoryManager {
     private final Map<String, PlayerHistory> playerHistories = new ConcurrentHashMap<>();
-    private final Map<String, Map<String, HeadToHeadRecord>> headToHeadRecords = new ConcurrentHashMap<>();
+    private final HeadToHeadStore headToHead = new HeadToHeadStore();
+    private final Object glickoLock = new Object();
+    private Glicko2Engine glicko = newGlickoEngine();
+    private volatile boolean excludeWalkovers;
+
+    /**
+     * Skip walkovers when updating, since no tennis was played. Off by default.
+     */
+    public void setExcludeWalkovers(boolean excludeWalkovers) {
+        this.excludeWalkovers = excludeWalkovers;
+    }
+
+    public boolean isExcludeWalkovers() {
+        return excludeWalkovers;
+    }
 
     public void updateWithMatch(Match match) {
-        String winnerId = match.getWinner().getPlayerId();
-        String loserId = match.getLoser().getPlayerId();
-        String surface = match.getSurface();
+        if (excludeWalkovers && match.isWalkover()) return;
+        Player winner = match.getWinner();
+        Player loser = match.getLoser();
+        applyResult(winner.getPlayerId(), winner.getPlayerCode(), winner.getRank(0),
+                loser.getPlayerId(), loser.getPlayerCode(), loser.getRank(0),
+                match.getSurface(), match.getTourneyLevel(), match.getTourneyDate());
+    }
+
+    /**
+     * Replay every row of a table in order, reading the columns directly.
+     * Returns the number of matches applied.
+     */
+    public int updateWithTable(MatchTable table) {
+        int applied = 0;
+        for (int row = 0; row < table.size(); row++) {
+            if (excludeWalkovers && table.isWalkover(row)) continue;
+            int date = table.getTourneyDate(row);
+            applyResult(table.getPlayerId(row, MatchTable.WINNER), table.getPlayerCode(row, MatchTable.WINNER),
+                    table.getRank(row, MatchTable.WINNER, 0),
+                    table.getPlayerId(row, MatchTable.LOSER), table.getPlayerCode(row, MatchTable.LOSER),
+                    table.getRank(row, MatchTable.LOSER, 0),
+                    table.getSurface(row), table.getTourneyLevel(row), date != MatchTable.MISSING ? date : null);
+            applied++;
+        }
+        return applied;
+    }
+
+    private void applyResult(String winnerId, int winnerCode, int winnerRank, String loserId, int loserCode, int loserRank,
+                             String surface, String tourneyLevel, Integer date) {
+        SurfaceEloEngine.Parameters elo = SurfaceEloEngine.Parameters.DEFAULT;
+        double winnerK = elo.kFactor(winnerRank, tourneyLevel);
+        double loserK = elo.kFactor(loserRank, tourneyLevel);
+        double winnerElo = overallElo(winnerId);
+        double loserElo = overallElo(loserId);
+        double winnerSurfaceElo = surfaceElo(winnerId, surface);
+        double loserSurfaceElo = surfaceElo(loserId, surface);
+
+        applyPlayerResult(winnerId, true, surface, date, loserRank, tourneyLevel, loserElo,
+                elo.winnerRating(winnerElo, loserElo, winnerK), elo.winnerRating(winnerSurfaceElo, loserSurfaceElo, winnerK));
+        applyPlayerResult(loserId, false, surface, date, winnerRank, tourneyLevel, winnerElo,
+                elo.loserRating(loserElo, winnerElo, loserK), elo.loserRating(loserSurfaceElo, winnerSurfaceElo, loserK));
+        recordHeadToHead(winnerCode, loserCode);
+        rateGlicko(winnerCode, loserCode, date);
+    }
 
-        // Update individual player histories
-        getOrCreateHistory(winnerId).addMatch(true, surface, match.getTourneyDate());
-        getOrCreateHistory(loserId).addMatch(false, surface, match.getTourneyDate());
+    /**
+     * A player's current overall Elo, or the baseline for a player not seen yet
+     */
+    double overallElo(String playerId) {
+        PlayerHistory history = playerHistories.get(playerId);
+        return history != null ? history.getOverallElo() : SurfaceEloEngine.BASE_ELO;
+    }
+
+    /**
+     * A player's current Elo on a surface (blank counts as Hard), or the baseline for a player
+     * not seen yet
+     */
+    double surfaceElo(String playerId, String surface) {
+        PlayerHistory history = playerHistories.get(playerId);
+        return history != null ? history.getSurfaceElo(surface) : SurfaceEloEngine.BASE_ELO;
+    }
+
+    /**
+     * Apply one side of a match to the player's own history: the result against an opponent
+     * of the given rank (0 if unknown) and rating, and the player's overall and surface Elo
+     * after it. Nothing else is touched, so different players can be updated from different
+     * threads (see {@link ParallelHistoryReplay}).
+     */
+    void applyPlayerResult(String playerId, boolean won, String surface, Integer date, int opponentRank,
+                           String tourneyLevel, double opponentElo, double overallEloAfter, double surfaceEloAfter) {
+        PlayerHistory history = getOrCreateHistory(playerId);
+        history.addMatch(won, surface, date, opponentRank, tourneyLevel, opponentElo);
+        history.updateOverallElo(overallEloAfter);
+        history.updateSurfaceElo(surface, surfaceEloAfter);
+    }
+
+    /**
+     * Count one meeting in the head-to-head store; safe to call from several threads
+     */
+    void recordHeadToHead(int winnerCode, int loserCode) {
+        headToHead.record(winnerCode, loserCode);
+    }
+
+    /**
+     * Add a match to the Glicko-2 period being collected, once both players' histories hold it
+     */
+    void rateGlicko(int winnerCode, int loserCode, Integer date) {
+        if (date == null) return;
+        synchronized (glickoLock) {
+            if (glicko.accepts(date)) glicko.add(winnerCode, loserCode, date);
+        }
+    }
 
-        // Update head-to-head records
-        updateHeadToHead(winnerId, loserId, true);
-        updateHeadToHead(loserId, winnerId, false);
+    /**
+     * Rate the Glicko-2 period collected so far and write it to the histories. Matches of the
+     * same week applied later are rated as a second batch on top.
+     */
+    public void closeRatingPeriod() {
+        synchronized (glickoLock) {
+            glicko.flush();
+        }
+    }
+
+    private Glicko2Engine newGlickoEngine() {
+        return new Glicko2Engine(Glicko2Engine.DEFAULT_TAU, ForkJoinPool.commonPool(), this::glickoRated);
+    }
+
+    private void glickoRated(int playerCode, double rating, double deviation, double volatility, int period) {
+        String playerId = MatchSymbols.PLAYER_IDS.symbol(playerCode);
+        PlayerHistory history = playerId != null ? playerHistories.get(playerId) : null;
+        if (history != null) history.updateGlicko(rating, deviation, volatility, period);
+    }
+
+    /**
+     * Replay a chronologically ordered stream of matches, one at a time.
+     * Returns the number of matches applied.
+     */
+    public int updateWithMatches(Stream<Match> matches) {
+        int applied = 0;
+        Iterator<Match> iterator = matches.iterator();
+        while (iterator.hasNext()) {
+            Match match = iterator.next();
+            if (excludeWalkovers && match.isWalkover()) continue;
+            updateWithMatch(match);
+            applied++;
+        }
+        return applied;
     }
 
     public PlayerHistory getPlayerHistory(String playerId) {
@@ -27,21 +174,76 @@ public class PlayerHistoryManager {
     }
 
     public HeadToHeadRecord getHeadToHeadRecord(String player1Id, String player2Id) {
-        return headToHeadRecords.getOrDefault(player1Id, Collections.emptyMap()).get(player2Id);
+        return getHeadToHeadRecord(MatchSymbols.PLAYER_IDS.code(player1Id), MatchSymbols.PLAYER_IDS.code(player2Id));
+    }
+
+    /**
+     * Player 1's record against player 2 by {@link MatchSymbols#PLAYER_IDS} code, or null if they have not met
+     */
+    public HeadToHeadRecord getHeadToHeadRecord(int player1Code, int player2Code) {
+        return headToHead.get(player1Code, player2Code);
     }
 
     private PlayerHistory getOrCreateHistory(String playerId) {
         return playerHistories.computeIfAbsent(playerId, k -> new PlayerHistory());
     }
 
-    private void updateHeadToHead(String player1Id, String player2Id, boolean player1Won) {
-        headToHeadRecords.computeIfAbsent(player1Id, k -> new ConcurrentHashMap<>())
-                .computeIfAbsent(player2Id, k -> new HeadToHeadRecord())
-                .addMatch(player1Won);
+    /**
+     * Write the full state to a {@link HistorySnapshot} file, tagged with the checkpoint of the
+     * last match applied (null if unknown). The pending Glicko-2 period is rated first.
+     * Must not run concurrently with updates.
+     */
+    public void saveSnapshot(String path, IngestionCheckpoint checkpoint) throws IOException {
+        closeRatingPeriod();
+        HistorySnapshot.write(this, checkpoint, path);
+    }
+
+    /**
+     * As {@link #saveSnapshot(String, IngestionCheckpoint)}, listing the data files the state was built from
+     */
+    public void saveSnapshot(String path, IngestionCheckpoint checkpoint, List<HistorySnapshot.Source> sources) throws IOException {
+        closeRatingPeriod();
+        HistorySnapshot.write(this, checkpoint, sources, path);
+    }
+
+    /**
+     * Replace the current state with a memory-mapped {@link HistorySnapshot} file.
+     * Returns the checkpoint the snapshot was tagged with, or null.
+     */
+    public IngestionCheckpoint restoreSnapshot(String path) throws IOException {
+        HistorySnapshot snapshot = HistorySnapshot.read(path);
+        snapshot.restoreInto(this);
+        return snapshot.getCheckpoint();
+    }
+
+    Map<String, PlayerHistory> histories() {
+        return playerHistories;
+    }
+
+    HeadToHeadStore headToHead() {
+        return headToHead;
+    }
+
+    void restore(Map<String, PlayerHistory> histories, HeadToHeadStore restoredHeadToHead) {
+        reset();
+        playerHistories.putAll(histories);
+        restoredHeadToHead.forEach(headToHead::add);
+        // Carry on rating from the restored values
+        synchronized (glickoLock) {
+            histories.forEach((playerId, history) -> {
+                int period = history.getGlickoPeriod();
+                if (period == DateCodes.MISSING) return;
+                glicko.restore(MatchSymbols.PLAYER_IDS.intern(playerId), history.getGlickoRating(),
+                        history.getGlickoDeviation(), history.getGlickoVolatility(), period);
+            });
+        }
     }
 
     public void reset() {
         playerHistories.clear();
-        headToHeadRecords.clear();
+        headToHead.clear();
+        synchronized (glickoLock) {
+            glicko = newGlickoEngine();
+        }
     }
 }
\ No newline at end of file
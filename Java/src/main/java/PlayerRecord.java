@@ -0,0 +1,19 @@
+/**
+ * The results-based queries features are built from, answered either by a live
+ * {@link PlayerHistory} or by a {@link PlayerTimelineIndex} as of some point in time.
+ */
+public interface PlayerRecord {
+    double getRecentForm(int lastNMatches);
+
+    double getSurfaceForm(String surface, int lastNMatches);
+
+    double getMomentum(int lookbackMatches);
+
+    int getTotalMatches();
+
+    int getTotalWins();
+
+    int getSurfaceMatches(String surface);
+
+    int getSurfaceWins(String surface);
+}
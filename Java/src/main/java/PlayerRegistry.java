@@ -0,0 +1,189 @@
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * One entry per player id, holding the attributes that do not change from match to match.
+ *
+ * The source files are not perfectly consistent about those attributes: heights get revised,
+ * hands are sometimes blank and country codes change (GER/DEU). Each distinct combination a
+ * player appears with is kept once as an {@link Attributes} variant, so a Player still reports
+ * exactly what its row said while sharing that data with every other row like it. Rank, points,
+ * age, seed and entry vary per match and stay on the Player (or in MatchTable columns).
+ *
+ * {@link Profile} is the stable per-player handle. Its attributes are the most recent non-missing
+ * value seen for each, by tourney date, resolved from the variants when read. Registering a row
+ * only records the variant's latest date without locking; a lock is taken per player just to add
+ * a combination not seen before.
+ */
+public class PlayerRegistry {
+    public static final PlayerRegistry SHARED = new PlayerRegistry();
+
+    private final Object addLock = new Object();
+    private volatile AtomicReferenceArray<Profile> profiles = new AtomicReferenceArray<>(1024);
+
+    /**
+     * Canonical attributes of one player, shared by all of its matches. They are resolved from
+     * the player's variants when asked for, so registering a row never locks the profile.
+     */
+    public static final class Profile {
+        private final int playerCode;
+        private volatile Attributes[] variants = new Attributes[0];
+
+        private Profile(int playerCode) {
+            this.playerCode = playerCode;
+        }
+
+        public int getPlayerCode() { return playerCode; }
+        public String getPlayerId() { return MatchSymbols.PLAYER_IDS.symbol(playerCode); }
+        public String getName() { return latest(variant -> variant.name); }
+        public String getHand() { return latest(variant -> variant.hand); }
+        public String getNationality() { return latest(variant -> variant.nationality); }
+
+        public int getHeight(int missing) {
+            int height = Player.MISSING;
+            int date = Integer.MIN_VALUE;
+            for (Attributes variant : variants) {
+                if (variant.height != Player.MISSING && variant.lastSeen >= date) {
+                    height = variant.height;
+                    date = variant.lastSeen;
+                }
+            }
+            return height != Player.MISSING ? height : missing;
+        }
+
+        /** Number of distinct attribute combinations this player appeared with */
+        public int getVariantCount() { return variants.length; }
+
+        /**
+         * The value from the most recently seen variant that has one; on equal dates the
+         * variant registered last wins
+         */
+        private String latest(Function<Attributes, String> attribute) {
+            String value = null;
+            int date = Integer.MIN_VALUE;
+            for (Attributes variant : variants) {
+                String candidate = attribute.apply(variant);
+                if (candidate != null && !candidate.isEmpty() && variant.lastSeen >= date) {
+                    value = candidate;
+                    date = variant.lastSeen;
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * One combination of static attributes as it appeared in the data
+     */
+    static final class Attributes {
+        private static final AtomicIntegerFieldUpdater<Attributes> LAST_SEEN =
+                AtomicIntegerFieldUpdater.newUpdater(Attributes.class, "lastSeen");
+
+        final Profile profile;
+        final String name;
+        final String hand;
+        final String nationality;
+        final int height;
+        // Latest tourney date a row with this combination had
+        private volatile int lastSeen = Integer.MIN_VALUE;
+
+        private Attributes(Profile profile, String name, String hand, String nationality, int height) {
+            this.profile = profile;
+            this.name = name;
+            this.hand = hand;
+            this.nationality = nationality;
+            this.height = height;
+        }
+
+        int getPlayerCode() {
+            return profile != null ? profile.playerCode : SymbolTable.MISSING;
+        }
+
+        private void seen(int date) {
+            int current = lastSeen;
+            while (date > current && !LAST_SEEN.compareAndSet(this, current, date)) {
+                current = lastSeen;
+            }
+        }
+
+        private boolean matches(String name, String hand, String nationality, int height) {
+            return this.height == height && Objects.equals(this.name, name)
+                    && Objects.equals(this.hand, hand) && Objects.equals(this.nationality, nationality);
+        }
+    }
+
+    /**
+     * The stable handle for a player, or null if the registry has never seen them
+     */
+    public Profile profile(int playerCode) {
+        AtomicReferenceArray<Profile> current = profiles;
+        return playerCode >= 0 && playerCode < current.length() ? current.get(playerCode) : null;
+    }
+
+    public Profile profile(String playerId) {
+        return profile(MatchSymbols.PLAYER_IDS.code(playerId));
+    }
+
+    /**
+     * Shared attributes for a player as seen in a match on the given date (yyyyMMdd, or 0 if
+     * unknown). Rows without a player id get an unshared variant with no profile.
+     */
+    Attributes attributes(int playerCode, String name, String hand, String nationality, int height, int date) {
+        if (playerCode == SymbolTable.MISSING) {
+            return new Attributes(null, name, hand, nationality, height);
+        }
+
+        Profile profile = profile(playerCode);
+        if (profile == null) {
+            profile = addProfile(playerCode);
+        }
+        Attributes variant = variant(profile, name, hand, nationality, height);
+        variant.seen(date);
+        return variant;
+    }
+
+    private static Attributes variant(Profile profile, String name, String hand, String nationality, int height) {
+        for (Attributes variant : profile.variants) {
+            if (variant.matches(name, hand, nationality, height)) return variant;
+        }
+        synchronized (profile) {
+            for (Attributes variant : profile.variants) {
+                if (variant.matches(name, hand, nationality, height)) return variant;
+            }
+            Attributes variant = new Attributes(profile, name, hand, nationality, height);
+            Attributes[] grown = Arrays.copyOf(profile.variants, profile.variants.length + 1);
+            grown[grown.length - 1] = variant;
+            profile.variants = grown;
+            return variant;
+        }
+    }
+
+    /**
+     * Attributes that leave the registry untouched: a known code keeps its profile, any other
+     * code gets none.
+     */
+    Attributes detached(int playerCode, String name, String hand, String nationality, int height) {
+        return new Attributes(profile(playerCode), name, hand, nationality, height);
+    }
+
+    private Profile addProfile(int playerCode) {
+        synchronized (addLock) {
+            AtomicReferenceArray<Profile> current = profiles;
+            if (playerCode >= current.length()) {
+                AtomicReferenceArray<Profile> grown = new AtomicReferenceArray<>(Math.max(current.length() * 2, playerCode + 1));
+                for (int i = 0; i < current.length(); i++) {
+                    grown.set(i, current.get(i));
+                }
+                current = grown;
+                profiles = current;
+            }
+            if (current.get(playerCode) == null) {
+                current.set(playerCode, new Profile(playerCode));
+            }
+            return current.get(playerCode);
+        }
+    }
+}
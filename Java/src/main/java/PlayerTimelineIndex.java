@@ -0,0 +1,388 @@
+import java.util.Arrays;
+
+/**
+ * Every player's matches from a {@link MatchTable}, grouped per player (CSR layout: one offsets
+ * array into shared entry arrays) and sorted by tourney date, then table row. Prefix sums of
+ * wins, overall and per surface, turn "record of player X before a point in time" into a binary
+ * search and a subtraction.
+ *
+ * A point in time is a (date, row) pair: an entry is before it when its date is earlier, or the
+ * date is the same and its row is earlier. Row 0 therefore means strictly before the date, and a
+ * match's own (date, row) means everything played before it. A missing date, in entries and in
+ * queries, is placed at {@link ParallelMatchLoader#UNKNOWN_DATE} as the loaders sort it, so
+ * undated matches fall in the same place as in a replay. Because no state is replayed, the
+ * features of any historical match can be computed on their own, in any order or in parallel.
+ *
+ * {@link #asOf} answers the same queries as {@link PlayerHistory}, applying its retention (the
+ * last 500 matches, 250 per surface), so for a table in date order the values equal those of
+ * an in-order replay. The index is immutable once built.
+ *
+ * Surface Elo is not derived from the entries; an index built with the table's
+ * {@link SurfaceEloEngine.Ratings} reports each side's pre-match rating, otherwise the baseline.
+ */
+public class PlayerTimelineIndex {
+    private final int playerCount;
+    private final int surfaceCount;
+
+    // Entries of player p are [playerOffsets[p], playerOffsets[p + 1])
+    private final int[] playerOffsets;
+    private final int[] entryRows;
+    private final int[] entryDates;
+    private final int[] entryOpponents;
+    // winsPrefix[e] = wins among entries before e
+    private final int[] winsPrefix;
+
+    // Entries of player p on surface s are surfaceEntries[surfaceOffsets[k] .. surfaceOffsets[k + 1]),
+    // k = p * surfaceCount + s, as positions in the entry arrays above
+    private final int[] surfaceOffsets;
+    private final int[] surfaceEntries;
+    private final int[] surfaceWinsPrefix;
+
+    private final SurfaceEloEngine.Ratings ratings;
+
+    private PlayerTimelineIndex(MatchTable table, SurfaceEloEngine.Ratings ratings) {
+        int rows = table.size();
+        if (ratings != null && ratings.size() != rows) {
+            throw new IllegalArgumentException("Ratings cover " + ratings.size() + " matches, table has " + rows);
+        }
+        this.ratings = ratings;
+
+        // Row order by (date, row), with missing dates where the loaders put them
+        long[] order = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            order[row] = ((long) orderDate(table.getTourneyDate(row)) << 32) | row;
+        }
+        Arrays.sort(order);
+
+        // Surfaces PlayerHistory would file a match under, with blanks counted as Hard
+        int hardCode = MatchSymbols.SURFACES.intern("Hard");
+        int[] rowSurfaces = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            String surface = table.getSurface(row);
+            rowSurfaces[row] = surface == null || surface.isEmpty() ? hardCode : table.getSurfaceCode(row);
+        }
+        surfaceCount = MatchSymbols.SURFACES.size();
+        playerCount = MatchSymbols.PLAYER_IDS.size();
+
+        // Counting sort of (row, side) entries by player, keeping date order within each player
+        playerOffsets = new int[playerCount + 1];
+        for (int row = 0; row < rows; row++) {
+            for (int side = MatchTable.WINNER; side <= MatchTable.LOSER; side++) {
+                int player = table.getPlayerCode(row, side);
+                if (player >= 0) playerOffsets[player + 1]++;
+            }
+        }
+        for (int player = 0; player < playerCount; player++) {
+            playerOffsets[player + 1] += playerOffsets[player];
+        }
+
+        int entries = playerOffsets[playerCount];
+        entryRows = new int[entries];
+        entryDates = new int[entries];
+        entryOpponents = new int[entries];
+        boolean[] won = new boolean[entries];
+        int[] entrySurfaces = new int[entries];
+        int[] next = Arrays.copyOf(playerOffsets, playerCount);
+        for (long key : order) {
+            int row = (int) key;
+            for (int side = MatchTable.WINNER; side <= MatchTable.LOSER; side++) {
+                int player = table.getPlayerCode(row, side);
+                if (player < 0) continue;
+                int entry = next[player]++;
+                entryRows[entry] = row;
+                entryDates[entry] = (int) (key >> 32);
+                entryOpponents[entry] = table.getPlayerCode(row, side == MatchTable.WINNER ? MatchTable.LOSER : MatchTable.WINNER);
+                won[entry] = side == MatchTable.WINNER;
+                entrySurfaces[entry] = rowSurfaces[row];
+            }
+        }
+
+        winsPrefix = new int[entries + 1];
+        for (int entry = 0; entry < entries; entry++) {
+            winsPrefix[entry + 1] = winsPrefix[entry] + (won[entry] ? 1 : 0);
+        }
+
+        // Same again per (player, surface), walking each player's entries in order
+        surfaceOffsets = new int[playerCount * surfaceCount + 1];
+        for (int player = 0; player < playerCount; player++) {
+            for (int entry = playerOffsets[player]; entry < playerOffsets[player + 1]; entry++) {
+                surfaceOffsets[player * surfaceCount + entrySurfaces[entry] + 1]++;
+            }
+        }
+        for (int key = 0; key < playerCount * surfaceCount; key++) {
+            surfaceOffsets[key + 1] += surfaceOffsets[key];
+        }
+
+        surfaceEntries = new int[entries];
+        int[] nextSurface = Arrays.copyOf(surfaceOffsets, playerCount * surfaceCount);
+        for (int player = 0; player < playerCount; player++) {
+            for (int entry = playerOffsets[player]; entry < playerOffsets[player + 1]; entry++) {
+                surfaceEntries[nextSurface[player * surfaceCount + entrySurfaces[entry]]++] = entry;
+            }
+        }
+
+        surfaceWinsPrefix = new int[entries + 1];
+        for (int i = 0; i < entries; i++) {
+            surfaceWinsPrefix[i + 1] = surfaceWinsPrefix[i] + (won[surfaceEntries[i]] ? 1 : 0);
+        }
+    }
+
+    /**
+     * Index every match in a table
+     */
+    public static PlayerTimelineIndex build(MatchTable table) {
+        return new PlayerTimelineIndex(table, null);
+    }
+
+    /**
+     * Index every match in a table, with the ratings {@link SurfaceEloEngine#rate} computed for it
+     */
+    public static PlayerTimelineIndex build(MatchTable table, SurfaceEloEngine.Ratings ratings) {
+        return new PlayerTimelineIndex(table, ratings);
+    }
+
+    /** A side's surface Elo going into a table row, or the baseline when built without ratings */
+    public double surfaceEloBefore(int row, int side) {
+        return ratings != null ? ratings.getSurfaceEloBefore(row, side) : SurfaceEloEngine.BASE_ELO;
+    }
+
+    /** Number of (player, match) entries indexed */
+    public int size() {
+        return entryRows.length;
+    }
+
+    /** All matches of a player, oldest first */
+    public int getMatchCount(int playerCode) {
+        return known(playerCode) ? playerOffsets[playerCode + 1] - playerOffsets[playerCode] : 0;
+    }
+
+    /** Table row of a player's i-th match, oldest first */
+    public int getMatchRow(int playerCode, int i) {
+        if (i < 0 || i >= getMatchCount(playerCode)) {
+            throw new IndexOutOfBoundsException("Match " + i + " of " + getMatchCount(playerCode));
+        }
+        return entryRows[playerOffsets[playerCode] + i];
+    }
+
+    /** Matches the player played before (date, row), without any retention limit */
+    public int matchesBefore(int playerCode, int date, int row) {
+        if (!known(playerCode)) return 0;
+        return position(playerCode, date, row) - playerOffsets[playerCode];
+    }
+
+    /** Wins before (date, row), without any retention limit */
+    public int winsBefore(int playerCode, int date, int row) {
+        if (!known(playerCode)) return 0;
+        return winsPrefix[position(playerCode, date, row)] - winsPrefix[playerOffsets[playerCode]];
+    }
+
+    /** Matches on a surface (by {@link MatchSymbols#SURFACES} code) before (date, row) */
+    public int surfaceMatchesBefore(int playerCode, int surfaceCode, int date, int row) {
+        if (!known(playerCode) || !knownSurface(surfaceCode)) return 0;
+        int key = playerCode * surfaceCount + surfaceCode;
+        return surfacePosition(key, date, row) - surfaceOffsets[key];
+    }
+
+    /** Wins on a surface before (date, row) */
+    public int surfaceWinsBefore(int playerCode, int surfaceCode, int date, int row) {
+        if (!known(playerCode) || !knownSurface(surfaceCode)) return 0;
+        int key = playerCode * surfaceCount + surfaceCode;
+        return surfaceWinsPrefix[surfacePosition(key, date, row)] - surfaceWinsPrefix[surfaceOffsets[key]];
+    }
+
+    /**
+     * Meetings between two players before (date, row), from player 1's side, or null if they had
+     * not met. Scans the shorter of the two players' timelines.
+     */
+    public HeadToHeadRecord headToHeadBefore(int player1Code, int player2Code, int date, int row) {
+        if (!known(player1Code) || !known(player2Code)) return null;
+
+        boolean fromPlayer1 = matchesBefore(player1Code, date, row) <= matchesBefore(player2Code, date, row);
+        int player = fromPlayer1 ? player1Code : player2Code;
+        int opponent = fromPlayer1 ? player2Code : player1Code;
+
+        HeadToHeadRecord record = null;
+        for (int entry = playerOffsets[player], end = position(player, date, row); entry < end; entry++) {
+            if (entryOpponents[entry] != opponent) continue;
+            if (record == null) record = new HeadToHeadRecord();
+            record.addMatch(won(entry) == fromPlayer1);
+        }
+        return record;
+    }
+
+    /**
+     * A player's record before (date, row), or null if they had not played yet
+     */
+    public AsOf asOf(int playerCode, int date, int row) {
+        if (!known(playerCode)) return null;
+        int end = position(playerCode, date, row);
+        return end > playerOffsets[playerCode] ? new AsOf(playerCode, date, row, end) : null;
+    }
+
+    /**
+     * One player's results before a point in time, with {@link PlayerHistory}'s retention and formulas
+     */
+    public final class AsOf implements PlayerRecord {
+        private final int player;
+        private final int date;
+        private final int row;
+        private final int end;
+
+        private AsOf(int player, int date, int row, int end) {
+            this.player = player;
+            this.date = date;
+            this.row = row;
+            this.end = end;
+        }
+
+        @Override
+        public double getRecentForm(int lastNMatches) {
+            int retained = getTotalMatches();
+            if (retained == 0) return 0.5;
+            return form(end, retained, lastNMatches, false);
+        }
+
+        @Override
+        public double getSurfaceForm(String surface, int lastNMatches) {
+            int key = surfaceKey(surface == null || surface.isEmpty() ? "Hard" : surface);
+            if (key < 0) return 0.5;
+            int surfaceEnd = surfacePosition(key, date, row);
+            int retained = Math.min(surfaceEnd - surfaceOffsets[key], PlayerHistory.MAX_SURFACE_HISTORY_SIZE);
+            if (retained == 0) return 0.5;
+            return form(surfaceEnd, retained, lastNMatches, true);
+        }
+
+        @Override
+        public double getMomentum(int lookbackMatches) {
+            int retained = getTotalMatches();
+            if (retained == 0) return 0.0;
+
+            int matches = Math.min(lookbackMatches, retained);
+            if (matches > 0 && matches <= FormWeights.MAX_MASK_WINDOW) {
+                return PlayerHistory.FORM_WEIGHTS.momentum(recentResults(end, matches, false), matches);
+            }
+
+            double momentum = 0.0;
+            double streakWeight = 1.0;
+            for (int i = 0; i < matches; i++) {
+                momentum += (won(end - 1 - i) ? 1.0 : -1.0) * streakWeight;
+                streakWeight *= PlayerHistory.STREAK_DECAY_FACTOR;
+            }
+            return Math.tanh(momentum / matches);
+        }
+
+        @Override
+        public int getTotalMatches() {
+            return Math.min(end - playerOffsets[player], PlayerHistory.MAX_HISTORY_SIZE);
+        }
+
+        @Override
+        public int getTotalWins() {
+            return winsPrefix[end] - winsPrefix[end - getTotalMatches()];
+        }
+
+        @Override
+        public int getSurfaceMatches(String surface) {
+            int key = surfaceKey(surface);
+            if (key < 0) return 0;
+            return Math.min(surfacePosition(key, date, row) - surfaceOffsets[key], PlayerHistory.MAX_SURFACE_HISTORY_SIZE);
+        }
+
+        @Override
+        public int getSurfaceWins(String surface) {
+            int key = surfaceKey(surface);
+            if (key < 0) return 0;
+            int surfaceEnd = surfacePosition(key, date, row);
+            int retained = Math.min(surfaceEnd - surfaceOffsets[key], PlayerHistory.MAX_SURFACE_HISTORY_SIZE);
+            return surfaceWinsPrefix[surfaceEnd] - surfaceWinsPrefix[surfaceEnd - retained];
+        }
+
+        /**
+         * Slice key for a surface as given, or -1 if the index has no such surface
+         */
+        private int surfaceKey(String surface) {
+            int surfaceCode = MatchSymbols.SURFACES.code(surface);
+            return knownSurface(surfaceCode) ? player * surfaceCount + surfaceCode : -1;
+        }
+
+        private double form(int from, int retained, int lastNMatches, boolean surfaceSlice) {
+            int matches = Math.min(lastNMatches, retained);
+            if (matches > 0 && matches <= FormWeights.MAX_MASK_WINDOW) {
+                return PlayerHistory.FORM_WEIGHTS.form(recentResults(from, matches, surfaceSlice), matches);
+            }
+
+            double weightedWins = 0.0;
+            double totalWeight = 0.0;
+            for (int i = 0; i < matches; i++) {
+                double weight = PlayerHistory.FORM_WEIGHTS.decayWeight(i);
+                totalWeight += weight;
+                if (won(surfaceSlice ? surfaceEntries[from - 1 - i] : from - 1 - i)) {
+                    weightedWins += weight;
+                }
+            }
+            return totalWeight > 0 ? weightedWins / totalWeight : 0.5;
+        }
+    }
+
+    /**
+     * Results of the newest matches before a position as a mask, bit i for the i-th most recent
+     */
+    private long recentResults(int end, int matches, boolean surfaceSlice) {
+        long mask = 0L;
+        for (int i = 0; i < matches; i++) {
+            int entry = surfaceSlice ? surfaceEntries[end - 1 - i] : end - 1 - i;
+            if (won(entry)) mask |= 1L << i;
+        }
+        return mask;
+    }
+
+    private boolean won(int entry) {
+        return winsPrefix[entry + 1] != winsPrefix[entry];
+    }
+
+    private boolean known(int playerCode) {
+        return playerCode >= 0 && playerCode < playerCount;
+    }
+
+    private boolean knownSurface(int surfaceCode) {
+        return surfaceCode >= 0 && surfaceCode < surfaceCount;
+    }
+
+    /**
+     * First entry of the player's slice at or after (date, row)
+     */
+    private int position(int playerCode, int date, int row) {
+        int low = playerOffsets[playerCode];
+        int high = playerOffsets[playerCode + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isBefore(mid, date, row)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * First position of the (player, surface) slice at or after (date, row)
+     */
+    private int surfacePosition(int key, int date, int row) {
+        int low = surfaceOffsets[key];
+        int high = surfaceOffsets[key + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (isBefore(surfaceEntries[mid], date, row)) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private boolean isBefore(int entry, int date, int row) {
+        int entryDate = entryDates[entry];
+        int queryDate = orderDate(date);
+        return entryDate < queryDate || (entryDate == queryDate && entryRows[entry] < row);
+    }
+
+    private static int orderDate(int date) {
+        return date != MatchTable.MISSING ? date : ParallelMatchLoader.UNKNOWN_DATE;
+    }
+}
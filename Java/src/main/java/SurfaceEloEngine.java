@@ -0,0 +1,395 @@
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Surface-specific and overall Elo ratings for every player, held in primitive arrays indexed
+ * by {@link MatchSymbols} codes and updated one match at a time, in the order matches are added.
+ *
+ * The update follows {@link TennisModelCalibrator#updatePlayerELO}: the expected score comes
+ * from the rating difference, each side's K-factor from its rank and the tournament level
+ * ({@link #kFactor}), and ratings are clamped to [1000, 2500]. Those constants are the
+ * {@link Parameters#DEFAULT} set; other sets can be rated for comparison (see
+ * {@link EloParameterSweep}). Blank surfaces count as Hard, as in {@link PlayerHistory}.
+ *
+ * {@link #rate(MatchTable)} also keeps each match's ratings from before it was played, so
+ * features for historical matches can use them without seeing the result.
+ */
+public class SurfaceEloEngine {
+    public static final double BASE_ELO = 1500.0;
+    public static final double ELO_FLOOR = 1000.0;
+    public static final double ELO_CEILING = 2500.0;
+
+    private static final int UNRANKED = 500;
+
+    private final Parameters parameters;
+    private final int hardCode = MatchSymbols.SURFACES.intern("Hard");
+
+    // surfaceRatings[surface][player]; rated marks the slots a match has touched
+    private double[][] surfaceRatings = new double[0][];
+    private boolean[][] rated = new boolean[0][];
+    private double[] overallRatings = new double[0];
+    private int matchCount;
+
+    // Both sides' ratings before the match, filled in by update
+    private final double[] before = new double[4];
+
+    public SurfaceEloEngine() {
+        this(Parameters.DEFAULT);
+    }
+
+    public SurfaceEloEngine(Parameters parameters) {
+        this.parameters = Objects.requireNonNull(parameters, "parameters");
+        ensureCapacity(MatchSymbols.PLAYER_IDS.size(), MatchSymbols.SURFACES.size());
+    }
+
+    /**
+     * K-factor for a player of the given rank (0 or less for unranked) at a tournament level:
+     * lower for the top 50, raised for Grand Slams and Masters
+     */
+    public static double kFactor(int rank, String tourneyLevel) {
+        return Parameters.DEFAULT.kFactor(rank, tourneyLevel);
+    }
+
+    /** Expected score of a player rated {@code rating} against one rated {@code opponentRating} */
+    public static double expectedScore(double rating, double opponentRating) {
+        return 1.0 / (1.0 + Math.pow(10, (opponentRating - rating) / 400.0));
+    }
+
+    /**
+     * Rate every match of the table in row order, starting from the baseline
+     */
+    public static Ratings rate(MatchTable table) {
+        return rate(table, Parameters.DEFAULT);
+    }
+
+    /**
+     * Rate every match of the table in row order with the given parameters
+     */
+    public static Ratings rate(MatchTable table, Parameters parameters) {
+        int rows = table.size();
+        double[][] surfaceBefore = {new double[rows], new double[rows]};
+        double[][] overallBefore = {new double[rows], new double[rows]};
+        // Rows with an unidentified player are not rated and keep the baseline
+        for (double[] column : new double[][]{surfaceBefore[0], surfaceBefore[1], overallBefore[0], overallBefore[1]}) {
+            Arrays.fill(column, BASE_ELO);
+        }
+
+        SurfaceEloEngine engine = rate(table, parameters, (row, winnerSurface, loserSurface, winnerOverall, loserOverall) -> {
+            surfaceBefore[MatchTable.WINNER][row] = winnerSurface;
+            surfaceBefore[MatchTable.LOSER][row] = loserSurface;
+            overallBefore[MatchTable.WINNER][row] = winnerOverall;
+            overallBefore[MatchTable.LOSER][row] = loserOverall;
+        });
+        return new Ratings(engine, surfaceBefore, overallBefore);
+    }
+
+    /**
+     * Receives the ratings both sides of a table row had going into it
+     */
+    interface RowListener {
+        void rated(int row, double winnerSurface, double loserSurface, double winnerOverall, double loserOverall);
+    }
+
+    /**
+     * Rate every match of the table in row order, reporting each rated row's pre-match
+     * ratings to the listener. Returns the engine holding the final ratings.
+     */
+    static SurfaceEloEngine rate(MatchTable table, Parameters parameters, RowListener listener) {
+        SurfaceEloEngine engine = new SurfaceEloEngine(parameters);
+        int blankCode = MatchSymbols.SURFACES.code("");
+        int grandSlamCode = MatchSymbols.LEVELS.code("G");
+        int mastersCode = MatchSymbols.LEVELS.code("M");
+
+        for (int row = 0; row < table.size(); row++) {
+            int surfaceCode = table.getSurfaceCode(row);
+            int levelCode = table.getTourneyLevelCode(row);
+            String level = levelCode < 0 ? null : levelCode == grandSlamCode ? "G" : levelCode == mastersCode ? "M" : null;
+            boolean applied = engine.update(table.getPlayerCode(row, MatchTable.WINNER), table.getPlayerCode(row, MatchTable.LOSER),
+                    surfaceCode < 0 || surfaceCode == blankCode ? engine.hardCode : surfaceCode, level,
+                    table.getRank(row, MatchTable.WINNER, UNRANKED), table.getRank(row, MatchTable.LOSER, UNRANKED));
+            if (applied) {
+                listener.rated(row, engine.before[0], engine.before[1], engine.before[2], engine.before[3]);
+            }
+        }
+        return engine;
+    }
+
+    /**
+     * Rate one match after those already added
+     */
+    public void add(Match match) {
+        String surface = match.getSurface();
+        update(match.getWinner().getPlayerCode(), match.getLoser().getPlayerCode(),
+                surface == null || surface.isEmpty() ? hardCode : match.getSurfaceCode(), match.getTourneyLevel(),
+                match.getWinner().getRank(UNRANKED), match.getLoser().getRank(UNRANKED));
+    }
+
+    /**
+     * Rate one match, leaving both sides' previous ratings in {@link #before}. Returns false,
+     * changing nothing, when a player is unidentified, as the calibrator skips those.
+     */
+    private boolean update(int winner, int loser, int surfaceCode, String level, int winnerRank, int loserRank) {
+        if (winner < 0 || loser < 0) return false;
+        ensureCapacity(Math.max(winner, loser) + 1, surfaceCode + 1);
+
+        double winnerK = parameters.kFactor(winnerRank, level);
+        double loserK = parameters.kFactor(loserRank, level);
+
+        double[] ratings = surfaceRatings[surfaceCode];
+        double winnerSurface = ratings[winner];
+        double loserSurface = ratings[loser];
+        double winnerOverall = overallRatings[winner];
+        double loserOverall = overallRatings[loser];
+        before[0] = winnerSurface;
+        before[1] = loserSurface;
+        before[2] = winnerOverall;
+        before[3] = loserOverall;
+
+        ratings[winner] = parameters.winnerRating(winnerSurface, loserSurface, winnerK);
+        ratings[loser] = parameters.loserRating(loserSurface, winnerSurface, loserK);
+        rated[surfaceCode][winner] = true;
+        rated[surfaceCode][loser] = true;
+
+        overallRatings[winner] = parameters.winnerRating(winnerOverall, loserOverall, winnerK);
+        overallRatings[loser] = parameters.loserRating(loserOverall, winnerOverall, loserK);
+        matchCount++;
+        return true;
+    }
+
+    /** Number of matches rated, not counting those with an unidentified player */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /** Current rating of a player on a surface (by {@link MatchSymbols} codes) */
+    public double getSurfaceElo(int playerCode, int surfaceCode) {
+        if (playerCode < 0 || playerCode >= overallRatings.length || surfaceCode < 0 || surfaceCode >= surfaceRatings.length) {
+            return BASE_ELO;
+        }
+        return surfaceRatings[surfaceCode][playerCode];
+    }
+
+    /** Current overall rating of a player */
+    public double getOverallElo(int playerCode) {
+        return playerCode >= 0 && playerCode < overallRatings.length ? overallRatings[playerCode] : BASE_ELO;
+    }
+
+    /**
+     * Write the current ratings into the manager's histories: every surface a player was
+     * rated on, and their overall rating. Returns the number of histories updated.
+     */
+    public int applyTo(PlayerHistoryManager historyManager) {
+        int updated = 0;
+        // The arrays grow in doublings, so their tail holds codes no player has yet
+        int players = Math.min(overallRatings.length, MatchSymbols.PLAYER_IDS.size());
+        for (int player = 0; player < players; player++) {
+            PlayerHistory history = historyManager.getPlayerHistory(MatchSymbols.PLAYER_IDS.symbol(player));
+            if (history == null) continue;
+
+            for (int surface = 0; surface < surfaceRatings.length; surface++) {
+                if (rated[surface][player]) {
+                    history.updateSurfaceElo(MatchSymbols.SURFACES.symbol(surface), surfaceRatings[surface][player]);
+                }
+            }
+            history.updateOverallElo(overallRatings[player]);
+            updated++;
+        }
+        return updated;
+    }
+
+    private void ensureCapacity(int players, int surfaces) {
+        if (surfaces > surfaceRatings.length) {
+            int oldSurfaces = surfaceRatings.length;
+            surfaceRatings = Arrays.copyOf(surfaceRatings, surfaces);
+            rated = Arrays.copyOf(rated, surfaces);
+            for (int surface = oldSurfaces; surface < surfaces; surface++) {
+                surfaceRatings[surface] = baseline(overallRatings.length);
+                rated[surface] = new boolean[overallRatings.length];
+            }
+        }
+        if (players > overallRatings.length) {
+            // Grow by half again, since streamed matches keep introducing new players
+            int capacity = Math.max(players, overallRatings.length + (overallRatings.length >> 1));
+            overallRatings = grow(overallRatings, capacity);
+            for (int surface = 0; surface < surfaceRatings.length; surface++) {
+                surfaceRatings[surface] = grow(surfaceRatings[surface], capacity);
+                rated[surface] = Arrays.copyOf(rated[surface], capacity);
+            }
+        }
+    }
+
+    private static double[] baseline(int length) {
+        double[] ratings = new double[length];
+        Arrays.fill(ratings, BASE_ELO);
+        return ratings;
+    }
+
+    private static double[] grow(double[] ratings, int length) {
+        int oldLength = ratings.length;
+        double[] grown = Arrays.copyOf(ratings, length);
+        Arrays.fill(grown, oldLength, length, BASE_ELO);
+        return grown;
+    }
+
+    /**
+     * The tunable constants of the rating system. The surface weight only affects
+     * {@link #expectedScore(double, double, double, double)}, not how ratings move.
+     */
+    public static final class Parameters {
+        /** The calibrator's hand-picked values, predicting from surface ratings alone */
+        public static final Parameters DEFAULT = new Parameters(20.0, 32.0, 50, 1.2, 1.1, ELO_FLOOR, ELO_CEILING, 1.0);
+
+        private final double kHighRank;
+        private final double kLowRank;
+        private final int highRankCutoff;
+        private final double grandSlamMultiplier;
+        private final double mastersMultiplier;
+        private final double floor;
+        private final double ceiling;
+        private final double surfaceWeight;
+
+        /**
+         * @param kHighRank K-factor for players ranked at or above the cutoff
+         * @param kLowRank K-factor for everyone else, including the unranked
+         * @param surfaceWeight share of the surface rating, against the overall one, in predictions
+         */
+        public Parameters(double kHighRank, double kLowRank, int highRankCutoff, double grandSlamMultiplier,
+                          double mastersMultiplier, double floor, double ceiling, double surfaceWeight) {
+            if (kHighRank <= 0 || kLowRank <= 0 || grandSlamMultiplier <= 0 || mastersMultiplier <= 0) {
+                throw new IllegalArgumentException("K-factors and multipliers must be positive");
+            }
+            if (!(floor < BASE_ELO && BASE_ELO < ceiling)) {
+                throw new IllegalArgumentException("Rating bounds must contain " + BASE_ELO + ": [" + floor + ", " + ceiling + "]");
+            }
+            if (surfaceWeight < 0 || surfaceWeight > 1) {
+                throw new IllegalArgumentException("Surface weight must be in [0, 1]: " + surfaceWeight);
+            }
+            this.kHighRank = kHighRank;
+            this.kLowRank = kLowRank;
+            this.highRankCutoff = highRankCutoff;
+            this.grandSlamMultiplier = grandSlamMultiplier;
+            this.mastersMultiplier = mastersMultiplier;
+            this.floor = floor;
+            this.ceiling = ceiling;
+            this.surfaceWeight = surfaceWeight;
+        }
+
+        /** K-factor for a player of the given rank (0 or less for unranked) at a tournament level */
+        public double kFactor(int rank, String tourneyLevel) {
+            if (rank <= 0) rank = UNRANKED;
+            double baseK = rank <= highRankCutoff ? kHighRank : kLowRank;
+
+            if ("G".equals(tourneyLevel)) {
+                baseK *= grandSlamMultiplier;
+            } else if ("M".equals(tourneyLevel)) {
+                baseK *= mastersMultiplier;
+            }
+            return baseK;
+        }
+
+        /** The winner's new rating, from both ratings going into the match */
+        public double winnerRating(double winner, double loser, double kFactor) {
+            return clamp(winner + kFactor * (1.0 - SurfaceEloEngine.expectedScore(winner, loser)));
+        }
+
+        /** The loser's new rating, from both ratings going into the match */
+        public double loserRating(double loser, double winner, double kFactor) {
+            return clamp(loser + kFactor * (0.0 - (1.0 - SurfaceEloEngine.expectedScore(winner, loser))));
+        }
+
+        private double clamp(double rating) {
+            return Math.min(ceiling, Math.max(floor, rating));
+        }
+
+        /**
+         * Expected score of player 1 from both players' surface and overall ratings, blended
+         * by the surface weight
+         */
+        public double expectedScore(double surface1, double surface2, double overall1, double overall2) {
+            if (surfaceWeight == 1.0) return SurfaceEloEngine.expectedScore(surface1, surface2);
+            double rating1 = surfaceWeight * surface1 + (1 - surfaceWeight) * overall1;
+            double rating2 = surfaceWeight * surface2 + (1 - surfaceWeight) * overall2;
+            return SurfaceEloEngine.expectedScore(rating1, rating2);
+        }
+
+        public double getKHighRank() { return kHighRank; }
+        public double getKLowRank() { return kLowRank; }
+        public int getHighRankCutoff() { return highRankCutoff; }
+        public double getGrandSlamMultiplier() { return grandSlamMultiplier; }
+        public double getMastersMultiplier() { return mastersMultiplier; }
+        public double getFloor() { return floor; }
+        public double getCeiling() { return ceiling; }
+        public double getSurfaceWeight() { return surfaceWeight; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Parameters)) return false;
+            Parameters other = (Parameters) o;
+            return kHighRank == other.kHighRank && kLowRank == other.kLowRank
+                    && highRankCutoff == other.highRankCutoff
+                    && grandSlamMultiplier == other.grandSlamMultiplier && mastersMultiplier == other.mastersMultiplier
+                    && floor == other.floor && ceiling == other.ceiling && surfaceWeight == other.surfaceWeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(kHighRank, kLowRank, highRankCutoff, grandSlamMultiplier, mastersMultiplier,
+                    floor, ceiling, surfaceWeight);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("K %.0f/%.0f (top %d), G x%.2f, M x%.2f, bounds [%.0f, %.0f], surface weight %.2f",
+                    kHighRank, kLowRank, highRankCutoff, grandSlamMultiplier, mastersMultiplier, floor, ceiling, surfaceWeight);
+        }
+    }
+
+    /**
+     * Ratings after a {@link #rate(MatchTable)} pass, with both players' ratings before each
+     * match of the table
+     */
+    public static class Ratings {
+        private final SurfaceEloEngine engine;
+        private final double[][] surfaceBefore;
+        private final double[][] overallBefore;
+
+        private Ratings(SurfaceEloEngine engine, double[][] surfaceBefore, double[][] overallBefore) {
+            this.engine = engine;
+            this.surfaceBefore = surfaceBefore;
+            this.overallBefore = overallBefore;
+        }
+
+        /** Number of table rows covered */
+        public int size() {
+            return surfaceBefore[MatchTable.WINNER].length;
+        }
+
+        /** A side's rating on the match surface going into the table row */
+        public double getSurfaceEloBefore(int row, int side) {
+            return surfaceBefore[side][row];
+        }
+
+        /** A side's overall rating going into the table row */
+        public double getOverallEloBefore(int row, int side) {
+            return overallBefore[side][row];
+        }
+
+        /** Final rating of a player on a surface (by {@link MatchSymbols} codes) */
+        public double getSurfaceElo(int playerCode, int surfaceCode) {
+            return engine.getSurfaceElo(playerCode, surfaceCode);
+        }
+
+        /** Final overall rating of a player */
+        public double getOverallElo(int playerCode) {
+            return engine.getOverallElo(playerCode);
+        }
+
+        /**
+         * Write the final ratings into the manager's histories, see {@link SurfaceEloEngine#applyTo}
+         */
+        public int applyTo(PlayerHistoryManager historyManager) {
+            return engine.applyTo(historyManager);
+        }
+    }
+}
@@ -1,7 +1,19 @@
+/**
+ * Matches and wins on one surface. Only mutated under its PlayerHistory's write lock;
+ * readers get copies.
+ */
 public class SurfaceRecord {
     private int matches = 0;
     private int wins = 0;
 
+    public SurfaceRecord() {
+    }
+
+    public SurfaceRecord(int matches, int wins) {
+        this.matches = matches;
+        this.wins = wins;
+    }
+
     public void addMatch(boolean won) {
         matches++;
         if (won) wins++;
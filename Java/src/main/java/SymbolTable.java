@@ -0,0 +1,167 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Maps low-cardinality strings (player ids, names, surfaces, ...) to one canonical
+ * String instance and a dense int code. Codes start at 0 and never change.
+ *
+ * Cells can be interned straight from raw bytes: if the value is already known no
+ * String is created at all. Lookups of known values take no lock; only adding a new
+ * symbol does, so the parallel loaders share the tables cheaply.
+ */
+public class SymbolTable {
+    public static final int MISSING = -1;
+
+    private final Object addLock = new Object();
+    private volatile Table table = new Table(256);
+
+    /**
+     * Code for the value, adding it if new. Null maps to {@link #MISSING}.
+     */
+    public int intern(String value) {
+        if (value == null) return MISSING;
+        int code = find(table, value, value.hashCode());
+        return code != MISSING ? code : add(value, value.getBytes(StandardCharsets.UTF_8), value.hashCode());
+    }
+
+    /**
+     * Code for the UTF-8 bytes in {@code [from, from + length)}, adding them if new
+     */
+    public int intern(byte[] bytes, int from, int length) {
+        // Same as String.hashCode for ASCII, so both lookups land on the same slot
+        int hash = 0;
+        boolean ascii = true;
+        for (int i = from; i < from + length; i++) {
+            ascii &= bytes[i] >= 0;
+            hash = 31 * hash + bytes[i];
+        }
+        if (!ascii) {
+            return intern(new String(bytes, from, length, StandardCharsets.UTF_8));
+        }
+
+        int code = find(table, bytes, from, length, hash);
+        if (code != MISSING) return code;
+        return add(new String(bytes, from, length, StandardCharsets.US_ASCII),
+                Arrays.copyOfRange(bytes, from, from + length), hash);
+    }
+
+    /**
+     * Code of an already known value, or {@link #MISSING}
+     */
+    public int code(String value) {
+        if (value == null) return MISSING;
+        int code = find(table, value, value.hashCode());
+        if (code != MISSING) return code;
+        synchronized (addLock) {
+            return find(table, value, value.hashCode());
+        }
+    }
+
+    /**
+     * Canonical String for a code, or null for {@link #MISSING}
+     */
+    public String symbol(int code) {
+        return code >= 0 ? table.symbols[code] : null;
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private int add(String value, byte[] bytes, int hash) {
+        synchronized (addLock) {
+            // Another thread may have added it since the unlocked lookup
+            Table current = table;
+            int code = find(current, value, hash);
+            if (code != MISSING) return code;
+
+            code = current.size;
+            if (code == current.symbols.length) {
+                current = current.grow();
+            }
+            current.symbols[code] = value;
+            current.encoded[code] = bytes;
+            current.hashes[code] = hash;
+            current.insertSlot(code);
+            current.size = code + 1;
+            table = current;
+            return code;
+        }
+    }
+
+    /*
+     * The lookups below may run while another thread is adding to the same Table.
+     * A half-published entry shows up as a null symbol or a stale hash and simply
+     * counts as a miss; the locked path in add() then finds or creates it.
+     */
+
+    private static int find(Table t, String value, int hash) {
+        int[] slots = t.slots;
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) return MISSING;
+            int code = entry - 1;
+            String symbol = t.symbols[code];
+            if (symbol != null && t.hashes[code] == hash && symbol.equals(value)) return code;
+        }
+    }
+
+    private static int find(Table t, byte[] bytes, int from, int length, int hash) {
+        int[] slots = t.slots;
+        int mask = slots.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            int entry = slots[slot];
+            if (entry == 0) return MISSING;
+            int code = entry - 1;
+            byte[] encoded = t.encoded[code];
+            if (encoded != null && t.hashes[code] == hash
+                    && Arrays.equals(encoded, 0, encoded.length, bytes, from, from + length)) {
+                return code;
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static class Table {
+        final String[] symbols;
+        final byte[][] encoded;
+        final int[] hashes;
+        final int[] slots; // code + 1, 0 = empty
+        volatile int size;
+
+        Table(int capacity) {
+            symbols = new String[capacity];
+            encoded = new byte[capacity][];
+            hashes = new int[capacity];
+            slots = new int[capacity * 2];
+        }
+
+        /**
+         * Copy into a table of twice the capacity. Lookups still holding the old
+         * table keep working; they just miss symbols added after the copy.
+         */
+        Table grow() {
+            Table grown = new Table(symbols.length * 2);
+            System.arraycopy(symbols, 0, grown.symbols, 0, size);
+            System.arraycopy(encoded, 0, grown.encoded, 0, size);
+            System.arraycopy(hashes, 0, grown.hashes, 0, size);
+            for (int code = 0; code < size; code++) {
+                grown.insertSlot(code);
+            }
+            grown.size = size;
+            return grown;
+        }
+
+        void insertSlot(int code) {
+            int mask = slots.length - 1;
+            int slot = mix(hashes[code]) & mask;
+            while (slots[slot] != 0) slot = (slot + 1) & mask;
+            slots[slot] = code + 1;
+        }
+    }
+}
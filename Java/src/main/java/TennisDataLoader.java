@@ -1,10 +1,16 @@
 import java.io.*;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Loads and parses CSV tennis data into Match objects
  */
 public class TennisDataLoader {
+    private volatile ParseReport lastParseReport;
+    private volatile boolean lazyDecoding;
 
     public List<Match> loadMatches(String csvFilePath) throws IOException {
         List<Match> matches = new ArrayList<>();
@@ -15,20 +21,232 @@ public class TennisDataLoader {
 
             String[] headers = headerLine.split(",", -1);
             Map<String, Integer> columnIndex = createColumnIndex(headers);
+            ParseReport report = new ParseReport(csvFilePath, trimAll(headers));
 
             String line;
             while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) continue;
                 String[] values = line.split(",", -1);
-                Match match = parseMatch(values, columnIndex);
+                report.rowRead(values.length);
+                Match match = parseMatch(values, columnIndex, report);
                 if (match != null) {
                     matches.add(match);
+                    report.rowAccepted();
                 }
             }
+            finish(report);
         }
 
         return matches;
     }
 
+    /**
+     * When enabled, the mapped loaders leave minutes, score and the serve stats undecoded
+     * until one of those getters is first called; each match keeps just its row offset and a
+     * reference to the mapped file. Suits workloads such as history replay that never read them.
+     *
+     * The file must then not be truncated or rewritten while such matches are in use, and
+     * malformed cells in the deferred columns are not counted in the parse report.
+     */
+    public void setLazyDecoding(boolean lazyDecoding) {
+        this.lazyDecoding = lazyDecoding;
+    }
+
+    /**
+     * Parse report of the most recent load on this loader. Bad numeric cells are counted
+     * there instead of being printed; a summary is only printed when rows were rejected.
+     * A stream's report is published once the stream has been read to the end.
+     */
+    public ParseReport getLastParseReport() {
+        return lastParseReport;
+    }
+
+    /**
+     * Load matches by scanning a memory-mapped copy of the file. Column positions are
+     * resolved once from the header and numeric cells are parsed straight from the bytes.
+     * Produces the same Match objects as {@link #loadMatches(String)}.
+     */
+    public List<Match> loadMatchesMapped(String csvFilePath) throws IOException {
+        return loadMatchesMapped(csvFilePath, MatchFilter.all());
+    }
+
+    /**
+     * Memory-mapped load that keeps only rows accepted by the filter. The filter is checked
+     * on the raw bytes first, so skipped rows never allocate any objects.
+     */
+    public List<Match> loadMatchesMapped(String csvFilePath, MatchFilter filter) throws IOException {
+        List<Match> matches = new ArrayList<>();
+        finish(loadMatchesMapped(csvFilePath, filter, matches::add));
+        return matches;
+    }
+
+    /**
+     * Mapped load that hands each match to the consumer and returns the file's parse report
+     * without publishing it, so concurrent callers can merge their own reports
+     */
+    ParseReport loadMatchesMapped(String csvFilePath, MatchFilter filter, Consumer<Match> consumer) throws IOException {
+        MappedCsvReader reader = new MappedCsvReader(Paths.get(csvFilePath));
+        MatchColumns columns = columnsFor(reader);
+        ParseReport report = new ParseReport(csvFilePath, reader.getHeader());
+
+        while (reader.nextRow()) {
+            report.rowRead(reader.getFieldCount());
+            if (!columns.accepts(reader, filter)) {
+                report.rowFiltered();
+                continue;
+            }
+            Match match = parseMatch(reader, columns, report);
+            if (match != null) {
+                consumer.accept(match);
+                report.rowAccepted();
+            }
+        }
+        report.readTo(reader.nextRowOffset());
+        return report;
+    }
+
+    /**
+     * Lazily parse matches from a file in row order. Rows are decoded one at a time
+     * as the stream is consumed, so nothing is retained unless the caller keeps it.
+     * The parse report is finished when the last row has been read.
+     */
+    public Stream<Match> streamMatches(String csvFilePath) throws IOException {
+        return streamMatches(csvFilePath, MatchFilter.all());
+    }
+
+    public Stream<Match> streamMatches(String csvFilePath, MatchFilter filter) throws IOException {
+        MappedCsvReader reader = new MappedCsvReader(Paths.get(csvFilePath));
+        MatchColumns columns = columnsFor(reader);
+        ParseReport report = new ParseReport(csvFilePath, reader.getHeader());
+
+        Spliterator<Match> rows = new Spliterators.AbstractSpliterator<Match>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+            private boolean finished;
+
+            @Override
+            public boolean tryAdvance(Consumer<? super Match> action) {
+                while (reader.nextRow()) {
+                    report.rowRead(reader.getFieldCount());
+                    if (!columns.accepts(reader, filter)) {
+                        report.rowFiltered();
+                        continue;
+                    }
+                    Match match = parseMatch(reader, columns, report);
+                    if (match != null) {
+                        report.rowAccepted();
+                        action.accept(match);
+                        return true;
+                    }
+                }
+                if (!finished) {
+                    finished = true;
+                    report.readTo(reader.nextRowOffset());
+                    finish(report);
+                }
+                return false;
+            }
+        };
+        return StreamSupport.stream(rows, false);
+    }
+
+    /**
+     * Stream the per-year files between fromYear and toYear in chronological order.
+     * A year file is only parsed once the stream reaches its earliest date, and it is
+     * released as soon as it has been consumed, so at most the overlapping years are held.
+     */
+    public Stream<Match> streamYearRange(String directory, int fromYear, int toYear) throws IOException {
+        return streamYearRange(directory, fromYear, toYear, MatchFilter.all());
+    }
+
+    public Stream<Match> streamYearRange(String directory, int fromYear, int toYear, MatchFilter filter) throws IOException {
+        Iterator<Match> matches = new ChronologicalMatchIterator(this, yearFiles(directory, fromYear, toYear), filter);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(matches, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Parse the complete rows that start at or after {@code fromOffset} and pass each match
+     * to the consumer. A trailing row without a newline is treated as still being written
+     * and left for the next call. Returns the byte offset just past the last row consumed.
+     */
+    public long loadAppendedMatches(String csvFilePath, long fromOffset, Consumer<Match> consumer) throws IOException {
+        MappedCsvReader reader = new MappedCsvReader(Paths.get(csvFilePath), fromOffset);
+        MatchColumns columns = columnsFor(reader);
+        ParseReport report = new ParseReport(csvFilePath, reader.getHeader());
+
+        long offset = Math.max(fromOffset, reader.nextRowOffset());
+        while (reader.nextRow() && reader.isRowTerminated()) {
+            report.rowRead(reader.getFieldCount());
+            Match match = parseMatch(reader, columns, report);
+            if (match != null) {
+                consumer.accept(match);
+                report.rowAccepted();
+            }
+            offset = reader.nextRowOffset();
+        }
+        report.readTo(offset);
+        finish(report);
+        return offset;
+    }
+
+    /**
+     * Earliest tourney date in a file, read without building any Match objects
+     */
+    int scanEarliestDate(String csvFilePath) throws IOException {
+        MappedCsvReader reader = new MappedCsvReader(Paths.get(csvFilePath));
+        int dateColumn = reader.columnIndex("tourney_date");
+
+        int earliest = Integer.MAX_VALUE;
+        while (reader.nextRow()) {
+            earliest = Math.min(earliest, reader.getInt(dateColumn, ParallelMatchLoader.UNKNOWN_DATE));
+        }
+        return earliest;
+    }
+
+    /**
+     * Paths of the YYYY.csv files present in the directory for the given year range
+     */
+    static List<String> yearFiles(String directory, int fromYear, int toYear) throws IOException {
+        List<String> files = new ArrayList<>();
+        for (int year = fromYear; year <= toYear; year++) {
+            File file = new File(directory, year + ".csv");
+            if (file.isFile()) {
+                files.add(file.getPath());
+            }
+        }
+
+        if (files.isEmpty()) {
+            throw new IOException("No year files between " + fromYear + " and " + toYear + " in " + directory);
+        }
+        return files;
+    }
+
+    private MatchColumns columnsFor(MappedCsvReader reader) {
+        MatchColumns columns = new MatchColumns(reader);
+        if (lazyDecoding) {
+            columns.deferred = new DeferredRows(reader.duplicate(), columns);
+        }
+        return columns;
+    }
+
+    /**
+     * Publish a finished report; only rejected rows are worth printing
+     */
+    private void finish(ParseReport report) {
+        lastParseReport = report;
+        if (report.hasRejections()) {
+            System.err.println(report.summary());
+        }
+    }
+
+    private static String[] trimAll(String[] values) {
+        String[] trimmed = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            trimmed[i] = values[i].trim();
+        }
+        return trimmed;
+    }
+
     private Map<String, Integer> createColumnIndex(String[] headers) {
         Map<String, Integer> index = new HashMap<>();
         for (int i = 0; i < headers.length; i++) {
@@ -37,97 +255,211 @@ public class TennisDataLoader {
         return index;
     }
 
-    private Match parseMatch(String[] values, Map<String, Integer> columnIndex) {
-        try {
-            // Parse tournament info
-            String tourneyId = getValue(values, columnIndex, "tourney_id");
-            String tourneyName = getValue(values, columnIndex, "tourney_name");
-            String surface = getValue(values, columnIndex, "surface");
-            Integer drawSize = getIntegerValue(values, columnIndex, "draw_size");
-            String tourneyLevel = getValue(values, columnIndex, "tourney_level");
-            Integer tourneyDate = getIntegerValue(values, columnIndex, "tourney_date");
-            Integer matchNum = getIntegerValue(values, columnIndex, "match_num");
-            String round = getValue(values, columnIndex, "round");
-            Integer bestOf = getIntegerValue(values, columnIndex, "best_of");
-            Integer minutes = getIntegerValue(values, columnIndex, "minutes");
-            String score = getValue(values, columnIndex, "score");
-
-            // Parse winner
-            Player winner = new Player(
-                    getValue(values, columnIndex, "winner_id"),
-                    getValue(values, columnIndex, "winner_name"),
-                    getValue(values, columnIndex, "winner_hand"),
-                    getValue(values, columnIndex, "winner_ioc"),
-                    getIntegerValue(values, columnIndex, "winner_seed"),
-                    getValue(values, columnIndex, "winner_entry"),
-                    getIntegerValue(values, columnIndex, "winner_ht"),
-                    getDoubleValue(values, columnIndex, "winner_age"),
-                    getIntegerValue(values, columnIndex, "winner_rank"),
-                    getIntegerValue(values, columnIndex, "winner_rank_points")
-            );
-
-            // Parse loser
-            Player loser = new Player(
-                    getValue(values, columnIndex, "loser_id"),
-                    getValue(values, columnIndex, "loser_name"),
-                    getValue(values, columnIndex, "loser_hand"),
-                    getValue(values, columnIndex, "loser_ioc"),
-                    getIntegerValue(values, columnIndex, "loser_seed"),
-                    getValue(values, columnIndex, "loser_entry"),
-                    getIntegerValue(values, columnIndex, "loser_ht"),
-                    getDoubleValue(values, columnIndex, "loser_age"),
-                    getIntegerValue(values, columnIndex, "loser_rank"),
-                    getIntegerValue(values, columnIndex, "loser_rank_points")
-            );
-
-            // Parse winner stats
-            MatchStats winnerStats = new MatchStats(
-                    getIntegerValue(values, columnIndex, "w_ace"),
-                    getIntegerValue(values, columnIndex, "w_df"),
-                    getIntegerValue(values, columnIndex, "w_svpt"),
-                    getIntegerValue(values, columnIndex, "w_1stIn"),
-                    getIntegerValue(values, columnIndex, "w_1stWon"),
-                    getIntegerValue(values, columnIndex, "w_2ndWon"),
-                    getIntegerValue(values, columnIndex, "w_SvGms"),
-                    getIntegerValue(values, columnIndex, "w_bpSaved"),
-                    getIntegerValue(values, columnIndex, "w_bpFaced")
-            );
-
-            // Parse loser stats
-            MatchStats loserStats = new MatchStats(
-                    getIntegerValue(values, columnIndex, "l_ace"),
-                    getIntegerValue(values, columnIndex, "l_df"),
-                    getIntegerValue(values, columnIndex, "l_svpt"),
-                    getIntegerValue(values, columnIndex, "l_1stIn"),
-                    getIntegerValue(values, columnIndex, "l_1stWon"),
-                    getIntegerValue(values, columnIndex, "l_2ndWon"),
-                    getIntegerValue(values, columnIndex, "l_SvGms"),
-                    getIntegerValue(values, columnIndex, "l_bpSaved"),
-                    getIntegerValue(values, columnIndex, "l_bpFaced")
-            );
-
-            return new Match.Builder()
-                    .tourneyId(tourneyId)
-                    .tourneyName(tourneyName)
-                    .surface(surface)
-                    .drawSize(drawSize)
-                    .tourneyLevel(tourneyLevel)
-                    .tourneyDate(tourneyDate)
-                    .matchNum(matchNum)
-                    .round(round)
-                    .bestOf(bestOf)
-                    .minutes(minutes)
-                    .score(score)
-                    .winner(winner)
-                    .loser(loser)
-                    .winnerStats(winnerStats)
-                    .loserStats(loserStats)
-                    .build();
-
-        } catch (Exception e) {
-            System.err.println("Error parsing match: " + e.getMessage());
+    private Match parseMatch(String[] values, Map<String, Integer> columnIndex, ParseReport report) {
+        // Parse tournament info
+        String tourneyId = getValue(values, columnIndex, "tourney_id");
+        String tourneyName = getValue(values, columnIndex, "tourney_name");
+        String surface = getValue(values, columnIndex, "surface");
+        Integer drawSize = getIntegerValue(values, columnIndex, "draw_size", report);
+        String tourneyLevel = getValue(values, columnIndex, "tourney_level");
+        Integer tourneyDate = getIntegerValue(values, columnIndex, "tourney_date", report);
+        Integer matchNum = getIntegerValue(values, columnIndex, "match_num", report);
+        String round = getValue(values, columnIndex, "round");
+        Integer bestOf = getIntegerValue(values, columnIndex, "best_of", report);
+        Integer minutes = getIntegerValue(values, columnIndex, "minutes", report);
+        String score = getValue(values, columnIndex, "score");
+
+        // Parse winner
+        Player winner = parsePlayer(values, columnIndex, "winner_", tourneyDate, report);
+
+        // Parse loser
+        Player loser = parsePlayer(values, columnIndex, "loser_", tourneyDate, report);
+
+        // Parse winner stats
+        MatchStats winnerStats = new MatchStats(
+                getIntegerValue(values, columnIndex, "w_ace", report),
+                getIntegerValue(values, columnIndex, "w_df", report),
+                getIntegerValue(values, columnIndex, "w_svpt", report),
+                getIntegerValue(values, columnIndex, "w_1stIn", report),
+                getIntegerValue(values, columnIndex, "w_1stWon", report),
+                getIntegerValue(values, columnIndex, "w_2ndWon", report),
+                getIntegerValue(values, columnIndex, "w_SvGms", report),
+                getIntegerValue(values, columnIndex, "w_bpSaved", report),
+                getIntegerValue(values, columnIndex, "w_bpFaced", report)
+        );
+
+        // Parse loser stats
+        MatchStats loserStats = new MatchStats(
+                getIntegerValue(values, columnIndex, "l_ace", report),
+                getIntegerValue(values, columnIndex, "l_df", report),
+                getIntegerValue(values, columnIndex, "l_svpt", report),
+                getIntegerValue(values, columnIndex, "l_1stIn", report),
+                getIntegerValue(values, columnIndex, "l_1stWon", report),
+                getIntegerValue(values, columnIndex, "l_2ndWon", report),
+                getIntegerValue(values, columnIndex, "l_SvGms", report),
+                getIntegerValue(values, columnIndex, "l_bpSaved", report),
+                getIntegerValue(values, columnIndex, "l_bpFaced", report)
+        );
+
+        String unidentified = unidentifiedPlayer(winner, loser);
+        if (unidentified != null) {
+            report.rowRejected(unidentified);
             return null;
         }
+
+        return new Match.Builder()
+                .tourneyId(tourneyId)
+                .tourneyName(tourneyName)
+                .surface(surface)
+                .drawSize(drawSize)
+                .tourneyLevel(tourneyLevel)
+                .tourneyDate(tourneyDate)
+                .matchNum(matchNum)
+                .round(round)
+                .bestOf(bestOf)
+                .minutes(minutes)
+                .score(score)
+                .winner(winner)
+                .loser(loser)
+                .winnerStats(winnerStats)
+                .loserStats(loserStats)
+                .build();
+    }
+
+    private Player parsePlayer(String[] values, Map<String, Integer> columnIndex, String prefix,
+                               Integer tourneyDate, ParseReport report) {
+        Integer seed = getIntegerValue(values, columnIndex, prefix + "seed", report);
+        Integer height = getIntegerValue(values, columnIndex, prefix + "ht", report);
+        Double age = getDoubleValue(values, columnIndex, prefix + "age", report);
+        Integer rank = getIntegerValue(values, columnIndex, prefix + "rank", report);
+        Integer rankPoints = getIntegerValue(values, columnIndex, prefix + "rank_points", report);
+
+        PlayerRegistry.Attributes attributes = PlayerRegistry.SHARED.attributes(
+                MatchSymbols.PLAYER_IDS.intern(getValue(values, columnIndex, prefix + "id")),
+                getValue(values, columnIndex, prefix + "name"),
+                getValue(values, columnIndex, prefix + "hand"),
+                getValue(values, columnIndex, prefix + "ioc"),
+                height != null ? height : Player.MISSING,
+                tourneyDate != null ? tourneyDate : 0);
+        return new Player(attributes,
+                seed != null ? seed : Player.MISSING,
+                getValue(values, columnIndex, prefix + "entry"),
+                age != null ? age : Double.NaN,
+                rank != null ? rank : Player.MISSING,
+                rankPoints != null ? rankPoints : Player.MISSING);
+    }
+
+    private Match parseMatch(MappedCsvReader reader, MatchColumns columns, ParseReport report) {
+        Integer tourneyDate = getIntegerValue(reader, report, columns.tourneyDate);
+        Player winner = parsePlayer(reader, columns.winner, tourneyDate, report);
+        Player loser = parsePlayer(reader, columns.loser, tourneyDate, report);
+
+        String unidentified = unidentifiedPlayer(winner, loser);
+        if (unidentified != null) {
+            report.rowRejected(unidentified);
+            return null;
+        }
+
+        Match.Builder builder = new Match.Builder()
+                .tourneyId(intern(reader, columns.tourneyId, MatchSymbols.TOURNEY_IDS))
+                .tourneyName(intern(reader, columns.tourneyName, MatchSymbols.TOURNEY_NAMES))
+                .surface(intern(reader, columns.surface, MatchSymbols.SURFACES))
+                .drawSize(getIntegerValue(reader, report, columns.drawSize))
+                .tourneyLevel(intern(reader, columns.tourneyLevel, MatchSymbols.LEVELS))
+                .tourneyDate(tourneyDate)
+                .matchNum(getIntegerValue(reader, report, columns.matchNum))
+                .round(intern(reader, columns.round, MatchSymbols.ROUNDS))
+                .bestOf(getIntegerValue(reader, report, columns.bestOf))
+                .winner(winner)
+                .loser(loser);
+
+        if (columns.deferred != null) {
+            builder.deferredFields(columns.deferred, (int) reader.rowOffset());
+        } else {
+            parseDeferredFields(reader, columns, report, builder);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The fields lazy loading postpones: minutes, score and both sides' serve stats
+     */
+    private void parseDeferredFields(MappedCsvReader reader, MatchColumns columns, ParseReport report, Match.Builder builder) {
+        builder.minutes(getIntegerValue(reader, report, columns.minutes))
+                .score(reader.getString(columns.score))
+                .winnerStats(parseStats(reader, columns.winnerStats, report))
+                .loserStats(parseStats(reader, columns.loserStats, report));
+    }
+
+    private Player parsePlayer(MappedCsvReader reader, PlayerColumns columns, Integer tourneyDate, ParseReport report) {
+        PlayerRegistry.Attributes attributes = PlayerRegistry.SHARED.attributes(
+                reader.internField(columns.id, MatchSymbols.PLAYER_IDS),
+                intern(reader, columns.name, MatchSymbols.PLAYER_NAMES),
+                intern(reader, columns.hand, MatchSymbols.HANDS),
+                intern(reader, columns.ioc, MatchSymbols.COUNTRIES),
+                getInt(reader, report, columns.height),
+                tourneyDate != null ? tourneyDate : 0);
+        return new Player(
+                attributes,
+                getInt(reader, report, columns.seed),
+                intern(reader, columns.entry, MatchSymbols.ENTRIES),
+                getDouble(reader, report, columns.age),
+                getInt(reader, report, columns.rank),
+                getInt(reader, report, columns.rankPoints)
+        );
+    }
+
+    private MatchStats parseStats(MappedCsvReader reader, StatColumns columns, ParseReport report) {
+        return new MatchStats(
+                getInt(reader, report, columns.aces),
+                getInt(reader, report, columns.doubleFaults),
+                getInt(reader, report, columns.servePoints),
+                getInt(reader, report, columns.firstServeIn),
+                getInt(reader, report, columns.firstServeWon),
+                getInt(reader, report, columns.secondServeWon),
+                getInt(reader, report, columns.serviceGames),
+                getInt(reader, report, columns.breakPointsSaved),
+                getInt(reader, report, columns.breakPointsFaced)
+        );
+    }
+
+    /**
+     * Canonical String for a cell, shared with every other row holding the same value
+     */
+    private String intern(MappedCsvReader reader, int column, SymbolTable table) {
+        return table.symbol(reader.internField(column, table));
+    }
+
+    private Integer getIntegerValue(MappedCsvReader reader, ParseReport report, int column) {
+        int value = getInt(reader, report, column);
+        return value != Integer.MIN_VALUE ? value : null;
+    }
+
+    /**
+     * Cell as an int, Integer.MIN_VALUE (the Player and MatchStats sentinel) when missing
+     */
+    private int getInt(MappedCsvReader reader, ParseReport report, int column) {
+        int value = reader.getInt(column, Integer.MIN_VALUE);
+        if (value == Integer.MIN_VALUE && !reader.isBlank(column)) report.malformedCell(column);
+        return value;
+    }
+
+    /**
+     * Cell as a double, NaN when missing
+     */
+    private double getDouble(MappedCsvReader reader, ParseReport report, int column) {
+        double value = reader.getDouble(column, Double.NaN);
+        if (Double.isNaN(value) && !reader.isBlank(column)) report.malformedCell(column);
+        return value;
+    }
+
+    /**
+     * Rejection cause when a side of the match cannot be attributed to anyone, otherwise null
+     */
+    private static String unidentifiedPlayer(Player winner, Player loser) {
+        if (winner.getPlayerId() == null && winner.getName() == null) return "winner has no id or name";
+        if (loser.getPlayerId() == null && loser.getName() == null) return "loser has no id or name";
+        return null;
     }
 
     private String getValue(String[] values, Map<String, Integer> index, String column) {
@@ -137,23 +469,190 @@ public class TennisDataLoader {
         return value.isEmpty() ? null : value;
     }
 
-    private Integer getIntegerValue(String[] values, Map<String, Integer> index, String column) {
+    private Integer getIntegerValue(String[] values, Map<String, Integer> index, String column, ParseReport report) {
         String value = getValue(values, index, column);
         if (value == null) return null;
-        try {
-            return Integer.parseInt(value);
-        } catch (NumberFormatException e) {
+        if (!isInteger(value)) {
+            report.malformedCell(index.get(column));
             return null;
         }
+        return Integer.parseInt(value);
     }
 
-    private Double getDoubleValue(String[] values, Map<String, Integer> index, String column) {
+    private Double getDoubleValue(String[] values, Map<String, Integer> index, String column, ParseReport report) {
         String value = getValue(values, index, column);
         if (value == null) return null;
-        try {
-            return Double.parseDouble(value);
-        } catch (NumberFormatException e) {
+        if (!isDecimal(value)) {
+            report.malformedCell(index.get(column));
             return null;
         }
+        return Double.parseDouble(value);
+    }
+
+    /**
+     * True when Integer.parseInt would accept the value, checked without throwing
+     */
+    private static boolean isInteger(String value) {
+        int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        if (i == value.length()) return false;
+
+        long magnitude = 0;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+            magnitude = magnitude * 10 + (c - '0');
+            if (magnitude > (long) Integer.MAX_VALUE + 1) return false;
+        }
+        return magnitude <= Integer.MAX_VALUE || value.charAt(0) == '-';
+    }
+
+    /**
+     * True for plain decimals with an optional exponent, the same forms the mapped reader accepts
+     */
+    private static boolean isDecimal(String value) {
+        int i = value.charAt(0) == '-' || value.charAt(0) == '+' ? 1 : 0;
+        int digits = 0;
+        boolean seenDot = false;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else if (c == 'e' || c == 'E') {
+                break;
+            } else {
+                return false;
+            }
+        }
+        if (digits == 0) return false;
+        if (i == value.length()) return true;
+
+        i++;
+        if (i < value.length() && (value.charAt(i) == '-' || value.charAt(i) == '+')) i++;
+        if (i == value.length()) return false;
+        for (; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Column positions of the ATP match layout, resolved once per file
+     */
+    private static class MatchColumns {
+        final int tourneyId;
+        final int tourneyName;
+        final int surface;
+        final int drawSize;
+        final int tourneyLevel;
+        final int tourneyDate;
+        final int matchNum;
+        final int round;
+        final int bestOf;
+        final int minutes;
+        final int score;
+        final PlayerColumns winner;
+        final PlayerColumns loser;
+        final StatColumns winnerStats;
+        final StatColumns loserStats;
+
+        MatchColumns(MappedCsvReader reader) {
+            tourneyId = reader.columnIndex("tourney_id");
+            tourneyName = reader.columnIndex("tourney_name");
+            surface = reader.columnIndex("surface");
+            drawSize = reader.columnIndex("draw_size");
+            tourneyLevel = reader.columnIndex("tourney_level");
+            tourneyDate = reader.columnIndex("tourney_date");
+            matchNum = reader.columnIndex("match_num");
+            round = reader.columnIndex("round");
+            bestOf = reader.columnIndex("best_of");
+            minutes = reader.columnIndex("minutes");
+            score = reader.columnIndex("score");
+            winner = new PlayerColumns(reader, "winner_");
+            loser = new PlayerColumns(reader, "loser_");
+            winnerStats = new StatColumns(reader, "w_");
+            loserStats = new StatColumns(reader, "l_");
+        }
+
+        // Set when loading lazily
+        DeferredRows deferred;
+
+        boolean accepts(MappedCsvReader reader, MatchFilter filter) {
+            return filter.isUnrestricted() || filter.acceptsRow(reader, tourneyDate, tourneyLevel, surface, round);
+        }
+    }
+
+    /**
+     * Decodes the postponed fields of a lazily loaded match by re-reading its row from the mapping
+     */
+    private class DeferredRows implements Match.RowSource {
+        private final MappedCsvReader cursor;
+        private final MatchColumns columns;
+        // Collects malformed cells nobody reads; the load's report was finished long ago
+        private final ParseReport report;
+
+        DeferredRows(MappedCsvReader cursor, MatchColumns columns) {
+            this.cursor = cursor;
+            this.columns = columns;
+            this.report = new ParseReport("deferred", cursor.getHeader());
+        }
+
+        @Override
+        public synchronized void decodeDeferredFields(int rowOffset, Match.Builder target) {
+            cursor.readRowAt(rowOffset);
+            parseDeferredFields(cursor, columns, report, target);
+        }
+    }
+
+    private static class PlayerColumns {
+        final int id;
+        final int name;
+        final int hand;
+        final int ioc;
+        final int seed;
+        final int entry;
+        final int height;
+        final int age;
+        final int rank;
+        final int rankPoints;
+
+        PlayerColumns(MappedCsvReader reader, String prefix) {
+            id = reader.columnIndex(prefix + "id");
+            name = reader.columnIndex(prefix + "name");
+            hand = reader.columnIndex(prefix + "hand");
+            ioc = reader.columnIndex(prefix + "ioc");
+            seed = reader.columnIndex(prefix + "seed");
+            entry = reader.columnIndex(prefix + "entry");
+            height = reader.columnIndex(prefix + "ht");
+            age = reader.columnIndex(prefix + "age");
+            rank = reader.columnIndex(prefix + "rank");
+            rankPoints = reader.columnIndex(prefix + "rank_points");
+        }
+    }
+
+    private static class StatColumns {
+        final int aces;
+        final int doubleFaults;
+        final int servePoints;
+        final int firstServeIn;
+        final int firstServeWon;
+        final int secondServeWon;
+        final int serviceGames;
+        final int breakPointsSaved;
+        final int breakPointsFaced;
+
+        StatColumns(MappedCsvReader reader, String prefix) {
+            aces = reader.columnIndex(prefix + "ace");
+            doubleFaults = reader.columnIndex(prefix + "df");
+            servePoints = reader.columnIndex(prefix + "svpt");
+            firstServeIn = reader.columnIndex(prefix + "1stIn");
+            firstServeWon = reader.columnIndex(prefix + "1stWon");
+            secondServeWon = reader.columnIndex(prefix + "2ndWon");
+            serviceGames = reader.columnIndex(prefix + "SvGms");
+            breakPointsSaved = reader.columnIndex(prefix + "bpSaved");
+            breakPointsFaced = reader.columnIndex(prefix + "bpFaced");
+        }
     }
 }
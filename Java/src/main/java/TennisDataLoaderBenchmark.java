@@ -0,0 +1,85 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Throughput comparison between the BufferedReader and memory-mapped CSV loaders.
+ * Usage: TennisDataLoaderBenchmark [csv file or directory] [iterations]
+ */
+public class TennisDataLoaderBenchmark {
+
+    private interface LoaderRun {
+        List<Match> load(TennisDataLoader loader, String path) throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String target = args.length > 0 ? args[0] : "Data/OriginalCSVs";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<String> files = collectCsvFiles(new File(target));
+        if (files.isEmpty()) {
+            System.err.println("No CSV files found at " + target);
+            return;
+        }
+
+        long totalBytes = 0;
+        for (String file : files) {
+            totalBytes += new File(file).length();
+        }
+
+        System.out.printf("Benchmarking %d file(s), %.1f MB, %d iterations%n",
+                files.size(), totalBytes / (1024.0 * 1024.0), iterations);
+
+        TennisDataLoader loader = new TennisDataLoader();
+        double readerRate = run("BufferedReader", files, totalBytes, iterations, loader, TennisDataLoader::loadMatches);
+        double mappedRate = run("Memory-mapped", files, totalBytes, iterations, loader, TennisDataLoader::loadMatchesMapped);
+
+        System.out.printf("Speedup: %.2fx%n", mappedRate / readerRate);
+    }
+
+    private static double run(String label, List<String> files, long totalBytes, int iterations,
+                              TennisDataLoader loader, LoaderRun loaderRun) throws IOException {
+        // Warm up the JIT before measuring
+        for (int i = 0; i < 2; i++) {
+            loadAll(files, loader, loaderRun);
+        }
+
+        long bestNanos = Long.MAX_VALUE;
+        int rows = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            rows = loadAll(files, loader, loaderRun);
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+        }
+
+        double seconds = bestNanos / 1e9;
+        double rowsPerSecond = rows / seconds;
+        System.out.printf("%-15s | %8d matches | %8.1f ms | %10.0f rows/s | %6.1f MB/s%n",
+                label, rows, seconds * 1000, rowsPerSecond, totalBytes / (1024.0 * 1024.0) / seconds);
+        return rowsPerSecond;
+    }
+
+    private static int loadAll(List<String> files, TennisDataLoader loader, LoaderRun loaderRun) throws IOException {
+        int rows = 0;
+        for (String file : files) {
+            rows += loaderRun.load(loader, file).size();
+        }
+        return rows;
+    }
+
+    private static List<String> collectCsvFiles(File target) {
+        List<String> files = new ArrayList<>();
+        if (target.isDirectory()) {
+            File[] children = target.listFiles((dir, name) -> name.endsWith(".csv"));
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    files.add(child.getPath());
+                }
+            }
+        } else if (target.exists()) {
+            files.add(target.getPath());
+        }
+        return files;
+    }
+}
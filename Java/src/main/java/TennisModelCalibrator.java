@@ -15,11 +15,9 @@ public class TennisModelCalibrator {
     private static final double FORM_WEIGHT_SURFACE = 0.3;
 
     // ELO parameters
-    private static final double BASE_ELO = 1500.0;
-    private static final double K_FACTOR_HIGH_RANK = 20.0;
-    private static final double K_FACTOR_LOW_RANK = 32.0;
-    private static final double ELO_FLOOR = 1000.0;
-    private static final double ELO_CEILING = 2500.0;
+    private static final double BASE_ELO = SurfaceEloEngine.BASE_ELO;
+    private static final double ELO_FLOOR = SurfaceEloEngine.ELO_FLOOR;
+    private static final double ELO_CEILING = SurfaceEloEngine.ELO_CEILING;
 
     private final PlayerHistoryManager historyManager;
     private final Map<String, Double> surfaceAdjustments;
@@ -224,20 +222,8 @@ public class TennisModelCalibrator {
     }
 
     private double calculateKFactor(Player player, Match match) {
-        Integer rank = player.getRank();
-        if (rank == null || rank <= 0) rank = 500;
-
-        // Lower K-factor for higher-ranked players
-        double baseK = rank <= 50 ? K_FACTOR_HIGH_RANK : K_FACTOR_LOW_RANK;
-
-        // Increase K-factor for important tournaments
-        if ("G".equals(match.getTourneyLevel())) {
-            baseK *= 1.2;
-        } else if ("M".equals(match.getTourneyLevel())) {
-            baseK *= 1.1;
-        }
-
-        return baseK;
+        // Shared with the batch rating engine so both apply the same rules
+        return SurfaceEloEngine.kFactor(player.getRank(0), match.getTourneyLevel());
     }
 
     private PlayerHistory getPlayerHistory(Player player) {
@@ -269,7 +269,7 @@ public class TennisOddsScraper {
             String country = (String) data[4];
 
             String playerId = "ATP_" + name.replaceAll("\\s+", "_").toUpperCase();
-            Player player = new Player(playerId, name, "R", country, null, "", 185, age, rank, points);
+            Player player = Player.unregistered(playerId, name, "R", country, null, "", 185, age, rank, points);
             players.put(name, player);
         }
 
@@ -287,7 +287,7 @@ public class TennisOddsScraper {
         double estimatedAge = 22.0 + ((hash % 1500) / 100.0); // Age 22-37
 
         String playerId = "EST_" + name.replaceAll("\\s+", "_").toUpperCase();
-        return new Player(playerId, name, "R", "UNK", null, "", 185, estimatedAge, estimatedRank, estimatedPoints);
+        return Player.unregistered(playerId, name, "R", "UNK", null, "", 185, estimatedAge, estimatedRank, estimatedPoints);
     }
 
     /**
@@ -2,7 +2,9 @@ import weka.classifiers.trees.RandomForest;
 import weka.core.Instances;
 import weka.core.SerializationHelper;
 import java.io.File;
+import java.io.IOException;
 import java.util.*;
+import java.util.stream.Stream;
 import java.time.format.DateTimeFormatter;
 
 /**
@@ -29,7 +31,7 @@ public class TennisPredictionApp {
             PlayerHistoryManager historyManager = new PlayerHistoryManager();
 
             System.out.println("Loading historical data for player profiles...");
-            List<Match> matches = loadHistoricalData(historyManager);
+            IngestionCheckpoint checkpoint = loadHistoricalData(historyManager);
 
             // 3. Create predictor with pre-trained model
             FeatureExtractor featureExtractor = new FeatureExtractor(historyManager);
@@ -37,6 +39,7 @@ public class TennisPredictionApp {
 
             WekaTennisTrainer trainer = WekaTennisTrainer.fromPreTrainedModel(model, sampleMatches, featureExtractor);
             WekaTennisPredictor predictor = new WekaTennisPredictor(trainer, featureExtractor, historyManager);
+            ingestAppendedResults(predictor, checkpoint);
 
             // 4. Get upcoming matches with odds
             System.out.println("\nFetching upcoming matches with betting odds...");
@@ -890,17 +893,79 @@ public class TennisPredictionApp {
     }
 
     // ... (keep all the existing helper methods from the original code)
-    private static List<Match> loadHistoricalData(PlayerHistoryManager historyManager) {
-        List<Match> matches = new ArrayList<>();
+    /**
+     * Restore or rebuild the histories. Returns the checkpoint of the last match they include,
+     * or null if nothing was loaded.
+     */
+    private static IngestionCheckpoint loadHistoricalData(PlayerHistoryManager historyManager) {
+        // A snapshot from an earlier run restores the histories without replaying any matches
+        HistorySnapshot restored = restoreHistorySnapshot(historyManager);
+        if (restored != null) {
+            return restored.getCheckpoint();
+        }
+
+        HistoryBuild build = new HistoryBuild(historyManager);
         try {
             TennisDataLoader loader = new TennisDataLoader();
             String[] dataFiles = {"Java/src/main/resources/merged2005_2025.csv"};
 
+            // Replay never reads scores or serve stats, so leave them undecoded
+            loader.setLazyDecoding(true);
+
+            // The archive and the year files are streamed in date order straight into the histories,
+            // with players' histories built in parallel
+            File archiveFile = new File(ColumnarMatchArchive.DEFAULT_PATH);
+            File yearDirectory = new File("Data/OriginalCSVs");
+            List<String> yearFiles = Collections.emptyList();
+            if (yearDirectory.isDirectory()) {
+                try {
+                    yearFiles = TennisDataLoader.yearFiles(yearDirectory.getPath(), 2005, 2025);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+
+            // The archive is converted from the year files, so it is out of date once any of them is newer
+            boolean archiveCurrent = ColumnarMatchArchive.isCurrent(archiveFile.getPath(), yearFiles);
+            if (archiveFile.isFile() && !archiveCurrent) {
+                System.out.println(archiveFile + " is older than the year files, using them instead");
+            }
+            if (archiveCurrent) {
+                try {
+                    List<String> files = new ArrayList<>();
+                    files.add(archiveFile.getPath());
+                    files.addAll(yearFiles);
+                    ColumnarMatchArchive archive = ColumnarMatchArchive.open(archiveFile.getPath());
+                    archive.setLazyDecoding(true);
+                    build.replay(archive.stream(), files);
+                    System.out.println("Replayed " + build.replayed + " matches from " + archiveFile);
+                } catch (Exception e) {
+                    System.out.println("Could not load " + archiveFile + ", trying year files");
+                    build.reset();
+                }
+            }
+
+            if (build.replayed == 0 && !yearFiles.isEmpty()) {
+                try {
+                    build.replay(loader.streamYearRange(yearDirectory.getPath(), 2005, 2025), yearFiles);
+                    build.resumeFrom(yearFiles.get(yearFiles.size() - 1), loader.getLastParseReport());
+                    System.out.println("Replayed " + build.replayed + " matches from " + yearDirectory);
+                } catch (Exception e) {
+                    System.out.println("Could not load " + yearDirectory + ", trying merged file");
+                    build.reset();
+                }
+            }
+
+            // The merged file is not guaranteed to be in date order, so it still has to be sorted in memory
             for (String fileName : dataFiles) {
+                if (build.replayed > 0) break;
                 try {
-                    List<Match> yearMatches = loader.loadMatches(fileName);
-                    matches.addAll(yearMatches);
-                    System.out.println("Loaded " + yearMatches.size() + " matches from " + fileName);
+                    HistorySnapshot.Source stamp = HistorySnapshot.Source.of(fileName);
+                    List<Match> matches = loader.loadMatchesMapped(fileName);
+                    System.out.println("Loaded " + matches.size() + " matches from " + fileName);
+                    matches.sort(Comparator.comparingInt(m -> m.getTourneyDate() != null ? m.getTourneyDate() : 20200101));
+                    build.replay(matches, stamp);
+                    build.resumeFrom(fileName, loader.getLastParseReport());
                     break;
                 } catch (Exception e) {
                     System.out.println("Could not load " + fileName + ", using sample data");
@@ -908,17 +973,147 @@ public class TennisPredictionApp {
                 }
             }
 
-            matches.sort(Comparator.comparingInt(m -> m.getTourneyDate() != null ? m.getTourneyDate() : 20200101));
-            for (Match match : matches) {
-                historyManager.updateWithMatch(match);
+            System.out.println("Built histories for players from " + build.replayed + " matches");
+            return build.finish();
+
+        } catch (Exception e) {
+            System.err.println("Error loading historical data: " + e.getMessage());
+        }
+        return null;
+    }
+
+    /**
+     * Everything a history rebuild feeds: the histories, replayed in parallel with their Elo
+     * and Glicko-2 ratings, the last match and the files read. {@link #reset()} drops all of it
+     * when a source fails part way, so the next source starts clean.
+     */
+    private static final class HistoryBuild {
+        private final PlayerHistoryManager historyManager;
+        private final ParallelHistoryReplay replay;
+        private final List<HistorySnapshot.Source> sources = new ArrayList<>();
+        private Match lastMatch;
+        private int replayed;
+        // The CSV appended results arrive in, if the data came from one, and how far it was read
+        private String source;
+        private long sourceEnd;
+
+        HistoryBuild(PlayerHistoryManager historyManager) {
+            this.historyManager = historyManager;
+            this.replay = new ParallelHistoryReplay(historyManager);
+        }
+
+        /**
+         * Stamp {@code files}, then replay matches in date order from them
+         */
+        void replay(Stream<Match> matches, List<String> files) throws IOException {
+            for (String file : files) {
+                sources.add(HistorySnapshot.Source.of(file));
+            }
+            replayed = replay.replay(matches.peek(match -> lastMatch = match));
+        }
+
+        /**
+         * Replay matches already sorted by date from a file stamped before it was read
+         */
+        void replay(List<Match> matches, HistorySnapshot.Source stamp) throws IOException {
+            replay(matches.stream(), Collections.emptyList());
+            sources.add(stamp);
+        }
+
+        /**
+         * Resume appended results from where the loader stopped reading {@code csvFile}. Rows
+         * appended after the file was stamped may have been read too, so the stamp's length is
+         * not used. Without that file's report, there is nothing to resume from.
+         */
+        void resumeFrom(String csvFile, ParseReport report) {
+            if (report != null && csvFile.equals(report.getSource()) && report.getEndOffset() >= 0) {
+                source = csvFile;
+                sourceEnd = report.getEndOffset();
             }
+        }
+
+        void reset() {
+            historyManager.reset();
+            sources.clear();
+            lastMatch = null;
+            replayed = 0;
+            source = null;
+        }
 
-            System.out.println("Built histories for players from " + matches.size() + " matches");
+        /**
+         * Rate the last Glicko-2 period and save a snapshot of what was replayed. Returns the
+         * checkpoint of the last match, or null if nothing was replayed or the data did not come
+         * from a CSV.
+         */
+        IngestionCheckpoint finish() {
+            if (replayed == 0) return null;
+            historyManager.closeRatingPeriod();
+            if (sources.isEmpty()) return null;
+
+            IngestionCheckpoint checkpoint = null;
+            // Only a CSV source can be resumed from
+            if (source != null && lastMatch != null) {
+                checkpoint = new IngestionCheckpoint(source, sourceEnd, replayed,
+                        lastMatch.getTourneyId(), lastMatch.getMatchNum());
+            }
+            saveHistorySnapshot(historyManager, checkpoint, sources);
+            return checkpoint;
+        }
+    }
 
+    /**
+     * Apply the rows appended to the checkpoint's CSV since the histories were built or saved.
+     * The ingestor saves the snapshot again with its new checkpoint, so the rows are not lost
+     * or applied twice after a restart.
+     */
+    private static void ingestAppendedResults(WekaTennisPredictor predictor, IngestionCheckpoint checkpoint) {
+        if (checkpoint == null || !checkpoint.getSourceFile().endsWith(".csv")) return;
+        try {
+            IncrementalMatchIngestor ingestor = new IncrementalMatchIngestor(checkpoint.getSourceFile(), checkpoint,
+                    HistorySnapshot.DEFAULT_PATH);
+            int applied = predictor.updateWithResults(ingestor);
+            if (applied > 0) {
+                System.out.println("Applied " + applied + " new results from " + checkpoint.getSourceFile());
+            }
         } catch (Exception e) {
-            System.err.println("Error loading historical data: " + e.getMessage());
+            System.out.println("Could not ingest new results from " + checkpoint.getSourceFile() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restore the histories from {@link HistorySnapshot#DEFAULT_PATH} unless it is missing,
+     * unreadable, or any data file it was built from has changed since. Rows appended to the
+     * checkpoint's CSV are left to {@link #ingestAppendedResults}. Returns the snapshot, or null
+     * if nothing was restored.
+     */
+    private static HistorySnapshot restoreHistorySnapshot(PlayerHistoryManager historyManager) {
+        File snapshotFile = new File(HistorySnapshot.DEFAULT_PATH);
+        if (!snapshotFile.isFile()) return null;
+        try {
+            HistorySnapshot snapshot = HistorySnapshot.read(snapshotFile.getPath());
+            if (!snapshot.isCurrent()) {
+                System.out.println("Snapshot " + snapshotFile + " is out of date, replaying match data");
+                return null;
+            }
+            snapshot.restoreInto(historyManager);
+            System.out.println("Restored " + snapshot.getPlayerCount() + " player histories from " + snapshotFile
+                    + (snapshot.getCheckpoint() != null ? " (" + snapshot.getCheckpoint() + ")" : ""));
+            return snapshot;
+        } catch (Exception e) {
+            System.out.println("Could not restore " + snapshotFile + ": " + e.getMessage());
+            historyManager.reset();
+            return null;
+        }
+    }
+
+    private static void saveHistorySnapshot(PlayerHistoryManager historyManager, IngestionCheckpoint checkpoint,
+                                            List<HistorySnapshot.Source> sources) {
+        try {
+            historyManager.saveSnapshot(HistorySnapshot.DEFAULT_PATH, checkpoint, sources);
+            System.out.println("Saved player histories to " + HistorySnapshot.DEFAULT_PATH);
+        } catch (Exception e) {
+            System.out.println("Could not save " + HistorySnapshot.DEFAULT_PATH + ": " + e.getMessage());
         }
-        return matches;
     }
 
     private static List<Match> createSampleMatches() {
@@ -0,0 +1,66 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookup table of exp(-days / window) for one decay window, so time-decayed sums are built
+ * from array reads instead of calls to exp or pow. Weights past the end of the table (about 21
+ * windows, where they drop below 1e-9) read as zero.
+ *
+ * Every {@link MatchResultBuffer} keeps decayed sums for the {@link #TRACKED_WINDOWS}; tables
+ * for other windows are built on first use and shared.
+ */
+final class TimeDecay {
+    /** Windows in days whose decayed sums are maintained on every append */
+    static final int[] TRACKED_WINDOWS = {30, 90, 180, 365};
+
+    private static final double NEGLIGIBLE_WEIGHT = 1e-9;
+    private static final TimeDecay[] TRACKED = new TimeDecay[TRACKED_WINDOWS.length];
+    private static final ConcurrentHashMap<Integer, TimeDecay> OTHERS = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < TRACKED_WINDOWS.length; i++) {
+            TRACKED[i] = new TimeDecay(TRACKED_WINDOWS[i]);
+        }
+    }
+
+    private final double[] weights;
+
+    private TimeDecay(int window) {
+        weights = new double[(int) Math.ceil(window * -Math.log(NEGLIGIBLE_WEIGHT)) + 1];
+        for (int days = 0; days < weights.length; days++) {
+            weights[days] = Math.exp(-(double) days / window);
+        }
+    }
+
+    /**
+     * The table for a window of {@code days} (positive)
+     */
+    static TimeDecay forWindow(int days) {
+        int tracked = trackedIndex(days);
+        if (tracked >= 0) return TRACKED[tracked];
+        if (days <= 0) {
+            throw new IllegalArgumentException("Decay window must be positive: " + days);
+        }
+        return OTHERS.computeIfAbsent(days, TimeDecay::new);
+    }
+
+    /** The table for the i-th tracked window */
+    static TimeDecay tracked(int i) {
+        return TRACKED[i];
+    }
+
+    /** Position of a window in {@link #TRACKED_WINDOWS}, or -1 if it is not tracked */
+    static int trackedIndex(int days) {
+        for (int i = 0; i < TRACKED_WINDOWS.length; i++) {
+            if (TRACKED_WINDOWS[i] == days) return i;
+        }
+        return -1;
+    }
+
+    /** Weight of a result {@code days} old (0 or more) */
+    double weight(int days) {
+        if (days < 0) {
+            throw new IllegalArgumentException("Result age must not be negative: " + days);
+        }
+        return days < weights.length ? weights[days] : 0.0;
+    }
+}
@@ -20,8 +20,49 @@ public class WekaTennisPredictionSystem {
 
             String[] dataFiles = {"merged2005_2025.csv"};
             boolean dataLoaded = false;
+            boolean alreadySorted = false;
+
+            // Prefer the binary archive unless a year file is newer, then the per-year files;
+            // both come back in date order
+            File archiveFile = new File(ColumnarMatchArchive.DEFAULT_PATH);
+            File yearDirectory = new File("Data/OriginalCSVs");
+            List<String> yearFiles = Collections.emptyList();
+            if (yearDirectory.isDirectory()) {
+                try {
+                    yearFiles = TennisDataLoader.yearFiles(yearDirectory.getPath(), 2005, 2025);
+                } catch (IOException e) {
+                    System.out.println(e.getMessage());
+                }
+            }
+            boolean archiveCurrent = ColumnarMatchArchive.isCurrent(archiveFile.getPath(), yearFiles);
+            if (archiveFile.isFile() && !archiveCurrent) {
+                System.out.println(archiveFile + " is older than the year files, using them instead");
+            }
+            if (archiveCurrent) {
+                try {
+                    allMatches = ColumnarMatchArchive.open(archiveFile.getPath()).getMatches();
+                    System.out.println("Loaded " + allMatches.size() + " matches from " + archiveFile);
+                    dataLoaded = !allMatches.isEmpty();
+                    alreadySorted = dataLoaded;
+                } catch (IOException e) {
+                    System.out.println("Could not load " + archiveFile + ": " + e.getMessage());
+                }
+            }
+
+            if (!dataLoaded && yearDirectory.isDirectory()) {
+                try {
+                    allMatches = new ParallelMatchLoader().loadYearRange(yearDirectory.getPath(), 2005, 2025);
+                    System.out.println("Loaded " + allMatches.size() + " matches from " + yearDirectory);
+                    dataLoaded = !allMatches.isEmpty();
+                    alreadySorted = dataLoaded;
+                } catch (IOException e) {
+                    System.out.println("Could not load " + yearDirectory + ": " + e.getMessage());
+                }
+            }
 
             for (String fileName : dataFiles) {
+                if (dataLoaded) break;
+
                 try {
                     URL resource = WekaTennisPredictionSystem.class.getClassLoader().getResource(fileName);
                     String filePath;
@@ -35,7 +76,7 @@ public class WekaTennisPredictionSystem {
                         }
                     }
 
-                    List<Match> yearMatches = loader.loadMatches(filePath);
+                    List<Match> yearMatches = loader.loadMatchesMapped(filePath);
                     allMatches.addAll(yearMatches);
                     System.out.println("Loaded " + yearMatches.size() + " matches from " + fileName);
                     dataLoaded = true;
@@ -51,7 +92,9 @@ public class WekaTennisPredictionSystem {
                 createSampleData(allMatches);
             }
 
-            allMatches.sort(Comparator.comparingInt(m -> m.getTourneyDate() != null ? m.getTourneyDate() : 20200101));
+            if (!alreadySorted) {
+                allMatches.sort(Comparator.comparingInt(m -> m.getTourneyDate() != null ? m.getTourneyDate() : 20200101));
+            }
             System.out.printf("Total matches available: %d\n", allMatches.size());
 
             // 2. Split data chronologically
@@ -67,22 +110,30 @@ public class WekaTennisPredictionSystem {
             PlayerHistoryManager historyManager = new PlayerHistoryManager();
             FeatureExtractor featureExtractor = new FeatureExtractor(historyManager);
 
-            // Build player histories from training data
+            // Columnar copy of the training data; history building and feature extraction
+            // scan it row by row
+            MatchTable trainTable = MatchTable.of(trainMatches);
+
+            // Build player histories from training data (used for testing and predictions)
             System.out.println("Building player histories...");
-            for (int i = 0; i < trainMatches.size(); i++) {
-                Match match = trainMatches.get(i);
-                try {
-                    historyManager.updateWithMatch(match);
-                } catch (Exception e) {
-                    System.err.println("Error updating history for match: " + e.getMessage());
-                }
-            }
+            new ParallelHistoryReplay(historyManager).replay(trainTable);
+
+            // Pre-match surface Elo for the training features; the replay kept the histories'
+            // ratings current with the same update
+            SurfaceEloEngine.Ratings trainRatings = SurfaceEloEngine.rate(trainTable);
+
+            // Glicko-2 rating, deviation and volatility are batched by week during the replay;
+            // rate the last week too
+            historyManager.closeRatingPeriod();
+
+            // Each training match sees only the results played before it
+            PlayerTimelineIndex trainTimeline = PlayerTimelineIndex.build(trainTable, trainRatings);
 
 
             // 4. Train Weka model
             System.out.println("Training model...");
             WekaTennisTrainer trainer = new WekaTennisTrainer();
-            WekaTrainingResult result = trainer.trainModelWithProgress(trainMatches, featureExtractor);
+            WekaTrainingResult result = trainer.trainModelWithProgress(trainTable, featureExtractor, trainTimeline);
 
             // Save the model as .model
             // Ensure resources folder exists
@@ -1,5 +1,6 @@
 import weka.classifiers.trees.RandomForest;
 import weka.core.SerializationHelper;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -66,6 +67,14 @@ public class WekaTennisPredictor {
         for (Match match : newMatches) {
             historyManager.updateWithMatch(match);
         }
+        historyManager.closeRatingPeriod();
+    }
+
+    /**
+     * Apply only the results appended to the ingestor's CSV since its last checkpoint
+     */
+    public int updateWithResults(IncrementalMatchIngestor ingestor) throws IOException {
+        return ingestor.ingestInto(historyManager);
     }
 
     private Match createSyntheticMatch(Player player1, Player player2, MatchContext context) {
@@ -62,9 +62,24 @@ public class WekaTennisTrainer {
     }
 
     public WekaTrainingResult trainModel(List<Match> trainMatches, FeatureExtractor featureExtractor) {
+        return trainModel(createWekaInstances(trainMatches, featureExtractor));
+    }
+
+    /**
+     * Train on every row of a table, extracting features straight from its columns
+     */
+    public WekaTrainingResult trainModel(MatchTable trainMatches, FeatureExtractor featureExtractor) {
+        return trainModel(createWekaInstances(trainMatches, featureExtractor));
+    }
+
+    public WekaTrainingResult trainModel(MatchTable trainMatches, FeatureExtractor featureExtractor,
+                                         PlayerTimelineIndex timeline) {
+        return trainModel(createWekaInstances(trainMatches.size(),
+                (row, player1IsWinner) -> featureExtractor.extractFeaturesAsOf(trainMatches, row, player1IsWinner, timeline)));
+    }
+
+    private WekaTrainingResult trainModel(Instances trainingData) {
         try {
-            // Convert matches to Weka format
-            Instances trainingData = createWekaInstances(trainMatches, featureExtractor);
             trainingData.setClassIndex(trainingData.numAttributes() - 1);
 
             // Train the model
@@ -85,9 +100,26 @@ public class WekaTennisTrainer {
     }
 
     public WekaTrainingResult trainModelWithProgress(List<Match> trainMatches, FeatureExtractor featureExtractor) {
+        return trainModelWithProgress(createWekaInstances(trainMatches, featureExtractor));
+    }
+
+    public WekaTrainingResult trainModelWithProgress(MatchTable trainMatches, FeatureExtractor featureExtractor) {
+        return trainModelWithProgress(createWekaInstances(trainMatches, featureExtractor));
+    }
+
+    /**
+     * Train with each match's history features taken from the timeline as of just before it,
+     * rather than from the history manager's current state
+     */
+    public WekaTrainingResult trainModelWithProgress(MatchTable trainMatches, FeatureExtractor featureExtractor,
+                                                     PlayerTimelineIndex timeline) {
+        return trainModelWithProgress(createWekaInstances(trainMatches.size(),
+                (row, player1IsWinner) -> featureExtractor.extractFeaturesAsOf(trainMatches, row, player1IsWinner, timeline)));
+    }
+
+    private WekaTrainingResult trainModelWithProgress(Instances trainingData) {
         try {
-            // 1. Convert matches to Weka Instances
-            Instances trainingData = createWekaInstances(trainMatches, featureExtractor);
+            // 1. Matches have already been converted to Weka Instances
             trainingData.setClassIndex(trainingData.numAttributes() - 1);
             header = new Instances(trainingData, 0); // save header
 
@@ -141,13 +173,30 @@ public class WekaTennisTrainer {
         }
     }
 
+    /**
+     * Features of the match at an index, from either perspective
+     */
+    private interface IndexedFeatures {
+        FeatureVector extract(int index, boolean player1IsWinner);
+    }
+
     private Instances createWekaInstances(List<Match> matches, FeatureExtractor featureExtractor) {
-        if (matches.isEmpty()) {
+        return createWekaInstances(matches.size(),
+                (index, player1IsWinner) -> featureExtractor.extractFeatures(matches.get(index), player1IsWinner));
+    }
+
+    private Instances createWekaInstances(MatchTable table, FeatureExtractor featureExtractor) {
+        return createWekaInstances(table.size(),
+                (row, player1IsWinner) -> featureExtractor.extractFeatures(table, row, player1IsWinner));
+    }
+
+    private Instances createWekaInstances(int matchCount, IndexedFeatures matches) {
+        if (matchCount == 0) {
             throw new IllegalArgumentException("No matches provided for training");
         }
 
         // Get feature structure from first match
-        FeatureVector sampleFeatures = featureExtractor.extractFeatures(matches.get(0), true);
+        FeatureVector sampleFeatures = matches.extract(0, true);
         List<String> featureNames = sampleFeatures.getFeatureNames();
 
         // Create Weka attributes
@@ -163,18 +212,18 @@ public class WekaTennisTrainer {
         attributes.add(new Attribute("class", classValues));
 
         // Create dataset
-        Instances dataset = new Instances("tennis_matches", attributes, matches.size() * 2);
+        Instances dataset = new Instances("tennis_matches", attributes, matchCount * 2);
         dataset.setClassIndex(dataset.numAttributes() - 1);
 
         // Add instances (both winner and loser perspectives)
-        for (Match match : matches) {
+        for (int i = 0; i < matchCount; i++) {
             try {
                 // Winner perspective (positive example)
-                FeatureVector winnerFeatures = featureExtractor.extractFeatures(match, true);
+                FeatureVector winnerFeatures = matches.extract(i, true);
                 addInstance(dataset, winnerFeatures, 1.0);
 
                 // Loser perspective (negative example)
-                FeatureVector loserFeatures = featureExtractor.extractFeatures(match, false);
+                FeatureVector loserFeatures = matches.extract(i, false);
                 addInstance(dataset, loserFeatures, 0.0);
             } catch (Exception e) {
                 System.err.println("Error processing match: " + e.getMessage());
@@ -0,0 +1,85 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarMatchArchiveTest {
+    private static final String[] SCORES = {
+            "7-6(5) 3-6 7-6(10)", "6-3 4-6 [10-8]", "6-1 2-1 RET", "W/O", "6-3 3-2 DEF",
+            "6-3 (DEF)", "Played and abandoned", "6-4  6-3", null
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void scoresRoundTripThroughTheArchive() throws IOException {
+        List<Match> matches = new ArrayList<>();
+        for (Match match : TestMatches.generate("ar", 51, 20, 3, 20)) {
+            String score = SCORES[matches.size() % SCORES.length];
+            matches.add(new Match.Builder()
+                    .tourneyId(match.getTourneyId())
+                    .surface(match.getSurface())
+                    .tourneyLevel(match.getTourneyLevel())
+                    .tourneyDate(match.getTourneyDate())
+                    .matchNum(match.getMatchNum())
+                    .score(score)
+                    .winner(match.getWinner())
+                    .loser(match.getLoser())
+                    .build());
+        }
+        String path = directory.resolve("matches.tpma").toString();
+        ColumnarMatchArchive.write(matches, path);
+
+        for (boolean lazy : new boolean[]{false, true}) {
+            ColumnarMatchArchive archive = ColumnarMatchArchive.open(path);
+            archive.setLazyDecoding(lazy);
+            assertEquals(matches.size(), archive.size());
+            for (int row = 0; row < matches.size(); row++) {
+                Match written = matches.get(row);
+                Match read = archive.getMatch(row);
+                assertEquals(written.getScore(), read.getScore(), "score of row " + row);
+                assertEquals(written.getMatchScore(), read.getMatchScore(), "parsed score of row " + row);
+                assertEquals(written.isWalkover(), read.isWalkover());
+                assertEquals(written.getWinner().getPlayerId(), read.getWinner().getPlayerId());
+                assertEquals(written.getTourneyDate(), read.getTourneyDate());
+            }
+        }
+    }
+
+    @Test
+    void truncatedArchiveIsRejected() throws IOException {
+        Path path = directory.resolve("whole.tpma");
+        ColumnarMatchArchive.write(TestMatches.generate("at", 52, 8, 2, 10), path.toString());
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.tpma");
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> ColumnarMatchArchive.open(truncated.toString()), "cut at " + length);
+        }
+    }
+
+    @Test
+    void archiveOlderThanASourceFileIsNotCurrent() throws IOException {
+        Path path = directory.resolve("matches.tpma");
+        Path yearFile = Files.write(directory.resolve("2020.csv"), new byte[1]);
+        List<String> sources = Collections.singletonList(yearFile.toString());
+        assertFalse(ColumnarMatchArchive.isCurrent(path.toString(), sources));
+
+        ColumnarMatchArchive.write(TestMatches.generate("ac", 53, 8, 2, 5), path.toString());
+        assertTrue(yearFile.toFile().setLastModified(path.toFile().lastModified() - 60_000));
+        assertTrue(ColumnarMatchArchive.isCurrent(path.toString(), sources));
+
+        assertTrue(yearFile.toFile().setLastModified(path.toFile().lastModified() + 60_000));
+        assertFalse(ColumnarMatchArchive.isCurrent(path.toString(), sources));
+    }
+}
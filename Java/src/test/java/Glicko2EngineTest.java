@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Glicko2EngineTest {
+    private static final int DATE = 20240108;
+
+    /**
+     * Glickman, "Example of the Glicko-2 system": a 1500 (200) player beats a 1400 (30)
+     * player, then loses to 1550 (100) and 1700 (300) players, all in one period
+     */
+    @Test
+    void matchesGlickmansWorkedExample() {
+        int player = MatchSymbols.PLAYER_IDS.intern("gl-player");
+        int first = MatchSymbols.PLAYER_IDS.intern("gl-first");
+        int second = MatchSymbols.PLAYER_IDS.intern("gl-second");
+        int third = MatchSymbols.PLAYER_IDS.intern("gl-third");
+        // Rated in the period just before, so no deviation is added for time off
+        int previous = Glicko2Engine.period(DATE) - 1;
+
+        Glicko2Engine engine = new Glicko2Engine();
+        engine.restore(player, 1500, 200, Glicko2Engine.DEFAULT_VOLATILITY, previous);
+        engine.restore(first, 1400, 30, Glicko2Engine.DEFAULT_VOLATILITY, previous);
+        engine.restore(second, 1550, 100, Glicko2Engine.DEFAULT_VOLATILITY, previous);
+        engine.restore(third, 1700, 300, Glicko2Engine.DEFAULT_VOLATILITY, previous);
+        engine.add(player, first, DATE);
+        engine.add(second, player, DATE);
+        engine.add(third, player, DATE);
+        engine.flush();
+
+        assertEquals(1464.05, engine.getRating(player), 0.01);
+        assertEquals(151.52, engine.getDeviation(player), 0.01);
+        assertEquals(0.05999, engine.getVolatility(player), 0.00001);
+        assertEquals(3, engine.getMatchCount());
+    }
+
+    @Test
+    void resultsDoNotDependOnWorkerCount() {
+        // Enough players each week that periods are split across the workers
+        List<Match> matches = TestMatches.generate("gw", 41, 2000, 80, 63);
+        MatchTable table = MatchTable.of(matches);
+        Glicko2Engine single = rate(table, 1);
+        for (int workers : new int[]{2, 3, 4, 8}) {
+            Glicko2Engine parallel = rate(table, workers);
+            assertEquals(single.getMatchCount(), parallel.getMatchCount());
+            for (Match match : matches) {
+                for (Player player : new Player[]{match.getWinner(), match.getLoser()}) {
+                    int code = player.getPlayerCode();
+                    assertEquals(single.getRating(code), parallel.getRating(code), "rating with " + workers + " workers");
+                    assertEquals(single.getDeviation(code), parallel.getDeviation(code), "deviation with " + workers + " workers");
+                    assertEquals(single.getVolatility(code), parallel.getVolatility(code), "volatility with " + workers + " workers");
+                }
+            }
+        }
+    }
+
+    @Test
+    void managerRatesAsMatchesAreApplied() {
+        List<Match> matches = TestMatches.generate("gm", 42, 60, 5, 60);
+        Glicko2Engine batch = new Glicko2Engine();
+        batch.rate(MatchTable.of(matches));
+
+        PlayerHistoryManager manager = new PlayerHistoryManager();
+        manager.updateWithMatches(matches.stream());
+        manager.closeRatingPeriod();
+        for (Match match : matches) {
+            Player player = match.getWinner();
+            PlayerHistory history = manager.getPlayerHistory(player.getPlayerId());
+            assertEquals(batch.getRating(player.getPlayerCode()), history.getGlickoRating());
+            assertEquals(batch.getDeviation(player.getPlayerCode()), history.getGlickoDeviation());
+            assertEquals(batch.getVolatility(player.getPlayerCode()), history.getGlickoVolatility());
+        }
+    }
+
+    @Test
+    void rejectsMatchesBeforeARatedPeriod() {
+        int winner = MatchSymbols.PLAYER_IDS.intern("gl-early-winner");
+        int loser = MatchSymbols.PLAYER_IDS.intern("gl-early-loser");
+        Glicko2Engine engine = new Glicko2Engine();
+        engine.add(winner, loser, DATE);
+        engine.flush();
+
+        // The same week can be continued, an earlier one cannot
+        assertTrue(engine.accepts(DATE));
+        assertFalse(engine.accepts(DATE - 7));
+        engine.add(loser, winner, DATE);
+        assertThrows(IllegalArgumentException.class, () -> engine.add(winner, loser, DATE - 7));
+    }
+
+    private static Glicko2Engine rate(MatchTable table, int workers) {
+        ForkJoinPool pool = new ForkJoinPool(workers);
+        try {
+            Glicko2Engine engine = new Glicko2Engine(Glicko2Engine.DEFAULT_TAU, pool);
+            engine.rate(table);
+            return engine;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparisons of whole {@link PlayerHistoryManager} states
+ */
+final class HistoryAssertions {
+    static final String[] SURFACES = {"Hard", "Clay", "Grass", "Carpet"};
+
+    private HistoryAssertions() {
+    }
+
+    /**
+     * Every history (compared through its snapshot encoding and its surface records) and every
+     * head-to-head pairing must be identical
+     */
+    static void assertSameState(PlayerHistoryManager expected, PlayerHistoryManager actual) throws IOException {
+        expected.closeRatingPeriod();
+        actual.closeRatingPeriod();
+        assertEquals(expected.histories().keySet(), actual.histories().keySet());
+        for (Map.Entry<String, PlayerHistory> entry : expected.histories().entrySet()) {
+            String playerId = entry.getKey();
+            PlayerHistory want = entry.getValue();
+            PlayerHistory got = actual.getPlayerHistory(playerId);
+            assertArrayEquals(encode(want), encode(got), "history of " + playerId);
+            for (String surface : SURFACES) {
+                SurfaceRecord wantRecord = want.getSurfaceRecord(surface);
+                SurfaceRecord gotRecord = got.getSurfaceRecord(surface);
+                assertEquals(wantRecord.getMatches(), gotRecord.getMatches(), surface + " matches of " + playerId);
+                assertEquals(wantRecord.getWins(), gotRecord.getWins(), surface + " wins of " + playerId);
+            }
+        }
+
+        Map<Long, Long> pairings = pairings(expected.headToHead());
+        assertEquals(pairings, pairings(actual.headToHead()));
+        for (long key : pairings.keySet()) {
+            int lower = (int) (key >>> 32);
+            int higher = (int) key;
+            HeadToHeadRecord want = expected.getHeadToHeadRecord(higher, lower);
+            HeadToHeadRecord got = actual.getHeadToHeadRecord(higher, lower);
+            assertEquals(want.getWins(), got.getWins());
+            assertEquals(want.getLosses(), got.getLosses());
+        }
+    }
+
+    static byte[] encode(PlayerHistory history) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            history.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Every pairing as (lower code, higher code) to (lower side's wins, higher side's wins)
+     */
+    static Map<Long, Long> pairings(HeadToHeadStore store) {
+        Map<Long, Long> pairings = new HashMap<>();
+        store.forEach((lower, higher, lowerWins, higherWins) ->
+                pairings.put(((long) lower << 32) | higher, ((long) lowerWins << 32) | higherWins));
+        return pairings;
+    }
+}
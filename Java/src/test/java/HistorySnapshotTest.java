@@ -0,0 +1,237 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistorySnapshotTest {
+    private static final IngestionCheckpoint CHECKPOINT = new IngestionCheckpoint("fixture.csv", 1234, 20, "2020-fx9", 2);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void restoredSnapshotEqualsSourceManager() throws IOException {
+        PlayerHistoryManager source = build(TestMatches.generate("rt", 31, 80, 6, 120));
+        Path csv = Files.write(directory.resolve("results.csv"), new byte[10]);
+        String path = directory.resolve("histories.tphs").toString();
+        source.saveSnapshot(path, CHECKPOINT, Collections.singletonList(HistorySnapshot.Source.of(csv.toString())));
+
+        for (boolean memoryMapped : new boolean[]{true, false}) {
+            HistorySnapshot snapshot = HistorySnapshot.read(path, memoryMapped);
+            assertCheckpoint(snapshot.getCheckpoint());
+            assertEquals(1, snapshot.getSources().size());
+            assertEquals(10, snapshot.getSources().get(0).getLength());
+            assertTrue(snapshot.isCurrent());
+            assertEquals(source.histories().size(), snapshot.getPlayerCount());
+
+            PlayerHistoryManager restored = new PlayerHistoryManager();
+            snapshot.restoreInto(restored);
+            HistoryAssertions.assertSameState(source, restored);
+        }
+
+        Files.write(csv, new byte[11]);
+        assertFalse(HistorySnapshot.read(path).isCurrent());
+    }
+
+    @Test
+    void restoredManagerContinuesLikeTheSource() throws IOException {
+        List<Match> matches = TestMatches.generate("ct", 32, 80, 6, 120);
+        // Split at a week boundary, so no Glicko-2 period is rated in two parts
+        int split = matches.size() / 2;
+        while (Glicko2Engine.period(date(matches.get(split))) == Glicko2Engine.period(date(matches.get(split - 1)))) {
+            split++;
+        }
+
+        PlayerHistoryManager whole = new PlayerHistoryManager();
+        whole.updateWithMatches(matches.stream());
+        PlayerHistoryManager first = new PlayerHistoryManager();
+        first.updateWithMatches(matches.subList(0, split).stream());
+        String path = directory.resolve("first.tphs").toString();
+        first.saveSnapshot(path, null);
+
+        PlayerHistoryManager resumed = new PlayerHistoryManager();
+        assertNull(resumed.restoreSnapshot(path));
+        resumed.updateWithMatches(matches.subList(split, matches.size()).stream());
+        HistoryAssertions.assertSameState(whole, resumed);
+    }
+
+    @Test
+    void appendedResultsKeepTheSnapshotCurrentAndResume() throws IOException {
+        List<String> rows = Arrays.asList(
+                "2021-ap1,Apia,Hard,32,A,20210104,1,ap1,,,Ann,R,190,SWE,25.7,4,900,ap2,,,Bea,R,173,FRA,22.0,56,400,6-3 6-4,3,R32,76",
+                "2021-ap1,Apia,Hard,32,A,20210104,2,ap3,,,Cat,R,185,USA,24.1,9,700,ap1,,,Ann,R,190,SWE,25.7,4,900,7-6(3) 6-2,3,R16,90",
+                "2021-ap2,Apia,Clay,32,A,20210111,1,ap2,,,Bea,R,173,FRA,22.0,56,400,ap3,,,Cat,R,185,USA,24.1,9,700,6-1 6-1,3,R32,60");
+        Path csv = Files.write(directory.resolve("results.csv"),
+                Arrays.asList(TestMatches.CSV_HEADER, rows.get(0), rows.get(1)));
+        IngestionCheckpoint start = new IngestionCheckpoint(csv.toString(), 0, 0, null, null);
+        String path = directory.resolve("live.tphs").toString();
+        assertEquals(2, new IncrementalMatchIngestor(csv.toString(), start, path).ingestInto(new PlayerHistoryManager()));
+
+        Files.write(csv, Collections.singletonList(rows.get(2)), StandardOpenOption.APPEND);
+        HistorySnapshot snapshot = HistorySnapshot.read(path);
+        assertTrue(snapshot.isCurrent());
+        PlayerHistoryManager resumed = new PlayerHistoryManager();
+        snapshot.restoreInto(resumed);
+        IncrementalMatchIngestor ingestor = new IncrementalMatchIngestor(csv.toString(), snapshot.getCheckpoint(), path);
+        assertEquals(1, ingestor.ingestInto(resumed));
+        assertEquals(3, ingestor.getCheckpoint().getMatchesIngested());
+        assertEquals(Files.size(csv), ingestor.getCheckpoint().getByteOffset());
+
+        PlayerHistoryManager whole = new PlayerHistoryManager();
+        new IncrementalMatchIngestor(csv.toString(), start, directory.resolve("whole.tphs").toString()).ingestInto(whole);
+        HistoryAssertions.assertSameState(whole, resumed);
+
+        // Rewriting the file is not an append
+        Files.write(csv, Arrays.asList(TestMatches.CSV_HEADER, rows.get(0)));
+        assertFalse(HistorySnapshot.read(path).isCurrent());
+    }
+
+    @Test
+    void readsVersion1Fixture() throws Exception {
+        assertFixtureRestores(1);
+    }
+
+    @Test
+    void readsVersion2Fixture() throws Exception {
+        assertFixtureRestores(2);
+    }
+
+    @Test
+    void readsVersion3Fixture() throws Exception {
+        assertFixtureRestores(3);
+    }
+
+    @Test
+    void truncatedSnapshotIsRejected() throws IOException {
+        PlayerHistoryManager source = build(TestMatches.generate("tr", 33, 8, 2, 10));
+        Path path = directory.resolve("whole.tphs");
+        source.saveSnapshot(path.toString(), CHECKPOINT);
+        byte[] bytes = Files.readAllBytes(path);
+
+        Path truncated = directory.resolve("truncated.tphs");
+        for (int length = 0; length < bytes.length; length++) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> HistorySnapshot.read(truncated.toString()), "cut at " + length);
+        }
+    }
+
+    @Test
+    void corruptSnapshotIsRejected() throws IOException {
+        PlayerHistoryManager source = build(TestMatches.generate("cr", 34, 20, 3, 30));
+        Path path = directory.resolve("whole.tphs");
+        source.saveSnapshot(path.toString(), null);
+        byte[] bytes = Files.readAllBytes(path);
+
+        // Magic number, then version
+        assertRejected(corrupt(bytes, 0, 0x00));
+        assertRejected(corrupt(bytes, 7, 0x7F));
+        // The surface count just after the empty checkpoint and source list
+        assertRejected(corrupt(bytes, 13, 0x7F));
+        // The first history's result count (after its id and buffer capacity), far past the capacity
+        int id = indexOf(bytes, "cr".getBytes(StandardCharsets.UTF_8));
+        assertRejected(corrupt(bytes, id + bytes[id - 1] + 4, 0x7F));
+    }
+
+    /**
+     * Each fixture was written by the snapshot code of its version, from
+     * {@code TestMatches.generate("fx", 5, 6, 2, 10)} replayed into a manager, with surface Elo
+     * from version 2 and Glicko-2 from version 3, tagged with {@link #CHECKPOINT}
+     */
+    private static void assertFixtureRestores(int version) throws Exception {
+        List<Match> matches = TestMatches.generate("fx", 5, 6, 2, 10);
+        PlayerHistoryManager expected = build(matches);
+        PlayerHistoryManager restored = new PlayerHistoryManager();
+        HistorySnapshot snapshot = HistorySnapshot.read(fixture("history-v" + version + ".tphs"));
+        assertCheckpoint(snapshot.getCheckpoint());
+        assertTrue(snapshot.getSources().isEmpty());
+        assertFalse(snapshot.isCurrent());
+        snapshot.restoreInto(restored);
+
+        assertEquals(expected.histories().keySet(), restored.histories().keySet());
+        for (Map.Entry<String, PlayerHistory> entry : expected.histories().entrySet()) {
+            PlayerHistory want = entry.getValue();
+            PlayerHistory got = restored.getPlayerHistory(entry.getKey());
+            assertEquals(want.getTotalMatches(), got.getTotalMatches());
+            assertEquals(want.getTotalWins(), got.getTotalWins());
+            for (String surface : HistoryAssertions.SURFACES) {
+                assertEquals(want.getSurfaceMatches(surface), got.getSurfaceMatches(surface));
+                assertEquals(want.getSurfaceWins(surface), got.getSurfaceWins(surface));
+            }
+            List<PlayerHistory.MatchResult> wantResults = want.getRecentMatches(Integer.MAX_VALUE);
+            List<PlayerHistory.MatchResult> gotResults = got.getRecentMatches(Integer.MAX_VALUE);
+            assertEquals(wantResults.size(), gotResults.size());
+            for (int i = 0; i < wantResults.size(); i++) {
+                assertEquals(wantResults.get(i).isWon(), gotResults.get(i).isWon());
+                assertEquals(wantResults.get(i).getSurface(), gotResults.get(i).getSurface());
+                assertEquals(wantResults.get(i).getDate(), gotResults.get(i).getDate());
+            }
+            if (version >= 2) {
+                assertEquals(want.getOverallElo(), got.getOverallElo());
+                assertEquals(want.getAllSurfaceElos(), got.getAllSurfaceElos());
+            }
+            if (version >= 3) {
+                assertEquals(want.getGlickoRating(), got.getGlickoRating());
+                assertEquals(want.getGlickoDeviation(), got.getGlickoDeviation());
+                assertEquals(want.getGlickoVolatility(), got.getGlickoVolatility());
+                assertEquals(want.getGlickoPeriod(), got.getGlickoPeriod());
+            }
+        }
+        assertEquals(HistoryAssertions.pairings(expected.headToHead()), HistoryAssertions.pairings(restored.headToHead()));
+    }
+
+    private static PlayerHistoryManager build(List<Match> matches) {
+        PlayerHistoryManager manager = new PlayerHistoryManager();
+        manager.updateWithMatches(matches.stream());
+        SurfaceEloEngine.rate(MatchTable.of(matches)).applyTo(manager);
+        manager.closeRatingPeriod();
+        return manager;
+    }
+
+    private static void assertCheckpoint(IngestionCheckpoint checkpoint) {
+        assertNotNull(checkpoint);
+        assertEquals(CHECKPOINT.getSourceFile(), checkpoint.getSourceFile());
+        assertEquals(CHECKPOINT.getByteOffset(), checkpoint.getByteOffset());
+        assertEquals(CHECKPOINT.getMatchesIngested(), checkpoint.getMatchesIngested());
+        assertEquals(CHECKPOINT.getLastTourneyId(), checkpoint.getLastTourneyId());
+        assertEquals(CHECKPOINT.getLastMatchNum(), checkpoint.getLastMatchNum());
+    }
+
+    private void assertRejected(byte[] bytes) throws IOException {
+        Path path = Files.write(directory.resolve("corrupt.tphs"), bytes);
+        assertThrows(IOException.class, () -> HistorySnapshot.read(path.toString()));
+        assertThrows(IOException.class, () -> HistorySnapshot.read(path.toString(), false));
+    }
+
+    private static byte[] corrupt(byte[] bytes, int offset, int value) {
+        byte[] copy = bytes.clone();
+        copy[offset] = (byte) value;
+        return copy;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target) {
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            if (Arrays.equals(Arrays.copyOfRange(bytes, i, i + target.length), target)) return i;
+        }
+        throw new AssertionError("Not found");
+    }
+
+    private static int date(Match match) {
+        return match.getTourneyDate() != null ? match.getTourneyDate() : TestMatches.FIRST_DATE;
+    }
+
+    private static String fixture(String name) throws URISyntaxException {
+        return Paths.get(HistorySnapshotTest.class.getResource("/snapshots/" + name).toURI()).toString();
+    }
+}
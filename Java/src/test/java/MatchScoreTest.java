@@ -0,0 +1,108 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MatchScoreTest {
+    @Test
+    void setTiebreaksRoundTrip() {
+        MatchScore score = assertRoundTrip("7-6(5) 3-6 7-6(10)");
+        assertEquals(MatchScore.Outcome.COMPLETED, score.getOutcome());
+        assertEquals(3, score.getSetCount());
+        assertTrue(score.hasTiebreak(0));
+        assertEquals(5, score.getTiebreakLoserPoints(0));
+        assertFalse(score.hasTiebreak(1));
+        assertEquals(-1, score.getTiebreakLoserPoints(1));
+        assertEquals(10, score.getTiebreakLoserPoints(2));
+        assertEquals(2, score.getTiebreakCount());
+        assertEquals(2, score.getWinnerSets());
+        assertEquals(1, score.getLoserSets());
+        assertEquals(35, score.getTotalGames());
+    }
+
+    @Test
+    void matchTiebreakRoundTrips() {
+        MatchScore score = assertRoundTrip("6-3 4-6 [10-8]");
+        assertTrue(score.isMatchTiebreak(2));
+        assertFalse(score.hasTiebreak(2));
+        assertEquals(10, score.getWinnerGames(2));
+        assertEquals(8, score.getLoserGames(2));
+        assertEquals(2, score.getWinnerSets());
+        // Match tiebreak points are not games
+        assertEquals(19, score.getTotalGames());
+    }
+
+    @Test
+    void retirementRoundTrips() {
+        MatchScore score = assertRoundTrip("6-1 2-1 RET");
+        assertEquals(MatchScore.Outcome.RETIRED, score.getOutcome());
+        assertTrue(score.isRetirement());
+        assertFalse(score.isCompleted());
+        assertEquals(2, score.getSetCount());
+        assertEquals(2, score.getLoserGames(0) + score.getLoserGames(1));
+    }
+
+    @Test
+    void walkoverRoundTrips() {
+        MatchScore score = assertRoundTrip("W/O");
+        assertTrue(score.isWalkover());
+        assertEquals(0, score.getSetCount());
+        assertEquals(0, score.getTotalGames());
+        // The first marker decides
+        assertTrue(MatchScore.parse("W/O RET").isWalkover());
+    }
+
+    @Test
+    void defaultRoundTrips() {
+        MatchScore score = assertRoundTrip("6-3 3-2 DEF");
+        assertEquals(MatchScore.Outcome.DEFAULTED, score.getOutcome());
+        assertEquals(2, score.getSetCount());
+
+        // The parenthesised marker keeps its text, while the encoding renders the usual one
+        MatchScore bracketed = MatchScore.parse("6-3 (DEF)");
+        assertEquals("6-3 (DEF)", bracketed.toString());
+        assertEquals(MatchScore.Outcome.DEFAULTED, bracketed.getOutcome());
+        assertEquals("6-3 DEF", MatchScore.fromBytes(bracketed.toBytes()).toString());
+    }
+
+    @Test
+    void unreadableLinesKeepTheirText() {
+        for (String line : new String[]{"Played and abandoned", "6-4 ?", "6-4 RET 6-2", "6-4(x)"}) {
+            MatchScore score = MatchScore.parse(line);
+            assertEquals(line, score.toString());
+            assertEquals(MatchScore.Outcome.UNKNOWN, score.getOutcome());
+            assertEquals(0, score.getSetCount());
+            assertEquals(score, MatchScore.parse(line));
+            assertEquals("NA", MatchScore.fromBytes(score.toBytes()).toString());
+        }
+    }
+
+    @Test
+    void irregularSpacingKeepsTheOriginalLine() {
+        MatchScore score = MatchScore.parse("6-4  6-3");
+        assertEquals("6-4  6-3", score.toString());
+        assertEquals(MatchScore.parse("6-4 6-3").getOutcome(), score.getOutcome());
+        assertArrayEquals(MatchScore.parse("6-4 6-3").toBytes(), score.toBytes());
+    }
+
+    @Test
+    void blankLinesAndBadEncodings() {
+        assertNull(MatchScore.parse(null));
+        assertNull(MatchScore.parse("  "));
+        assertThrows(IllegalArgumentException.class, () -> MatchScore.fromBytes(new byte[0]));
+        assertThrows(IllegalArgumentException.class, () -> MatchScore.fromBytes(new byte[]{0, 6}));
+        assertThrows(IllegalArgumentException.class, () -> MatchScore.fromBytes(new byte[]{99}));
+    }
+
+    /**
+     * Parse a line that renders back as itself, and rebuild it from its bytes
+     */
+    private static MatchScore assertRoundTrip(String line) {
+        MatchScore score = MatchScore.parse(line);
+        assertEquals(line, score.toString());
+        MatchScore rebuilt = MatchScore.fromBytes(score.toBytes());
+        assertEquals(line, rebuilt.toString());
+        assertEquals(score, rebuilt);
+        assertEquals(score.hashCode(), rebuilt.hashCode());
+        return score;
+    }
+}
@@ -0,0 +1,53 @@
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ParallelHistoryReplayTest {
+    @Test
+    void tableReplayMatchesSequentialUpdates() throws IOException {
+        MatchTable table = MatchTable.of(TestMatches.generate("pr", 17, 300, 12, 400));
+        assertParallelMatchesSequential(table, false);
+    }
+
+    @Test
+    void tableReplayMatchesSequentialUpdatesWithoutWalkovers() throws IOException {
+        MatchTable table = MatchTable.of(TestMatches.generate("pw", 18, 300, 12, 400));
+        assertParallelMatchesSequential(table, true);
+    }
+
+    @Test
+    void streamReplayMatchesTableReplay() throws IOException {
+        List<Match> matches = TestMatches.generate("ps", 19, 300, 12, 200);
+        PlayerHistoryManager fromTable = new PlayerHistoryManager();
+        PlayerHistoryManager fromStream = new PlayerHistoryManager();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ParallelHistoryReplay(fromTable, pool, 1000).replay(MatchTable.of(matches));
+            new ParallelHistoryReplay(fromStream, pool, 1000).replay(matches.stream());
+        } finally {
+            pool.shutdown();
+        }
+        HistoryAssertions.assertSameState(fromTable, fromStream);
+    }
+
+    private static void assertParallelMatchesSequential(MatchTable table, boolean excludeWalkovers) throws IOException {
+        PlayerHistoryManager sequential = new PlayerHistoryManager();
+        sequential.setExcludeWalkovers(excludeWalkovers);
+        int applied = sequential.updateWithTable(table);
+
+        PlayerHistoryManager parallel = new PlayerHistoryManager();
+        parallel.setExcludeWalkovers(excludeWalkovers);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            // Small chunks so Elo and Glicko-2 carry over between them
+            assertEquals(applied, new ParallelHistoryReplay(parallel, pool, 777).replay(table));
+        } finally {
+            pool.shutdown();
+        }
+        HistoryAssertions.assertSameState(sequential, parallel);
+    }
+}
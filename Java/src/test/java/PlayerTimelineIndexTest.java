@@ -0,0 +1,41 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayerTimelineIndexTest {
+    @Test
+    void recordsBeforeEachRowMatchAnInOrderReplay() {
+        // Dated either side of UNKNOWN_DATE and sorted as the loaders sort, so undated matches sit in the middle
+        List<Match> matches = new ArrayList<>(TestMatches.generate("ti", 61, 40, 4, 1200, 20180601));
+        matches.sort(Comparator.comparingInt(m -> m.getTourneyDate() != null ? m.getTourneyDate() : ParallelMatchLoader.UNKNOWN_DATE));
+        assertTrue(matches.stream().anyMatch(m -> m.getTourneyDate() == null));
+        MatchTable table = MatchTable.of(matches);
+        PlayerTimelineIndex index = PlayerTimelineIndex.build(table);
+
+        PlayerHistoryManager replay = new PlayerHistoryManager();
+        for (int row = 0; row < table.size(); row++) {
+            int date = table.getTourneyDate(row);
+            for (int side = MatchTable.WINNER; side <= MatchTable.LOSER; side++) {
+                PlayerHistory history = replay.getPlayerHistory(table.getPlayerId(row, side));
+                PlayerRecord record = index.asOf(table.getPlayerCode(row, side), date, row);
+                assertEquals(history != null ? history.getTotalMatches() : 0, record != null ? record.getTotalMatches() : 0,
+                        "matches before row " + row);
+                assertEquals(history != null ? history.getTotalWins() : 0, record != null ? record.getTotalWins() : 0,
+                        "wins before row " + row);
+            }
+
+            int winner = table.getPlayerCode(row, MatchTable.WINNER);
+            int loser = table.getPlayerCode(row, MatchTable.LOSER);
+            HeadToHeadRecord expected = replay.getHeadToHeadRecord(winner, loser);
+            HeadToHeadRecord actual = index.headToHeadBefore(winner, loser, date, row);
+            assertEquals(expected != null ? expected.getWins() : 0, actual != null ? actual.getWins() : 0);
+            assertEquals(expected != null ? expected.getLosses() : 0, actual != null ? actual.getLosses() : 0);
+
+            replay.updateWithMatch(matches.get(row));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SurfaceEloEngineTest {
+    @Test
+    void resultsAppliedOneByOneMatchTheBatchEngine() {
+        List<Match> matches = TestMatches.generate("se", 41, 200, 10, 300);
+        SurfaceEloEngine.Ratings batch = SurfaceEloEngine.rate(MatchTable.of(matches));
+
+        PlayerHistoryManager sequential = new PlayerHistoryManager();
+        sequential.updateWithMatches(matches.stream());
+        assertMatchesBatch(batch, sequential);
+
+        // A replay followed by live results, as when appended rows are ingested after a restart
+        PlayerHistoryManager live = new PlayerHistoryManager();
+        int split = matches.size() / 3;
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            new ParallelHistoryReplay(live, pool, 500).replay(matches.subList(0, split));
+        } finally {
+            pool.shutdown();
+        }
+        for (Match match : matches.subList(split, matches.size())) {
+            live.updateWithMatch(match);
+        }
+        assertMatchesBatch(batch, live);
+    }
+
+    private static void assertMatchesBatch(SurfaceEloEngine.Ratings batch, PlayerHistoryManager manager) {
+        assertFalse(manager.histories().isEmpty());
+        for (Map.Entry<String, PlayerHistory> entry : manager.histories().entrySet()) {
+            int player = MatchSymbols.PLAYER_IDS.code(entry.getKey());
+            PlayerHistory history = entry.getValue();
+            assertEquals(batch.getOverallElo(player), history.getOverallElo(), entry.getKey());
+            for (String surface : HistoryAssertions.SURFACES) {
+                assertEquals(batch.getSurfaceElo(player, MatchSymbols.SURFACES.intern(surface)),
+                        history.getSurfaceElo(surface), entry.getKey() + " on " + surface);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TennisDataLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void streamPublishesItsReportOnceFullyRead() throws IOException {
+        Path csv = Files.write(directory.resolve("matches.csv"), Arrays.asList(TestMatches.CSV_HEADER,
+                "2000-1,Adelaide,Hard,32,A,20000103,1,dl1,1,,Ann,R,190,SWE,25.7,4,900,dl2,,,Bea,R,173,FRA,22.0,56,400,6-3 6-4,3,R32,76",
+                "2000-1,Adelaide,Hard,32,A,20000103,2,dl3,,,Cat,R,18x,USA,24.1,9,700,dl4,,,Dee,L,180,USA,21.5,80,300,7-6(3) 6-2,3,R32,90",
+                "2000-1,Adelaide,Hard,32,A,20000103,3,dl5,,,Eve,R,185,USA,23.0,12,650,dl6,,,Fay,R,175,GBR,20.2,99,250,W/O,3,R32,"));
+        TennisDataLoader loader = new TennisDataLoader();
+
+        try (Stream<Match> stream = loader.streamMatches(csv.toString())) {
+            Iterator<Match> matches = stream.iterator();
+            assertTrue(matches.hasNext());
+            assertEquals("dl1", matches.next().getWinner().getPlayerId());
+            // Not published while rows are still unread
+            assertNull(loader.getLastParseReport());
+            matches.next();
+            matches.next();
+            assertFalse(matches.hasNext());
+        }
+
+        ParseReport report = loader.getLastParseReport();
+        assertNotNull(report);
+        assertEquals(csv.toString(), report.getSource());
+        assertEquals(3, report.getRowsRead());
+        assertEquals(3, report.getRowsAccepted());
+        assertEquals(1, report.getMalformedCells("winner_ht"));
+        assertEquals(Files.size(csv), report.getEndOffset());
+
+        // The same counts as a full load of the file
+        List<Match> loaded = loader.loadMatchesMapped(csv.toString());
+        assertEquals(3, loaded.size());
+        assertEquals(report.getMalformedCellsByColumn(), loader.getLastParseReport().getMalformedCellsByColumn());
+        assertEquals(Files.size(csv), loader.getLastParseReport().getEndOffset());
+    }
+
+    @Test
+    void filteredStreamCountsFilteredRows() throws IOException {
+        Path csv = Files.write(directory.resolve("surfaces.csv"), Arrays.asList(TestMatches.CSV_HEADER,
+                "2000-2,Rome,Clay,32,M,20000501,1,dl7,,,Gil,R,180,ITA,25.0,5,800,dl8,,,Hal,R,180,ESP,25.0,6,700,6-4 6-4,3,R32,80",
+                "2000-3,Halle,Grass,32,A,20000601,1,dl9,,,Ivy,R,180,GER,25.0,7,600,dl10,,,Jon,R,180,AUT,25.0,8,500,6-4 6-4,3,R32,70"));
+        TennisDataLoader loader = new TennisDataLoader();
+        MatchFilter clay = new MatchFilter.Builder().surfaces("Clay").build();
+
+        List<Match> matches;
+        try (Stream<Match> stream = loader.streamMatches(csv.toString(), clay)) {
+            matches = stream.collect(Collectors.toList());
+        }
+        assertEquals(1, matches.size());
+        assertEquals(2, loader.getLastParseReport().getRowsRead());
+        assertEquals(1, loader.getLastParseReport().getRowsFiltered());
+    }
+}
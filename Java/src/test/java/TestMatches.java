@@ -0,0 +1,68 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic synthetic matches for tests: random pairings from a pool of players, a few
+ * each day in date order, across surfaces, levels and score types. Player ids start with
+ * the given prefix, so tests sharing {@link MatchSymbols} do not meet each other's players.
+ */
+final class TestMatches {
+    static final int FIRST_DATE = 20200106;
+    /** Column names of the year files, for tests that write their own CSV */
+    static final String CSV_HEADER = "tourney_id,tourney_name,surface,draw_size,tourney_level,tourney_date,match_num,"
+            + "winner_id,winner_seed,winner_entry,winner_name,winner_hand,winner_ht,winner_ioc,winner_age,winner_rank,winner_rank_points,"
+            + "loser_id,loser_seed,loser_entry,loser_name,loser_hand,loser_ht,loser_ioc,loser_age,loser_rank,loser_rank_points,"
+            + "score,best_of,round,minutes";
+
+    private static final String[] SURFACES = {"Hard", "Clay", "Grass", "Carpet"};
+    private static final String[] LEVELS = {"G", "M", "A", "D", "F"};
+    private static final String[] SCORES = {"6-4 6-3", "7-6(5) 3-6 6-2", "6-1 2-1 RET", "W/O", "4-6 7-6(8) 7-5"};
+
+    private TestMatches() {
+    }
+
+    /**
+     * {@code perDay} matches on each of {@code days} days from {@link #FIRST_DATE}; about one
+     * in a hundred has no date
+     */
+    static List<Match> generate(String prefix, long seed, int players, int perDay, int days) {
+        return generate(prefix, seed, players, perDay, days, FIRST_DATE);
+    }
+
+    /**
+     * As {@link #generate(String, long, int, int, int)}, starting on a yyyyMMdd date
+     */
+    static List<Match> generate(String prefix, long seed, int players, int perDay, int days, int firstDate) {
+        Random random = new Random(seed);
+        int firstDay = DateCodes.toEpochDay(firstDate);
+        List<Match> matches = new ArrayList<>(perDay * days);
+        for (int day = 0; day < days; day++) {
+            int date = DateCodes.fromEpochDay(firstDay + day);
+            for (int i = 0; i < perDay; i++) {
+                int winner = random.nextInt(players);
+                int loser = random.nextInt(players - 1);
+                if (loser >= winner) loser++;
+                matches.add(new Match.Builder()
+                        .tourneyId(date / 10000 + "-" + prefix + day)
+                        .tourneyName(prefix + " Open")
+                        .surface(SURFACES[random.nextInt(SURFACES.length)])
+                        .tourneyLevel(LEVELS[random.nextInt(LEVELS.length)])
+                        .tourneyDate(random.nextInt(100) == 0 ? null : date)
+                        .matchNum(i + 1)
+                        .round("R32")
+                        .bestOf(3)
+                        .score(SCORES[random.nextInt(SCORES.length)])
+                        .winner(player(prefix + winner, random))
+                        .loser(player(prefix + loser, random))
+                        .build());
+            }
+        }
+        return matches;
+    }
+
+    private static Player player(String playerId, Random random) {
+        Integer rank = random.nextInt(10) == 0 ? null : 1 + random.nextInt(500);
+        return new Player(playerId, "Player " + playerId, "R", "USA", null, null, 185, 25.0, rank, 1000);
+    }
+}